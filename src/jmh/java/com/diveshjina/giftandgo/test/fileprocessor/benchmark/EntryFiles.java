@@ -0,0 +1,53 @@
+package com.diveshjina.giftandgo.test.fileprocessor.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates entry files in the EntryFile.txt format. The same arguments always give the same file.
+ */
+final class EntryFiles {
+    private static final String[] NAMES = {"John Smith", "Mike Smith", "Jenny Walters", "Ada Lovelace", "Grace Hopper"};
+    private static final String[] LIKES = {"Likes Apricots", "Likes Grape", "Likes Avocados", "Likes Long Walks"};
+    private static final String[] TRANSPORTS = {"Rides A Bike", "Drives an SUV", "Rides A Scooter", "Takes The Train"};
+
+    private EntryFiles() {
+    }
+
+    static String line(Random random, boolean valid) {
+        var uuid = new UUID(random.nextLong(), random.nextLong()).toString();
+        var id = Integer.toString(random.nextInt(10)) + "X" + random.nextInt(10) + "D" + (10 + random.nextInt(90));
+        var name = NAMES[random.nextInt(NAMES.length)];
+        var likes = LIKES[random.nextInt(LIKES.length)];
+        var transport = TRANSPORTS[random.nextInt(TRANSPORTS.length)];
+        var avgSpeed = random.nextInt(60) + "." + random.nextInt(10);
+        var topSpeed = (60 + random.nextInt(140)) + "." + random.nextInt(10);
+        if (!valid) {
+            // The kinds of mistake the parser has to reject, at different depths into the line
+            switch (random.nextInt(4)) {
+                case 0 -> uuid = uuid.toUpperCase();
+                case 1 -> name = name + "1";
+                case 2 -> topSpeed = "0" + topSpeed;
+                default -> transport = "";
+            }
+        }
+        return String.join("|", uuid, id, name, likes, transport, avgSpeed, topSpeed);
+    }
+
+    static Path generate(int lines, int invalidPercent) throws IOException {
+        var random = new Random(lines * 31L + invalidPercent);
+        var file = Files.createTempFile("entry-file-" + lines + "-", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (var i = 0; i < lines; i++) {
+                writer.write(line(random, random.nextInt(100) >= invalidPercent));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,109 @@
+package com.diveshjina.giftandgo.test.fileprocessor.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ResultCacheProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ParallelFileProcessor;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ProcessingMetrics;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ResultCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * End-to-end cost of {@link FileProcessorService#processFile}: reading, validating, parsing and
+ * serializing a whole file to a discarding stream. Files from the 16MB parallel threshold up take
+ * the parallel path, as they would in the application; the gc profiler only counts allocations on
+ * the benchmark thread, so use gc.count and gc.time to compare that path. Narrow the run with JMH
+ * options, e.g. {@code -Djmh.args="FileProcessorBenchmark -p lines=1000000"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FileProcessorBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int lines;
+
+    @Param({"0", "1"})
+    int invalidPercent;
+
+    @Param({"true", "false"})
+    boolean validate;
+
+    private Path file;
+    private ParallelFileProcessor parallelFileProcessor;
+    private FileProcessorService fileProcessorService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = EntryFiles.generate(lines, invalidPercent);
+        var objectMapper = new ObjectMapper();
+        var parsingProperties = new ParsingProperties(DataSize.ofMegabytes(16), DataSize.ofMegabytes(1), 0, Duration.ofMillis(100));
+        parallelFileProcessor = new ParallelFileProcessor(objectMapper, parsingProperties);
+        var meterRegistry = new SimpleMeterRegistry();
+        // Only processFile is exercised, which needs neither the ip-api lookup nor the audit writer, and the result cache is off so every run processes the file
+        fileProcessorService = new FileProcessorService(List.of(), null, null, objectMapper, parallelFileProcessor, parsingProperties,
+            new ProcessingMetrics(meterRegistry), null, new ResultCache(new ResultCacheProperties(false, null, null, null, null), meterRegistry));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parallelFileProcessor.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void processFile(Blackhole blackhole) throws IOException {
+        var outputStream = new CountingOutputStream();
+        try (var outcomeFile = fileProcessorService.processFile(new PathMultipartFile(file), validate, OutputFormat.JSON)) {
+            outcomeFile.writeTo(outputStream);
+        } catch (InvalidFileException ex) {
+            blackhole.consume(ex);
+        }
+        blackhole.consume(outputStream.count);
+    }
+
+    static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
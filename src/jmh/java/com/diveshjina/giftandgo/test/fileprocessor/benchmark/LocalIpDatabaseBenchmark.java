@@ -0,0 +1,66 @@
+package com.diveshjina.giftandgo.test.fileprocessor.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.IpDatabaseProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.service.LocalIpDatabase;
+
+/**
+ * Cost of looking an IP up in the local database, which the gc profiler should show allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalIpDatabaseBenchmark {
+    private static final int IP_COUNT = 1024;
+
+    @Param({"1000", "1000000"})
+    int ranges;
+
+    private LocalIpDatabase localIpDatabase;
+    private String[] ips;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        var random = new Random(ranges);
+        var csv = new StringBuilder();
+        var step = (1L << 32) / ranges;
+        for (var i = 0; i < ranges; i++) {
+            var first = i * step;
+            csv.append(first).append(',').append(first + random.nextLong(step)).append(',')
+                .append("C").append(i % 250).append(",Country ").append(i % 250).append(",ISP ").append(i % 5000).append('\n');
+        }
+        localIpDatabase = new LocalIpDatabase(new IpDatabaseProperties(new ByteArrayResource(csv.toString().getBytes(StandardCharsets.US_ASCII))));
+        ips = new String[IP_COUNT];
+        for (var i = 0; i < IP_COUNT; i++) {
+            ips[i] = random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+        }
+    }
+
+    @Benchmark
+    public IpDetailsDto getIpDetails() {
+        next = (next + 1) & (IP_COUNT - 1);
+        return localIpDatabase.getIpDetails(ips[next]);
+    }
+}
@@ -0,0 +1,113 @@
+package com.diveshjina.giftandgo.test.fileprocessor.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ResultCacheProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ParallelFileProcessor;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ProcessingMetrics;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ResultCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serialization time of each output format for the same file. The payload size of each format is
+ * reported alongside as the {@code payloadBytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OutputFormatBenchmark {
+
+    @Param({"100000"})
+    int lines;
+
+    @Param({"JSON", "NDJSON", "CBOR"})
+    OutputFormat format;
+
+    private Path file;
+    private ParallelFileProcessor parallelFileProcessor;
+    private FileProcessorService fileProcessorService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = EntryFiles.generate(lines, 0);
+        var objectMapper = new ObjectMapper();
+        var parsingProperties = new ParsingProperties(DataSize.ofMegabytes(16), DataSize.ofMegabytes(1), 0, Duration.ofMillis(100));
+        parallelFileProcessor = new ParallelFileProcessor(objectMapper, parsingProperties);
+        var meterRegistry = new SimpleMeterRegistry();
+        fileProcessorService = new FileProcessorService(List.of(), null, null, objectMapper, parallelFileProcessor, parsingProperties,
+            new ProcessingMetrics(meterRegistry), null, new ResultCache(new ResultCacheProperties(false, null, null, null, null), meterRegistry));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parallelFileProcessor.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long processFile(Payload payload) throws IOException, InvalidFileException {
+        var outputStream = new FileProcessorBenchmark.CountingOutputStream();
+        try (var outcomeFile = fileProcessorService.processFile(new PathMultipartFile(file), false, format)) {
+            outcomeFile.writeTo(outputStream);
+        }
+        payload.record(outputStream.count);
+        return outputStream.count;
+    }
+
+    /**
+     * The size of one payload. Every invocation writes the same payload, and JMH sums event counters
+     * over the measurement iterations, so only the first measurement iteration reports it.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long payloadBytes;
+        private boolean measured;
+        private boolean reporting;
+
+        @Setup(Level.Iteration)
+        public void setUp(IterationParams iterationParams) {
+            payloadBytes = 0;
+            reporting = iterationParams.getType() == IterationType.MEASUREMENT && !measured;
+            measured |= reporting;
+        }
+
+        void record(long bytes) {
+            if (reporting) {
+                payloadBytes = bytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.diveshjina.giftandgo.test.fileprocessor.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * An upload backed by a file on disk, so files too big for a byte array can be benchmarked.
+ * {@link #transferTo(File)} copies where Tomcat would rename, so it slightly overstates the cost
+ * of the parallel path.
+ */
+class PathMultipartFile implements MultipartFile {
+    private final Path path;
+
+    PathMultipartFile(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return path.getFileName().toString();
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/plain";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(path);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
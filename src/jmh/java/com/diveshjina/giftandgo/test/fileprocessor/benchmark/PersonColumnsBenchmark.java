@@ -0,0 +1,120 @@
+package com.diveshjina.giftandgo.test.fileprocessor.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonColumns;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonLineParser;
+
+/**
+ * Heap held by the persons of a million lines, as a list of {@link PersonDto} and as
+ * {@link PersonColumns}. Each run parses every line into a fresh container, and reports the heap
+ * it still holds after a full collection, per line, as {@code retainedBytesPerLine}. With
+ * {@code uniqueNames} every line has its own name, as real files mostly do, so the parser's symbol
+ * table cannot share them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(1)
+public class PersonColumnsBenchmark {
+    private static final int LINE_COUNT = 1_000_000;
+
+    @Param({"false", "true"})
+    boolean uniqueNames;
+
+    private byte[] buffer;
+    private int[] lineStarts;
+    private int[] lineEnds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytesPerLine;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new Random(LINE_COUNT);
+        var text = new StringBuilder();
+        lineStarts = new int[LINE_COUNT];
+        lineEnds = new int[LINE_COUNT];
+        for (var i = 0; i < LINE_COUNT; i++) {
+            var fields = EntryFiles.line(random, true).split("\\|");
+            if (uniqueNames) {
+                fields[2] = fields[2] + " " + letters(i);
+            }
+            lineStarts[i] = text.length();
+            text.append(String.join("|", fields));
+            lineEnds[i] = text.length();
+            text.append('\n');
+        }
+        buffer = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public Object personList(Footprint footprint) {
+        var baseline = usedHeap();
+        var lineParser = new PersonLineParser();
+        var persons = new ArrayList<PersonDto>();
+        for (var i = 0; i < LINE_COUNT; i++) {
+            if (lineParser.parse(buffer, lineStarts[i], lineEnds[i])) {
+                persons.add(lineParser.toPerson());
+            }
+        }
+        persons.trimToSize();
+        footprint.retainedBytesPerLine = (usedHeap() - baseline) / LINE_COUNT;
+        return persons;
+    }
+
+    @Benchmark
+    public Object personColumns(Footprint footprint) {
+        var baseline = usedHeap();
+        var lineParser = new PersonLineParser();
+        var persons = new PersonColumns(buffer.length / 4);
+        for (var i = 0; i < LINE_COUNT; i++) {
+            if (lineParser.parse(buffer, lineStarts[i], lineEnds[i])) {
+                lineParser.appendTo(persons);
+            }
+        }
+        persons.trimToSize();
+        footprint.retainedBytesPerLine = (usedHeap() - baseline) / LINE_COUNT;
+        return persons;
+    }
+
+    // After a full collection, so only what is still reachable counts
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static String letters(int number) {
+        var letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return letters.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.diveshjina.giftandgo.test.fileprocessor.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonLineParser;
+
+/**
+ * Cost of parsing a single line, of turning an accepted line into a person, and of reading its
+ * speeds as fixed-point tenths compared with decoding them and handing them to {@code Double.parseDouble}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonLineParserBenchmark {
+    private static final int LINE_COUNT = 1024;
+
+    @Param({"0", "10"})
+    int invalidPercent;
+
+    private final PersonLineParser lineParser = new PersonLineParser();
+    // One buffer holding every line, as LineReader hands lines to the parser
+    private byte[] buffer;
+    private int[] lineStarts;
+    private int[] lineEnds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(invalidPercent);
+        var text = new StringBuilder();
+        lineStarts = new int[LINE_COUNT];
+        lineEnds = new int[LINE_COUNT];
+        for (var i = 0; i < LINE_COUNT; i++) {
+            lineStarts[i] = text.length();
+            text.append(EntryFiles.line(random, random.nextInt(100) >= invalidPercent));
+            lineEnds[i] = text.length();
+            text.append('\n');
+        }
+        buffer = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public boolean parse() {
+        next = (next + 1) & (LINE_COUNT - 1);
+        return lineParser.parse(buffer, lineStarts[next], lineEnds[next]);
+    }
+
+    @Benchmark
+    public void parseToPerson(Blackhole blackhole) {
+        next = (next + 1) & (LINE_COUNT - 1);
+        if (lineParser.parse(buffer, lineStarts[next], lineEnds[next])) {
+            blackhole.consume(lineParser.toPerson());
+        }
+    }
+
+    @Benchmark
+    public long parseSpeedTenths() {
+        next = (next + 1) & (LINE_COUNT - 1);
+        if (lineParser.parse(buffer, lineStarts[next], lineEnds[next])) {
+            return lineParser.topSpeedTenths();
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public double parseSpeedDouble() {
+        next = (next + 1) & (LINE_COUNT - 1);
+        if (lineParser.parse(buffer, lineStarts[next], lineEnds[next])) {
+            var line = new String(buffer, lineStarts[next], lineEnds[next] - lineStarts[next], StandardCharsets.US_ASCII);
+            var topSpeedStart = line.lastIndexOf('|');
+            var avgSpeedStart = line.lastIndexOf('|', topSpeedStart - 1);
+            return Double.parseDouble(line.substring(avgSpeedStart + 1, topSpeedStart)) + Double.parseDouble(line.substring(topSpeedStart + 1));
+        }
+        return 0;
+    }
+}
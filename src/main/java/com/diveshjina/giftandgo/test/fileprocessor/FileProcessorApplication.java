@@ -4,12 +4,25 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.AuditPartitionProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.AuditProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.BatchProperties;
 import com.diveshjina.giftandgo.test.fileprocessor.configuration.BlockedProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.IpDatabaseProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.IpDetailsCacheProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.JobProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ProcessingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.RejectReportProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ResultCacheProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.UploadProperties;
 
 @SpringBootApplication
 @EnableFeignClients
-@EnableConfigurationProperties(BlockedProperties.class)
+@EnableScheduling
+@EnableConfigurationProperties({BlockedProperties.class, ParsingProperties.class, ProcessingProperties.class, IpDetailsCacheProperties.class, IpDatabaseProperties.class, AuditProperties.class, AuditPartitionProperties.class, JobProperties.class, RejectReportProperties.class, UploadProperties.class, BatchProperties.class, ResultCacheProperties.class})
 public class FileProcessorApplication {
 
 	public static void main(String[] args) {
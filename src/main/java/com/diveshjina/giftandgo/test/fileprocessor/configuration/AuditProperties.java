@@ -0,0 +1,9 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "audit")
+public record AuditProperties(int queueCapacity, int batchSize, Duration maxLinger, Duration enqueueTimeout) {
+}
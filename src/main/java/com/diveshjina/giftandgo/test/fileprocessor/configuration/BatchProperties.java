@@ -0,0 +1,8 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "batch")
+public record BatchProperties(int maxFiles, DataSize maxEntrySize) {
+}
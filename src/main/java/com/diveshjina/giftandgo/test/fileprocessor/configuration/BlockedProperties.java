@@ -1,9 +1,11 @@
 package com.diveshjina.giftandgo.test.fileprocessor.configuration;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Set;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "blocked")
-public record BlockedProperties(Set<String> countries, Set<String> isps) {
+public record BlockedProperties(Set<String> countries, Set<String> isps, Set<String> asns, Set<String> cidrs, Path file, Duration reloadInterval) {
 }
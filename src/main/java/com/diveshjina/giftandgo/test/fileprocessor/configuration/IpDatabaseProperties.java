@@ -0,0 +1,8 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+@ConfigurationProperties(prefix = "ip-database")
+public record IpDatabaseProperties(Resource file) {
+}
@@ -0,0 +1,9 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ip-details-cache")
+public record IpDetailsCacheProperties(Duration ttl, Duration negativeTtl, long maxSize) {
+}
@@ -0,0 +1,10 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "jobs")
+public record JobProperties(Path directory, int workers, int queueCapacity, Duration progressInterval, Duration retention) {
+}
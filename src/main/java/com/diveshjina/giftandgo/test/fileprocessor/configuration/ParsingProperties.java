@@ -0,0 +1,10 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "parsing")
+public record ParsingProperties(DataSize parallelThreshold, DataSize chunkSize, int parallelism, Duration streamFlushInterval) {
+}
@@ -0,0 +1,7 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "processing")
+public record ProcessingProperties(int workers, int queueCapacity) {
+}
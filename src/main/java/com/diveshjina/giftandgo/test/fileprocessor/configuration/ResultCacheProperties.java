@@ -0,0 +1,10 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "result-cache")
+public record ResultCacheProperties(boolean enabled, DataSize maxFileSize, DataSize memorySize, Path directory, DataSize diskSize) {
+}
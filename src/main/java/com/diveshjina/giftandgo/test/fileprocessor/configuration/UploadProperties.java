@@ -0,0 +1,10 @@
+package com.diveshjina.giftandgo.test.fileprocessor.configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "uploads")
+public record UploadProperties(Path directory, Duration retention) {
+}
@@ -0,0 +1,105 @@
+package com.diveshjina.giftandgo.test.fileprocessor.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.service.BatchService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutcomeFile;
+
+/**
+ * Processes many entry files in one request, sent as repeated {@code files} parts or as a zip
+ * {@code archive}. The IP is looked up and checked once and one request is recorded for the whole
+ * batch, and the outcomes come back as one JSON object keyed by file name.
+ */
+@Controller
+public class BatchController {
+    private static final Logger logger = LoggerFactory.getLogger(BatchController.class);
+
+    private final FileProcessorService fileProcessorService;
+    private final BatchService batchService;
+
+    public BatchController(FileProcessorService fileProcessorService, BatchService batchService) {
+        this.fileProcessorService = fileProcessorService;
+        this.batchService = batchService;
+    }
+
+    @PostMapping("/v1/batch")
+    public ResponseEntity<StreamingResponseBody> process(@RequestParam(required = false) List<MultipartFile> files,
+                                                         @RequestParam(required = false) MultipartFile archive, @RequestParam boolean validate,
+                                                         @RequestParam(defaultValue = "false") boolean report, HttpServletRequest request) {
+        var startTime = LocalDateTime.now();
+        var ipDetails = IpDetailsDto.NOT_LOOKED_UP;
+        ResponseEntity<StreamingResponseBody> responseEntity;
+        try {
+            fileProcessorService.validateAddress(request.getRemoteAddr(), validate);
+            ipDetails = fileProcessorService.getIpDetails(request.getRemoteAddr());
+            fileProcessorService.validateIp(ipDetails, validate);
+            if ((files == null || files.isEmpty()) == (archive == null)) {
+                throw new InvalidFileException("Send either files or an archive");
+            }
+            OutcomeFile batch;
+            if (archive != null) {
+                logger.info("Received batch archive {}", archive.getOriginalFilename());
+                batch = batchService.processArchive(archive, validate, report);
+            } else {
+                logger.info("Received batch of {} files", files.size());
+                batch = batchService.processFiles(files, validate, report);
+            }
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(streamed(batch, request, startTime, ipDetails));
+        } catch (IpBlockedException ex) {
+            logger.error("Ip {} blocked", request.getRemoteAddr(), ex);
+            responseEntity = error(HttpStatus.FORBIDDEN, ex.getMessage());
+        } catch (InvalidFileException ex) {
+            logger.error("Batch invalid", ex);
+            responseEntity = error(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (IOException ex) {
+            logger.error("Failed to read batch", ex);
+            responseEntity = ResponseEntity.internalServerError().build();
+        }
+        fileProcessorService.saveRequestDetails(request, startTime, ipDetails, LocalDateTime.now(), responseEntity.getStatusCode());
+        return responseEntity;
+    }
+
+    // The batch is only recorded once its outcome has been streamed to the client
+    private StreamingResponseBody streamed(OutcomeFile batch, HttpServletRequest request, LocalDateTime startTime, IpDetailsDto ipDetails) {
+        return outputStream -> {
+            var httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+            try {
+                batch.writeTo(outputStream);
+                httpStatus = HttpStatus.OK;
+            } catch (IOException ex) {
+                logger.error("Failed to process batch", ex);
+                throw ex;
+            } finally {
+                fileProcessorService.saveRequestDetails(request, startTime, ipDetails, LocalDateTime.now(), httpStatus);
+            }
+        };
+    }
+
+    private static ResponseEntity<StreamingResponseBody> error(HttpStatus httpStatus, String message) {
+        var body = ("Error: " + message).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(httpStatus)
+            .body(outputStream -> outputStream.write(body));
+    }
+}
@@ -1,45 +1,124 @@
 package com.diveshjina.giftandgo.test.fileprocessor.controller;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
 
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ProcessingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
 import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutcomeFile;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutcomeFiles;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+import com.diveshjina.giftandgo.test.fileprocessor.service.WorkerThreads;
 
 @Controller
 public class FileProcessorController {
     private static final Logger logger = LoggerFactory.getLogger(FileProcessorController.class);
+    private static final String WORKER_THREAD_PREFIX = "process-worker-";
+    private static final byte[] TOO_MANY_FILES = "Error: Too many files being processed, try again later".getBytes(StandardCharsets.UTF_8);
 
     private final FileProcessorService fileProcessorService;
+    // Files are parsed on a pool of their own, as the shared task executor also streams every response
+    private final ThreadPoolExecutor workers;
 
-    public FileProcessorController(FileProcessorService fileProcessorService) {
+    public FileProcessorController(FileProcessorService fileProcessorService, ProcessingProperties processingProperties, Environment environment) {
         this.fileProcessorService = fileProcessorService;
+        this.workers = new ThreadPoolExecutor(processingProperties.workers(), processingProperties.workers(), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(processingProperties.queueCapacity()), WorkerThreads.factory(environment, WORKER_THREAD_PREFIX));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
     }
 
     @PostMapping("/v0/process")
-    public ResponseEntity<byte[]> process(@RequestParam MultipartFile file, @RequestParam boolean validate, HttpServletRequest request) {
+    public ResponseEntity<StreamingResponseBody> process(@RequestParam MultipartFile file, @RequestParam boolean validate,
+                                                         @RequestParam(defaultValue = "false") boolean report,
+                                                         @RequestParam(defaultValue = "false") boolean stats,
+                                                         @RequestParam(required = false) String format, HttpServletRequest request)
+        throws HttpMediaTypeNotAcceptableException {
         var startTime = LocalDateTime.now();
-        var ipDetails = fileProcessorService.getIpDetails(request.getRemoteAddr());
         logger.info("Received file {}", file.getOriginalFilename());
-        ResponseEntity<byte[]> responseEntity;
+        var outputFormat = negotiateFormat(format, request.getHeader(HttpHeaders.ACCEPT));
+        try {
+            fileProcessorService.validateAddress(request.getRemoteAddr(), validate);
+        } catch (IpBlockedException ex) {
+            logger.error("Ip {} blocked", request.getRemoteAddr(), ex);
+            var responseEntity = forbidden(ex);
+            fileProcessorService.saveRequestDetails(request, startTime, IpDetailsDto.NOT_LOOKED_UP, LocalDateTime.now(), responseEntity.getStatusCode());
+            return responseEntity;
+        }
+        // The file is processed while the IP is looked up, but nothing is released until the IP has been checked
+        var outcomeFile = new CompletableFuture<OutcomeFile>();
+        Future<?> processing;
+        try {
+            processing = workers.submit(() -> processFile(file, validate, report, stats, outputFormat, outcomeFile));
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Rejected file {}", file.getOriginalFilename(), ex);
+            var responseEntity = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .<StreamingResponseBody>body(outputStream -> outputStream.write(TOO_MANY_FILES));
+            fileProcessorService.saveRequestDetails(request, startTime, IpDetailsDto.NOT_LOOKED_UP, LocalDateTime.now(), responseEntity.getStatusCode());
+            return responseEntity;
+        }
+        IpDetailsDto ipDetails;
+        try {
+            ipDetails = fileProcessorService.getIpDetails(request.getRemoteAddr());
+        } catch (RuntimeException ex) {
+            OutcomeFiles.discard(outcomeFile, processing);
+            throw ex;
+        }
+        ResponseEntity<StreamingResponseBody> responseEntity;
         try {
             fileProcessorService.validateIp(ipDetails, validate);
-            var outcomeFile = fileProcessorService.processFile(file, validate);
-            logger.info("Processed file {}", file.getOriginalFilename());
-            responseEntity = ResponseEntity.ok(outcomeFile);
+            var processedFile = await(outcomeFile);
+            // The request is only recorded once the outcome file has been streamed to the client
+            return ResponseEntity.ok()
+                .contentType(outputFormat.mediaType())
+                .body(outputStream -> {
+                    var httpStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+                    try {
+                        processedFile.writeTo(outputStream);
+                        logger.info("Processed file {}", file.getOriginalFilename());
+                        httpStatus = HttpStatus.OK;
+                    } catch (IOException ex) {
+                        logger.error("Failed to process file {}", file.getOriginalFilename(), ex);
+                        throw ex;
+                    } finally {
+                        fileProcessorService.saveRequestDetails(request, startTime, ipDetails, LocalDateTime.now(), httpStatus);
+                    }
+                });
         } catch (IOException ex) {
             logger.error("Failed to process file {}", file.getOriginalFilename(), ex);
             responseEntity = ResponseEntity.internalServerError().build();
@@ -48,11 +127,72 @@ public class FileProcessorController {
             responseEntity = ResponseEntity.badRequest().build();
         } catch (IpBlockedException ex) {
             logger.error("Ip {} blocked", request.getRemoteAddr(), ex);
-            responseEntity = ResponseEntity.status(HttpStatus.FORBIDDEN)
-                .body(("Error: " + ex.getMessage()).getBytes(StandardCharsets.UTF_8));
+            OutcomeFiles.discard(outcomeFile, processing);
+            responseEntity = forbidden(ex);
         }
         var endTime = LocalDateTime.now();
-        fileProcessorService.saveRequestDetails(request, startTime, ipDetails, endTime, responseEntity);
+        fileProcessorService.saveRequestDetails(request, startTime, ipDetails, endTime, responseEntity.getStatusCode());
         return responseEntity;
     }
+
+    private static ResponseEntity<StreamingResponseBody> forbidden(IpBlockedException ex) {
+        var message = ("Error: " + ex.getMessage()).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+            .body(outputStream -> outputStream.write(message));
+    }
+
+    // An explicit format parameter wins over the Accept header, and JSON is the default
+    private static OutputFormat negotiateFormat(String format, String accept) throws HttpMediaTypeNotAcceptableException {
+        var supportedMediaTypes = OutputFormat.mediaTypes();
+        if (format != null) {
+            return OutputFormat.named(format).orElseThrow(() -> new HttpMediaTypeNotAcceptableException(supportedMediaTypes));
+        }
+        if (accept == null || accept.isBlank()) {
+            return OutputFormat.JSON;
+        }
+        List<MediaType> acceptedMediaTypes;
+        try {
+            acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            throw new HttpMediaTypeNotAcceptableException(ex.getMessage());
+        }
+        MimeTypeUtils.sortBySpecificity(acceptedMediaTypes);
+        for (var acceptedMediaType : acceptedMediaTypes) {
+            for (var outputFormat : OutputFormat.values()) {
+                if (acceptedMediaType.isCompatibleWith(outputFormat.mediaType())) {
+                    return outputFormat;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(supportedMediaTypes);
+    }
+
+    private void processFile(MultipartFile file, boolean validate, boolean report, boolean stats, OutputFormat format,
+                             CompletableFuture<OutcomeFile> outcomeFile) {
+        try {
+            OutcomeFiles.complete(outcomeFile, fileProcessorService.processFile(file, validate, report, stats, format));
+        } catch (Exception ex) {
+            outcomeFile.completeExceptionally(ex);
+        }
+    }
+
+    private static OutcomeFile await(CompletableFuture<OutcomeFile> outcomeFile) throws IOException, InvalidFileException {
+        try {
+            return outcomeFile.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while processing file");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (ex.getCause() instanceof InvalidFileException invalidFileException) {
+                throw invalidFileException;
+            }
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
 }
@@ -0,0 +1,106 @@
+package com.diveshjina.giftandgo.test.fileprocessor.controller;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.JobDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.TooManyJobsException;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.JobStatus;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.JobService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+
+/**
+ * Processes files as background jobs. A job is submitted with the same parameters as
+ * {@code /v0/process}, its progress is polled, and its result is fetched once it has succeeded.
+ */
+@Controller
+@RequestMapping("/v1/jobs")
+public class JobController {
+    private static final Logger logger = LoggerFactory.getLogger(JobController.class);
+
+    private final FileProcessorService fileProcessorService;
+    private final JobService jobService;
+
+    public JobController(FileProcessorService fileProcessorService, JobService jobService) {
+        this.fileProcessorService = fileProcessorService;
+        this.jobService = jobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestParam MultipartFile file, @RequestParam boolean validate,
+                                    @RequestParam(defaultValue = "false") boolean report,
+                                    @RequestParam(defaultValue = "false") boolean stats,
+                                    @RequestParam(required = false) String format, HttpServletRequest request)
+        throws HttpMediaTypeNotAcceptableException {
+        var startTime = LocalDateTime.now();
+        logger.info("Received job file {}", file.getOriginalFilename());
+        var outputFormat = format == null
+            ? OutputFormat.JSON
+            : OutputFormat.named(format).orElseThrow(() -> new HttpMediaTypeNotAcceptableException(OutputFormat.mediaTypes()));
+        var ipDetails = IpDetailsDto.NOT_LOOKED_UP;
+        ResponseEntity<?> responseEntity;
+        try {
+            fileProcessorService.validateAddress(request.getRemoteAddr(), validate);
+            ipDetails = fileProcessorService.getIpDetails(request.getRemoteAddr());
+            fileProcessorService.validateIp(ipDetails, validate);
+            var job = jobService.submit(file, validate, report, stats, outputFormat);
+            var location = UriComponentsBuilder.fromPath("/v1/jobs/{id}").buildAndExpand(job.id()).toUri();
+            responseEntity = ResponseEntity.accepted().location(location).body(job);
+        } catch (IOException ex) {
+            logger.error("Failed to queue job for file {}", file.getOriginalFilename(), ex);
+            responseEntity = ResponseEntity.internalServerError().build();
+        } catch (IpBlockedException ex) {
+            logger.error("Ip {} blocked", request.getRemoteAddr(), ex);
+            responseEntity = ResponseEntity.status(HttpStatus.FORBIDDEN).body("Error: " + ex.getMessage());
+        } catch (TooManyJobsException ex) {
+            logger.warn("Rejected job for file {}", file.getOriginalFilename(), ex);
+            responseEntity = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Error: " + ex.getMessage());
+        }
+        fileProcessorService.saveRequestDetails(request, startTime, ipDetails, LocalDateTime.now(), responseEntity.getStatusCode());
+        return responseEntity;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobDto> get(@PathVariable UUID id) {
+        return ResponseEntity.of(jobService.findJob(id));
+    }
+
+    // Served as a resource, so an interrupted download can be resumed with a Range request
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> getResult(@PathVariable UUID id) {
+        var job = jobService.findJob(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!JobStatus.SUCCEEDED.name().equals(job.get().status())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return jobService.findResult(id)
+            .map(result -> ResponseEntity.ok()
+                .contentType(OutputFormat.valueOf(job.get().format()).mediaType())
+                .body((Resource) new FileSystemResource(result)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,130 @@
+package com.diveshjina.giftandgo.test.fileprocessor.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.UploadDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.UploadConflictException;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.UploadStatus;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+import com.diveshjina.giftandgo.test.fileprocessor.service.UploadService;
+
+/**
+ * Takes files as resumable uploads. An upload is started with the same parameters as
+ * {@code /v0/process}, the file is sent as the bodies of any number of PUTs at increasing offsets,
+ * and the result is fetched once the last chunk has been sent.
+ */
+@Controller
+@RequestMapping("/v1/uploads")
+public class UploadController {
+    private static final Logger logger = LoggerFactory.getLogger(UploadController.class);
+
+    private final FileProcessorService fileProcessorService;
+    private final UploadService uploadService;
+
+    public UploadController(FileProcessorService fileProcessorService, UploadService uploadService) {
+        this.fileProcessorService = fileProcessorService;
+        this.uploadService = uploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> create(@RequestParam boolean validate, @RequestParam(required = false) String fileName,
+                                    @RequestParam(required = false) String format, HttpServletRequest request)
+        throws HttpMediaTypeNotAcceptableException {
+        var startTime = LocalDateTime.now();
+        var outputFormat = format == null
+            ? OutputFormat.JSON
+            : OutputFormat.named(format).orElseThrow(() -> new HttpMediaTypeNotAcceptableException(OutputFormat.mediaTypes()));
+        var ipDetails = IpDetailsDto.NOT_LOOKED_UP;
+        ResponseEntity<?> responseEntity;
+        try {
+            fileProcessorService.validateAddress(request.getRemoteAddr(), validate);
+            ipDetails = fileProcessorService.getIpDetails(request.getRemoteAddr());
+            fileProcessorService.validateIp(ipDetails, validate);
+            var upload = uploadService.create(fileName, validate, outputFormat);
+            var location = UriComponentsBuilder.fromPath("/v1/uploads/{id}").buildAndExpand(upload.id()).toUri();
+            responseEntity = ResponseEntity.created(location).body(upload);
+        } catch (IpBlockedException ex) {
+            logger.error("Ip {} blocked", request.getRemoteAddr(), ex);
+            responseEntity = ResponseEntity.status(HttpStatus.FORBIDDEN).body("Error: " + ex.getMessage());
+        }
+        fileProcessorService.saveRequestDetails(request, startTime, ipDetails, LocalDateTime.now(), responseEntity.getStatusCode());
+        return responseEntity;
+    }
+
+    // A chunk sent at the wrong offset is turned away with a 409, and GET on the upload tells where to carry on from.
+    // Every chunk is checked against the blocked IPs as the upload was, so a blocked client cannot add to it.
+    @PutMapping("/{id}")
+    public ResponseEntity<?> append(@PathVariable UUID id, @RequestParam long offset, @RequestParam(defaultValue = "false") boolean last,
+                                    InputStream chunk, HttpServletRequest request) {
+        var startTime = LocalDateTime.now();
+        var validate = uploadService.findUpload(id).map(UploadDto::validate).orElse(false);
+        var ipDetails = IpDetailsDto.NOT_LOOKED_UP;
+        ResponseEntity<?> responseEntity;
+        try {
+            fileProcessorService.validateAddress(request.getRemoteAddr(), validate);
+            ipDetails = fileProcessorService.getIpDetails(request.getRemoteAddr());
+            fileProcessorService.validateIp(ipDetails, validate);
+            responseEntity = ResponseEntity.of(uploadService.append(id, offset, chunk, last));
+        } catch (IpBlockedException ex) {
+            logger.error("Ip {} blocked", request.getRemoteAddr(), ex);
+            responseEntity = ResponseEntity.status(HttpStatus.FORBIDDEN).body("Error: " + ex.getMessage());
+        } catch (IOException ex) {
+            logger.error("Failed to append to upload {}", id, ex);
+            responseEntity = ResponseEntity.internalServerError().build();
+        } catch (InvalidFileException ex) {
+            logger.error("Upload {} invalid", id, ex);
+            responseEntity = ResponseEntity.badRequest().body("Error: " + ex.getMessage());
+        } catch (UploadConflictException ex) {
+            logger.warn("Rejected chunk at offset {} of upload {}", offset, id, ex);
+            responseEntity = ResponseEntity.status(HttpStatus.CONFLICT).body("Error: " + ex.getMessage());
+        }
+        fileProcessorService.saveRequestDetails(request, startTime, ipDetails, LocalDateTime.now(), responseEntity.getStatusCode());
+        return responseEntity;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadDto> get(@PathVariable UUID id) {
+        return ResponseEntity.of(uploadService.findUpload(id));
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> getResult(@PathVariable UUID id) {
+        var upload = uploadService.findUpload(id);
+        if (upload.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!UploadStatus.SUCCEEDED.name().equals(upload.get().status())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return uploadService.findResult(id)
+            .map(result -> ResponseEntity.ok()
+                .contentType(OutputFormat.valueOf(upload.get().format()).mediaType())
+                .body((Resource) new FileSystemResource(result)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
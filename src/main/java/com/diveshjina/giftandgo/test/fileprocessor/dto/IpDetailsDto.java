@@ -1,4 +1,7 @@
 package com.diveshjina.giftandgo.test.fileprocessor.dto;
 
-public record IpDetailsDto(String country, String isp, String countryCode) {
+// as is ip-api's autonomous system, e.g. "AS16509 Amazon.com, Inc."
+public record IpDetailsDto(String country, String isp, String countryCode, String as) {
+    // Recorded for requests turned away before their IP is looked up
+    public static final IpDetailsDto NOT_LOOKED_UP = new IpDetailsDto("", "", "", "");
 }
@@ -0,0 +1,6 @@
+package com.diveshjina.giftandgo.test.fileprocessor.dto;
+
+import java.util.UUID;
+
+public record JobDto(UUID id, String status, String format, long linesProcessed, long invalidLines, String error) {
+}
@@ -0,0 +1,6 @@
+package com.diveshjina.giftandgo.test.fileprocessor.dto;
+
+import java.util.List;
+
+public record RejectReportDto(long rejectedLineCount, List<RejectedLineDto> rejectedLines) {
+}
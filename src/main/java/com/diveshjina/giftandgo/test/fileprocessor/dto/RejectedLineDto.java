@@ -0,0 +1,4 @@
+package com.diveshjina.giftandgo.test.fileprocessor.dto;
+
+public record RejectedLineDto(long line, String reason, String content) {
+}
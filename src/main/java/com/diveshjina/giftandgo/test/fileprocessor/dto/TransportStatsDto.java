@@ -0,0 +1,6 @@
+package com.diveshjina.giftandgo.test.fileprocessor.dto;
+
+import java.math.BigDecimal;
+
+public record TransportStatsDto(long count, BigDecimal minTopSpeed, BigDecimal maxTopSpeed, BigDecimal meanTopSpeed) {
+}
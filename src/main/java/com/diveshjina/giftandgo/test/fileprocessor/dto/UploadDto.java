@@ -0,0 +1,6 @@
+package com.diveshjina.giftandgo.test.fileprocessor.dto;
+
+import java.util.UUID;
+
+public record UploadDto(UUID id, String status, String format, boolean validate, long bytesReceived, long linesProcessed, long invalidLines, String error) {
+}
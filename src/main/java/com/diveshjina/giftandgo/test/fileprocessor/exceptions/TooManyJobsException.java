@@ -0,0 +1,8 @@
+package com.diveshjina.giftandgo.test.fileprocessor.exceptions;
+
+public class TooManyJobsException extends Exception {
+
+    public TooManyJobsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.diveshjina.giftandgo.test.fileprocessor.exceptions;
+
+public class UploadConflictException extends Exception {
+
+    public UploadConflictException(String message) {
+        super(message);
+    }
+}
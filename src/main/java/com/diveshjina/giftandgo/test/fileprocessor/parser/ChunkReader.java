@@ -0,0 +1,96 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+
+/**
+ * Cuts a file into chunks of whole lines that can be parsed independently. Chunks are slices of a
+ * read-only mapping of the file, so no bytes are copied onto the heap. Every empty line inside a
+ * chunk is followed by a non-empty line somewhere in the file, and the empty lines at the very end
+ * of the file are dropped, so splitting each chunk on {@code '\n'} gives the same lines as
+ * {@link LineReader}. A file with no bytes at all yields no chunks. A chunk grows to take in a line
+ * longer than the chunk size, but no further than {@code maxChunkSize}, and a file with a line, or a
+ * run of empty lines, longer than that is invalid.
+ */
+public class ChunkReader {
+    private static final long MAPPING_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkSize;
+    private final int maxChunkSize;
+    private long position;
+    private MappedByteBuffer mapping;
+    private long mappingStart;
+
+    public ChunkReader(FileChannel channel, int chunkSize) throws IOException {
+        this(channel, chunkSize, Integer.MAX_VALUE);
+    }
+
+    ChunkReader(FileChannel channel, int chunkSize, int maxChunkSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public ByteBuffer nextChunk() throws IOException, InvalidFileException {
+        var length = (long) chunkSize;
+        while (position < size) {
+            var end = Math.min(position + length, size);
+            var window = window(position, end);
+            var windowLength = (int) (end - position);
+            if (end == size) {
+                while (windowLength > 0 && window.get(windowLength - 1) == '\n') {
+                    windowLength--;
+                }
+                position = size;
+                return windowLength > 0 ? window.slice(0, windowLength) : null;
+            }
+            var cut = findCut(window, windowLength);
+            if (cut > 0) {
+                position += cut;
+                return window.slice(0, cut);
+            }
+            // A single line, or a run of empty lines, longer than the chunk
+            if (length >= maxChunkSize) {
+                throw new InvalidFileException(String.format("Line at byte %d longer than %d bytes", position, maxChunkSize));
+            }
+            length = Math.min(length * 2, maxChunkSize);
+        }
+        return null;
+    }
+
+    private ByteBuffer window(long start, long end) throws IOException {
+        if (mapping == null || start < mappingStart || end > mappingStart + mapping.capacity()) {
+            var mappedLength = Math.min(Math.max(MAPPING_SIZE, end - start), Math.min(size - start, Integer.MAX_VALUE));
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, start, mappedLength);
+            mappingStart = start;
+        }
+        return mapping.slice((int) (start - mappingStart), (int) (end - start));
+    }
+
+    private static int findCut(ByteBuffer window, int length) {
+        var lastNewLine = length - 1;
+        while (lastNewLine >= 0 && window.get(lastNewLine) != '\n') {
+            lastNewLine--;
+        }
+        if (lastNewLine < 0) {
+            return 0;
+        }
+        if (lastNewLine < length - 1) {
+            // A partial non-empty line follows, so every empty line before it counts
+            return lastNewLine + 1;
+        }
+        // The window ends in a run of new lines which may turn out to be the end of the file
+        var runStart = lastNewLine;
+        while (runStart > 0 && window.get(runStart - 1) == '\n') {
+            runStart--;
+        }
+        return runStart > 0 ? runStart + 1 : 0;
+    }
+}
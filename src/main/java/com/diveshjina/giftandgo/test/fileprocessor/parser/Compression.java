@@ -0,0 +1,101 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+
+/**
+ * The compressions an entry file can be uploaded in. The compression is recognised from the first
+ * bytes of the file, or taken from the declared content type when there is one, and the file is
+ * decompressed as it is read so it is never held in memory whole.
+ */
+public enum Compression {
+    NONE(new byte[0]),
+    GZIP(new byte[] {0x1F, (byte) 0x8B}, "application/gzip", "application/x-gzip"),
+    ZSTD(new byte[] {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD}, "application/zstd");
+
+    /**
+     * Enough of the head of a file to tell every compression apart.
+     */
+    public static final int MAGIC_LENGTH = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] magic;
+    private final String[] contentTypes;
+
+    Compression(byte[] magic, String... contentTypes) {
+        this.magic = magic;
+        this.contentTypes = contentTypes;
+    }
+
+    /**
+     * Wraps the stream of an uploaded file in the decoder for its compression. The returned stream
+     * owns the given one, so closing it closes both.
+     */
+    public static InputStream open(InputStream inputStream, String contentType) throws IOException {
+        var bufferedStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        var compression = of(contentType);
+        if (compression == NONE) {
+            bufferedStream.mark(MAGIC_LENGTH);
+            var head = bufferedStream.readNBytes(MAGIC_LENGTH);
+            bufferedStream.reset();
+            compression = detect(head);
+        }
+        return compression.decode(bufferedStream);
+    }
+
+    /**
+     * The compression a content type declares, with {@link #NONE} for anything else.
+     */
+    public static Compression of(String contentType) {
+        if (contentType != null) {
+            for (var compression : values()) {
+                for (var declared : compression.contentTypes) {
+                    // Ignores any parameters after the type
+                    if (contentType.regionMatches(true, 0, declared, 0, declared.length())) {
+                        return compression;
+                    }
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * The compression whose magic bytes start the given head of a file.
+     */
+    public static Compression detect(byte[] head) {
+        for (var compression : values()) {
+            if (compression != NONE && startsWith(head, compression.magic)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Wraps a stream in this compression's decoder.
+     */
+    public InputStream decode(InputStream inputStream) throws IOException {
+        return switch (this) {
+            case NONE -> inputStream;
+            case GZIP -> new GZIPInputStream(inputStream, BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStreamNoFinalizer(inputStream);
+        };
+    }
+
+    private static boolean startsWith(byte[] head, byte[] magic) {
+        if (head.length < magic.length) {
+            return false;
+        }
+        for (var i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
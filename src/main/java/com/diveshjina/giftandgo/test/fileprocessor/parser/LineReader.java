@@ -0,0 +1,203 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads an entry file one line at a time without holding more than the current line in memory.
+ * Lines are split on {@code '\n'} only and trailing empty lines are dropped, matching the
+ * {@code String.split("\n")} semantics the service has always applied to whole files. A line longer
+ * than {@code maxLineLength} is cut to that length and flagged {@link #lineTooLong()}, and the rest
+ * of it is skipped, so the buffer never grows past the longest line allowed.
+ */
+public class LineReader implements Closeable {
+    public static final int DEFAULT_MAX_LINE_LENGTH = 1024 * 1024;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final int maxLineLength;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private int scanFrom;
+    private boolean endOfStream;
+    private boolean finalSegmentRead;
+    private int segmentStart;
+    private int segmentEnd;
+    private int segmentCount;
+    private int pendingEmptyLines;
+    private boolean segmentHeld;
+    private boolean segmentTooLong;
+    private boolean skippingLine;
+    private int lineStart;
+    private int lineEnd;
+    private boolean lineTooLong;
+
+    public LineReader(InputStream inputStream) {
+        this(inputStream, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public LineReader(InputStream inputStream, int bufferSize, int maxLineLength) {
+        this.inputStream = inputStream;
+        this.maxLineLength = maxLineLength;
+        // One byte over the longest line allowed, to tell a line that fits from one that does not
+        this.buffer = new byte[(int) Math.min(bufferSize, maxLineLength + 1L)];
+    }
+
+    public boolean nextLine() throws IOException {
+        if (segmentHeld) {
+            if (pendingEmptyLines > 0) {
+                pendingEmptyLines--;
+                setEmptyLine();
+                return true;
+            }
+            segmentHeld = false;
+            setLine(segmentStart, segmentEnd);
+            return true;
+        }
+        while (readSegment()) {
+            segmentCount++;
+            if (segmentEnd > segmentStart) {
+                if (pendingEmptyLines > 0) {
+                    // Empty lines only count when a non-empty line follows them
+                    segmentHeld = true;
+                    pendingEmptyLines--;
+                    setEmptyLine();
+                    return true;
+                }
+                setLine(segmentStart, segmentEnd);
+                return true;
+            }
+            pendingEmptyLines++;
+        }
+        if (segmentCount == 1 && pendingEmptyLines == 1) {
+            // An empty input is a single empty line, just like "".split("\n")
+            pendingEmptyLines = 0;
+            setEmptyLine();
+            return true;
+        }
+        return false;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int lineStart() {
+        return lineStart;
+    }
+
+    public int lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * Whether the current line was longer than {@code maxLineLength}, in which case only its start is
+     * in the buffer and it should be treated as invalid.
+     */
+    public boolean lineTooLong() {
+        return lineTooLong;
+    }
+
+    public String line() {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private boolean readSegment() throws IOException {
+        if (skippingLine && !skipRestOfLine()) {
+            return false;
+        }
+        segmentTooLong = false;
+        while (true) {
+            for (var i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    segmentStart = position;
+                    segmentEnd = i;
+                    position = i + 1;
+                    scanFrom = position;
+                    return true;
+                }
+            }
+            scanFrom = limit;
+            if (endOfStream) {
+                if (finalSegmentRead) {
+                    return false;
+                }
+                finalSegmentRead = true;
+                segmentStart = position;
+                segmentEnd = limit;
+                position = limit;
+                return true;
+            }
+            if (limit - position > maxLineLength) {
+                segmentStart = position;
+                segmentEnd = position + maxLineLength;
+                segmentTooLong = true;
+                skippingLine = true;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    // Drops what is left of a line that was too long, up to its newline; false if the stream ends first
+    private boolean skipRestOfLine() throws IOException {
+        while (true) {
+            for (var i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    position = i + 1;
+                    scanFrom = position;
+                    skippingLine = false;
+                    return true;
+                }
+            }
+            position = limit;
+            scanFrom = limit;
+            if (endOfStream) {
+                finalSegmentRead = true;
+                return false;
+            }
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            scanFrom -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            // Only reached while the buffered line is no longer than maxLineLength
+            var grown = new byte[(int) Math.min(buffer.length * 2L, maxLineLength + 1L)];
+            System.arraycopy(buffer, 0, grown, 0, limit);
+            buffer = grown;
+        }
+        var read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void setLine(int start, int end) {
+        lineStart = start;
+        lineEnd = end;
+        lineTooLong = segmentTooLong;
+    }
+
+    private void setEmptyLine() {
+        lineStart = position;
+        lineEnd = position;
+        lineTooLong = false;
+    }
+}
@@ -0,0 +1,113 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * The persons of a run of lines, held as columns rather than as a {@link PersonDto} per line. The
+ * name and top speed of each person are copied one after the other into a single byte array and
+ * found by where they end, and each transport, which comes from a small vocabulary, is kept once in
+ * a dictionary and referred to by its index. A person costs its name and top speed plus 12 bytes,
+ * and is written from the columns without ever becoming a {@code PersonDto} unless one is asked for.
+ * Not thread safe.
+ */
+public final class PersonColumns {
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString TRANSPORT = new SerializedString("transport");
+    private static final SerializedString TOP_SPEED = new SerializedString("topSpeed");
+    private static final int INITIAL_PERSONS = 16;
+
+    private byte[] bytes;
+    private int byteCount;
+    // A person's name runs from where the one before ended to nameEnds, and its top speed on to topSpeedEnds
+    private int[] nameEnds = new int[INITIAL_PERSONS];
+    private int[] topSpeedEnds = new int[INITIAL_PERSONS];
+    private int[] transportCodes = new int[INITIAL_PERSONS];
+    private final List<SerializedString> transports = new ArrayList<>();
+    private final Map<String, Integer> transportCodesByValue = new HashMap<>();
+    private int size;
+
+    /**
+     * @param expectedBytes roughly how many bytes of names and top speeds there will be, to size the
+     *                      byte array up front
+     */
+    public PersonColumns(int expectedBytes) {
+        this.bytes = new byte[Math.max(expectedBytes, 64)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drops the room left for more persons, for columns that are done growing and will be held a while.
+     */
+    public void trimToSize() {
+        bytes = Arrays.copyOf(bytes, byteCount);
+        nameEnds = Arrays.copyOf(nameEnds, size);
+        topSpeedEnds = Arrays.copyOf(topSpeedEnds, size);
+        transportCodes = Arrays.copyOf(transportCodes, size);
+    }
+
+    public PersonDto person(int index) {
+        var nameStart = nameStart(index);
+        return new PersonDto(new String(bytes, nameStart, nameEnds[index] - nameStart, StandardCharsets.ISO_8859_1),
+            transports.get(transportCodes[index]).getValue(),
+            new String(bytes, nameEnds[index], topSpeedEnds[index] - nameEnds[index], StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Writes a person as the object a {@code PersonDto} is serialized to, straight from the columns.
+     */
+    public void writePerson(int index, JsonGenerator generator) throws IOException {
+        var nameStart = nameStart(index);
+        generator.writeStartObject();
+        generator.writeFieldName(NAME);
+        generator.writeUTF8String(bytes, nameStart, nameEnds[index] - nameStart);
+        generator.writeFieldName(TRANSPORT);
+        generator.writeString(transports.get(transportCodes[index]));
+        generator.writeFieldName(TOP_SPEED);
+        generator.writeUTF8String(bytes, nameEnds[index], topSpeedEnds[index] - nameEnds[index]);
+        generator.writeEndObject();
+    }
+
+    // The transport comes canonical from the parser's symbol table, so a repeat hashes a cached hash code
+    void add(ByteBuffer source, int nameStart, int nameEnd, String transport, int topSpeedStart, int topSpeedEnd) {
+        if (size == nameEnds.length) {
+            var capacity = Math.max(size * 2, INITIAL_PERSONS);
+            nameEnds = Arrays.copyOf(nameEnds, capacity);
+            topSpeedEnds = Arrays.copyOf(topSpeedEnds, capacity);
+            transportCodes = Arrays.copyOf(transportCodes, capacity);
+        }
+        var nameLength = nameEnd - nameStart;
+        var topSpeedLength = topSpeedEnd - topSpeedStart;
+        if (byteCount + nameLength + topSpeedLength > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + nameLength + topSpeedLength));
+        }
+        source.get(nameStart, bytes, byteCount, nameLength);
+        byteCount += nameLength;
+        nameEnds[size] = byteCount;
+        source.get(topSpeedStart, bytes, byteCount, topSpeedLength);
+        byteCount += topSpeedLength;
+        topSpeedEnds[size] = byteCount;
+        transportCodes[size] = transportCodesByValue.computeIfAbsent(transport, value -> {
+            transports.add(new SerializedString(value));
+            return transports.size() - 1;
+        });
+        size++;
+    }
+
+    private int nameStart(int index) {
+        return index == 0 ? 0 : topSpeedEnds[index - 1];
+    }
+}
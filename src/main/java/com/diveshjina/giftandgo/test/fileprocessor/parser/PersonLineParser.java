@@ -0,0 +1,260 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
+
+/**
+ * Single-pass scanner for entry file lines of the form
+ * {@code UUID|ID|name|Likes ...|transport|avgSpeed|topSpeed}, accepting exactly the lines the
+ * original {@code LINE_MATCHING_PATTERN} regex accepted. Lines are scanned in place, on the heap or
+ * in a mapped file, and only the emitted fields are ever decoded. Names, transports and top speeds
+ * repeat across a file, so each is looked up in a {@link SymbolTable} of the values this parser has
+ * seen, and a repeated value costs no new string. The offsets of the last parsed line and the tables
+ * are kept on the instance, so a parser must not be shared between threads.
+ */
+public class PersonLineParser {
+    private static final byte[] LIKES = "Likes ".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_NAMES = 4096;
+    private static final int MAX_TRANSPORTS = 256;
+    private static final int MAX_TOP_SPEEDS = 2048;
+
+    private final SymbolTable names = new SymbolTable(MAX_NAMES);
+    private final SymbolTable transports = new SymbolTable(MAX_TRANSPORTS);
+    private final SymbolTable topSpeeds = new SymbolTable(MAX_TOP_SPEEDS);
+
+    private ByteBuffer bytes;
+    private byte[] wrappedArray;
+    private ByteBuffer wrappedBuffer;
+    private int nameStart;
+    private int nameEnd;
+    private int transportStart;
+    private int transportEnd;
+    private int topSpeedStart;
+    private int topSpeedEnd;
+    private RejectReason rejectReason;
+
+    public boolean parse(byte[] bytes, int start, int end) {
+        if (bytes != wrappedArray) {
+            wrappedArray = bytes;
+            wrappedBuffer = ByteBuffer.wrap(bytes);
+        }
+        return parse(wrappedBuffer, start, end);
+    }
+
+    public boolean parse(ByteBuffer bytes, int start, int end) {
+        this.bytes = bytes;
+        end = stripLineTerminator(bytes, start, end);
+        if (start == end) {
+            return reject(RejectReason.EMPTY_LINE);
+        }
+        var i = start;
+        if ((i = uuid(bytes, i, end)) < 0 || (i = literal(bytes, i, end, '|')) < 0) {
+            return reject(RejectReason.UUID);
+        }
+        if ((i = id(bytes, i, end)) < 0 || (i = literal(bytes, i, end, '|')) < 0) {
+            return reject(RejectReason.ID);
+        }
+        nameStart = i;
+        if ((i = letters(bytes, i, end)) < 0) {
+            return reject(RejectReason.NAME);
+        }
+        nameEnd = i;
+        if ((i = literal(bytes, i, end, '|')) < 0) {
+            return reject(RejectReason.NAME);
+        }
+        if ((i = likes(bytes, i, end)) < 0
+            || (i = letters(bytes, i, end)) < 0
+            || (i = literal(bytes, i, end, '|')) < 0) {
+            return reject(RejectReason.LIKES);
+        }
+        transportStart = i;
+        if ((i = letters(bytes, i, end)) < 0) {
+            return reject(RejectReason.TRANSPORT);
+        }
+        transportEnd = i;
+        if ((i = literal(bytes, i, end, '|')) < 0) {
+            return reject(RejectReason.TRANSPORT);
+        }
+        if ((i = speed(bytes, i, end)) < 0) {
+            return reject(RejectReason.AVG_SPEED);
+        }
+        if ((i = literal(bytes, i, end, '|')) < 0) {
+            return reject(RejectReason.AVG_SPEED);
+        }
+        topSpeedStart = i;
+        if ((i = speed(bytes, i, end)) < 0) {
+            return reject(RejectReason.TOP_SPEED);
+        }
+        topSpeedEnd = i;
+        if (i != end) {
+            // A speed stops at its one decimal, so more digits after it are the top speed's fault
+            return reject(isDigit(bytes.get(i)) ? RejectReason.TOP_SPEED : RejectReason.TRAILING_CHARACTERS);
+        }
+        return true;
+    }
+
+    /**
+     * Why the last line parsed was rejected.
+     */
+    public RejectReason rejectReason() {
+        return rejectReason;
+    }
+
+    // Every accepted field is plain ASCII, as the symbol tables need
+    public String name() {
+        return names.intern(bytes, nameStart, nameEnd);
+    }
+
+    public String transport() {
+        return transports.intern(bytes, transportStart, transportEnd);
+    }
+
+    public String topSpeed() {
+        return topSpeeds.intern(bytes, topSpeedStart, topSpeedEnd);
+    }
+
+    /**
+     * The top speed in tenths, read as fixed point without going through a double. Speeds too big for
+     * a {@code long} come back as {@link Long#MAX_VALUE}.
+     */
+    public long topSpeedTenths() {
+        return tenths(bytes, topSpeedStart, topSpeedEnd);
+    }
+
+    public PersonDto toPerson() {
+        return new PersonDto(name(), transport(), topSpeed());
+    }
+
+    /**
+     * Adds the person on the last line parsed to {@code columns}, copying its fields without decoding them.
+     */
+    public void appendTo(PersonColumns columns) {
+        columns.add(bytes, nameStart, nameEnd, transport(), topSpeedStart, topSpeedEnd);
+    }
+
+    private boolean reject(RejectReason reason) {
+        rejectReason = reason;
+        return false;
+    }
+
+    // The regex '$' also matched just before a final \r, U+0085, U+2028 or U+2029
+    private static int stripLineTerminator(ByteBuffer bytes, int start, int end) {
+        var length = end - start;
+        if (length >= 1 && bytes.get(end - 1) == '\r') {
+            return end - 1;
+        }
+        if (length >= 2 && bytes.get(end - 2) == (byte) 0xC2 && bytes.get(end - 1) == (byte) 0x85) {
+            return end - 2;
+        }
+        if (length >= 3 && bytes.get(end - 3) == (byte) 0xE2 && bytes.get(end - 2) == (byte) 0x80
+            && (bytes.get(end - 1) == (byte) 0xA8 || bytes.get(end - 1) == (byte) 0xA9)) {
+            return end - 3;
+        }
+        return end;
+    }
+
+    private static int literal(ByteBuffer bytes, int i, int end, char expected) {
+        return i < end && bytes.get(i) == expected ? i + 1 : -1;
+    }
+
+    private static int uuid(ByteBuffer bytes, int i, int end) {
+        if ((i = hex(bytes, i, end, 8)) < 0
+            || (i = literal(bytes, i, end, '-')) < 0
+            || (i = hex(bytes, i, end, 4)) < 0
+            || (i = literal(bytes, i, end, '-')) < 0
+            || (i = hex(bytes, i, end, 4)) < 0
+            || (i = literal(bytes, i, end, '-')) < 0
+            || (i = hex(bytes, i, end, 4)) < 0
+            || (i = literal(bytes, i, end, '-')) < 0) {
+            return -1;
+        }
+        return hex(bytes, i, end, 12);
+    }
+
+    private static int hex(ByteBuffer bytes, int i, int end, int count) {
+        if (end - i < count) {
+            return -1;
+        }
+        for (var last = i + count; i < last; i++) {
+            var b = bytes.get(i);
+            if (!(b >= '0' && b <= '9' || b >= 'a' && b <= 'f')) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private static int id(ByteBuffer bytes, int i, int end) {
+        if (end - i < 6) {
+            return -1;
+        }
+        for (var last = i + 6; i < last; i++) {
+            var b = bytes.get(i);
+            if (!(b >= '0' && b <= '9' || b >= 'A' && b <= 'Z')) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private static int letters(ByteBuffer bytes, int i, int end) {
+        var start = i;
+        while (i < end) {
+            var b = bytes.get(i);
+            if (!(b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b == ' ')) {
+                break;
+            }
+            i++;
+        }
+        return i > start ? i : -1;
+    }
+
+    private static int likes(ByteBuffer bytes, int i, int end) {
+        if (end - i < LIKES.length) {
+            return -1;
+        }
+        for (var b : LIKES) {
+            if (bytes.get(i++) != b) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    // (?:[0-9]|[1-9][0-9]+)\.[0-9]
+    private static int speed(ByteBuffer bytes, int i, int end) {
+        var start = i;
+        while (i < end && isDigit(bytes.get(i))) {
+            i++;
+        }
+        var digits = i - start;
+        if (digits == 0 || digits > 1 && bytes.get(start) == '0') {
+            return -1;
+        }
+        if ((i = literal(bytes, i, end, '.')) < 0 || i >= end || !isDigit(bytes.get(i))) {
+            return -1;
+        }
+        return i + 1;
+    }
+
+    // Only called on a speed that has been scanned, so it is digits, a point and one more digit
+    private static long tenths(ByteBuffer bytes, int start, int end) {
+        var tenths = 0L;
+        for (var i = start; i < end; i++) {
+            var b = bytes.get(i);
+            if (b != '.') {
+                if (tenths > (Long.MAX_VALUE - 9) / 10) {
+                    return Long.MAX_VALUE;
+                }
+                tenths = tenths * 10 + (b - '0');
+            }
+        }
+        return tenths;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
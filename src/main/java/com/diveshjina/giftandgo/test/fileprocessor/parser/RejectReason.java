@@ -0,0 +1,19 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+/**
+ * Why {@link PersonLineParser} rejected a line: the first field, in line order, that is missing or
+ * malformed, a field that is not followed by its {@code |} included, or that the line was too long
+ * to be read whole.
+ */
+public enum RejectReason {
+    EMPTY_LINE,
+    UUID,
+    ID,
+    NAME,
+    LIKES,
+    TRANSPORT,
+    AVG_SPEED,
+    TOP_SPEED,
+    TRAILING_CHARACTERS,
+    LINE_TOO_LONG
+}
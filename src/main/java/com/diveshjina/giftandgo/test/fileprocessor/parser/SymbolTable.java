@@ -0,0 +1,113 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Canonical strings for a field whose values repeat from line to line, looked up straight from the
+ * bytes of the line, so a value seen before costs a hash and a compare instead of a new string. It
+ * holds at most {@code maxSymbols} values of at most {@link #MAX_SYMBOL_LENGTH} bytes, and decodes
+ * anything else afresh, so a field that turns out not to repeat cannot grow it without bound. Like
+ * the parser that owns it, it must not be shared between threads.
+ */
+final class SymbolTable {
+    static final int MAX_SYMBOL_LENGTH = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxSymbols;
+    // Open addressing with linear probing, kept at most half full
+    private byte[][] keys = new byte[INITIAL_CAPACITY][];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private String[] symbols = new String[INITIAL_CAPACITY];
+    private int size;
+
+    SymbolTable(int maxSymbols) {
+        this.maxSymbols = maxSymbols;
+    }
+
+    /**
+     * The field's bytes from {@code start} to {@code end} as a string, which is the same instance every
+     * time for the same bytes while the table has room. The bytes must be ASCII.
+     */
+    String intern(ByteBuffer bytes, int start, int end) {
+        if (end - start > MAX_SYMBOL_LENGTH) {
+            return decode(bytes, start, end);
+        }
+        var hash = hash(bytes, start, end);
+        var mask = keys.length - 1;
+        var slot = hash & mask;
+        for (var key = keys[slot]; key != null; key = keys[slot]) {
+            if (hashes[slot] == hash && matches(key, bytes, start, end)) {
+                return symbols[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        var symbol = decode(bytes, start, end);
+        if (size < maxSymbols) {
+            var key = new byte[end - start];
+            bytes.get(start, key);
+            keys[slot] = key;
+            hashes[slot] = hash;
+            symbols[slot] = symbol;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+        return symbol;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static String decode(ByteBuffer bytes, int start, int end) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+        var field = new byte[end - start];
+        bytes.get(start, field);
+        return new String(field, StandardCharsets.ISO_8859_1);
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldHashes = hashes;
+        var oldSymbols = symbols;
+        keys = new byte[oldKeys.length * 2][];
+        hashes = new int[keys.length];
+        symbols = new String[keys.length];
+        var mask = keys.length - 1;
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                var slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                symbols[slot] = oldSymbols[i];
+            }
+        }
+    }
+
+    private static int hash(ByteBuffer bytes, int start, int end) {
+        var hash = 0;
+        for (var i = start; i < end; i++) {
+            hash = 31 * hash + bytes.get(i);
+        }
+        // Spread the high bits, as the table only looks at the low ones
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer bytes, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (var i = 0; i < key.length; i++) {
+            if (key[i] != bytes.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+
+@Entity
+@Table(name = "jobs")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class Job {
+    public static final int MAX_ERROR_LENGTH = 1024;
+
+    @Id
+    @NonNull
+    private UUID jobId;
+
+    @NonNull
+    @Enumerated(EnumType.STRING)
+    private JobStatus status;
+
+    @NonNull
+    private String fileName;
+
+    @NonNull
+    private String outputFormat;
+
+    private boolean validate;
+
+    private long linesProcessed;
+
+    private long invalidLines;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    @NonNull
+    private Timestamp createdTimestamp;
+
+    private Timestamp finishedTimestamp;
+}
@@ -0,0 +1,41 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Jobs change state through targeted updates, so the progress published while a job runs can never
+ * overwrite the status it finishes with.
+ */
+@Repository
+public interface JobRepository extends CrudRepository<Job, UUID> {
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = 'RUNNING' where j.jobId = :jobId and j.status = 'QUEUED'")
+    int markRunning(UUID jobId);
+
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.linesProcessed = :linesProcessed, j.invalidLines = :invalidLines where j.jobId = :jobId and j.status = 'RUNNING'")
+    int updateProgress(UUID jobId, long linesProcessed, long invalidLines);
+
+    @Transactional
+    @Modifying
+    @Query("""
+        update Job j set j.status = :status, j.linesProcessed = :linesProcessed, j.invalidLines = :invalidLines,
+        j.error = :error, j.finishedTimestamp = :finishedTimestamp where j.jobId = :jobId""")
+    int finish(UUID jobId, JobStatus status, long linesProcessed, long invalidLines, String error, Timestamp finishedTimestamp);
+
+    List<Job> findByStatusIn(Collection<JobStatus> statuses);
+
+    List<Job> findByFinishedTimestampBefore(Timestamp finishedTimestamp);
+}
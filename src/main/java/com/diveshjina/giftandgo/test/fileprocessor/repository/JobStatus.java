@@ -0,0 +1,8 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
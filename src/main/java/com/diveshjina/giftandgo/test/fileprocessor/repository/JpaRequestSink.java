@@ -0,0 +1,21 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "audit.sink", havingValue = "jpa", matchIfMissing = true)
+public class JpaRequestSink implements RequestSink {
+    private final RequestRepository requestRepository;
+
+    public JpaRequestSink(RequestRepository requestRepository) {
+        this.requestRepository = requestRepository;
+    }
+
+    @Override
+    public void saveAll(List<Request> requests) {
+        requestRepository.saveAll(requests);
+    }
+}
@@ -3,6 +3,8 @@ package com.diveshjina.giftandgo.test.fileprocessor.repository;
 import java.sql.Timestamp;
 import java.util.UUID;
 
+import org.springframework.data.domain.Persistable;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
@@ -18,7 +20,7 @@ import lombok.Setter;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-public class Request {
+public class Request implements Persistable<UUID> {
 
     @Id
     @NonNull
@@ -42,4 +44,15 @@ public class Request {
     private String requestIpProvider;
 
     private long timeLapsedInMillis;
+
+    @Override
+    public UUID getId() {
+        return requestId;
+    }
+
+    // Requests are only ever inserted, so saving one never needs to check whether it already exists
+    @Override
+    public boolean isNew() {
+        return true;
+    }
 }
@@ -0,0 +1,87 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.AuditPartitionProperties;
+
+/**
+ * Keeps the daily partitions of the {@code requests} table in step with the clock. Partitions are
+ * created {@code audit.partitions.days-ahead} days in advance, and partitions whose whole day is
+ * older than {@code audit.partitions.retention} are dropped, which is far cheaper than deleting
+ * their rows.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.partitions.enabled", havingValue = "true")
+public class RequestPartitionManager {
+    private static final Logger logger = LoggerFactory.getLogger(RequestPartitionManager.class);
+    private static final String PARTITION_PREFIX = "requests_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String PARTITIONS_SQL = """
+        SELECT c.relname FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.relname = 'requests'""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditPartitionProperties auditPartitionProperties;
+    private final Clock clock;
+
+    @Autowired
+    public RequestPartitionManager(JdbcTemplate jdbcTemplate, AuditPartitionProperties auditPartitionProperties) {
+        this(jdbcTemplate, auditPartitionProperties, Clock.systemDefaultZone());
+    }
+
+    RequestPartitionManager(JdbcTemplate jdbcTemplate, AuditPartitionProperties auditPartitionProperties, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditPartitionProperties = auditPartitionProperties;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    @Scheduled(cron = "${audit.partitions.cron}")
+    public void maintainPartitions() {
+        var today = LocalDate.now(clock);
+        for (var day = 0; day <= auditPartitionProperties.daysAhead(); day++) {
+            createPartition(today.plusDays(day));
+        }
+        // A partition holds a whole day, so it goes once the end of that day is older than the retention
+        var cutoff = LocalDateTime.now(clock).minus(auditPartitionProperties.retention());
+        for (var partition : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class)) {
+            var day = partitionDay(partition);
+            if (day != null && !day.plusDays(1).atStartOfDay().isAfter(cutoff)) {
+                logger.info("Dropping audit partition {}", partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+        }
+    }
+
+    private void createPartition(LocalDate day) {
+        jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s%s PARTITION OF requests FOR VALUES FROM ('%s') TO ('%s')",
+            PARTITION_PREFIX, PARTITION_SUFFIX.format(day), day, day.plusDays(1)));
+    }
+
+    private static LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
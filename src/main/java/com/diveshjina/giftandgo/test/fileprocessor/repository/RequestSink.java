@@ -0,0 +1,11 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.util.List;
+
+/**
+ * Where audited requests end up. The implementation is chosen with {@code audit.sink}.
+ */
+public interface RequestSink {
+
+    void saveAll(List<Request> requests);
+}
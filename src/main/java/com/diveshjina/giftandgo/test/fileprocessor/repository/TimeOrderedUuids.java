@@ -0,0 +1,26 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version 7 UUIDs: a 48-bit Unix millisecond timestamp followed by random bits. Keys generated
+ * close together in time sort close together, so inserts land on the right edge of the primary key
+ * index instead of on random pages.
+ */
+public final class TimeOrderedUuids {
+
+    private TimeOrderedUuids() {
+    }
+
+    public static UUID next() {
+        return next(System.currentTimeMillis());
+    }
+
+    static UUID next(long epochMillis) {
+        var random = ThreadLocalRandom.current();
+        var mostSignificantBits = (epochMillis << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        var leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
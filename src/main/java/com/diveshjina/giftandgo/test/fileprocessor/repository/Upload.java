@@ -0,0 +1,70 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * A resumable upload. {@code bytesReceived} is how much of the file is on disk, and the checkpoint
+ * of its parsing is {@code bytesParsed}, always at the start of a line, with the {@code outputBytes}
+ * of result written for the lines before it. Up to {@code bytesScanned} the file has been searched
+ * for the end of a line without finding one past {@code bytesParsed}, so a long line arriving over
+ * many chunks is only searched once.
+ */
+@Entity
+@Table(name = "uploads")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class Upload {
+    public static final int MAX_ERROR_LENGTH = 1024;
+
+    @Id
+    @NonNull
+    private UUID uploadId;
+
+    @NonNull
+    @Enumerated(EnumType.STRING)
+    private UploadStatus status;
+
+    @NonNull
+    private String fileName;
+
+    @NonNull
+    private String outputFormat;
+
+    private boolean validate;
+
+    private long bytesReceived;
+
+    private long bytesParsed;
+
+    private long bytesScanned;
+
+    private long outputBytes;
+
+    private long linesProcessed;
+
+    private long invalidLines;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    @NonNull
+    private Timestamp createdTimestamp;
+
+    @NonNull
+    private Timestamp updatedTimestamp;
+}
@@ -0,0 +1,48 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Uploads change state through targeted updates that only apply while they are still uploading, so
+ * nothing can be received or parsed into an upload once it has finished. They clear the persistence
+ * context, which lives as long as the request, so the upload read back after a chunk is up to date.
+ */
+@Repository
+public interface UploadRepository extends CrudRepository<Upload, UUID> {
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Upload u set u.bytesReceived = :bytesReceived, u.updatedTimestamp = :updatedTimestamp where u.uploadId = :uploadId and u.status = 'UPLOADING'")
+    int receive(UUID uploadId, long bytesReceived, Timestamp updatedTimestamp);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        update Upload u set u.bytesParsed = :bytesParsed, u.bytesScanned = :bytesScanned, u.outputBytes = :outputBytes,
+        u.linesProcessed = :linesProcessed, u.invalidLines = :invalidLines, u.updatedTimestamp = :updatedTimestamp
+        where u.uploadId = :uploadId and u.status = 'UPLOADING'""")
+    int checkpoint(UUID uploadId, long bytesParsed, long bytesScanned, long outputBytes, long linesProcessed, long invalidLines,
+                   Timestamp updatedTimestamp);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Upload u set u.bytesScanned = :bytesScanned where u.uploadId = :uploadId and u.status = 'UPLOADING'")
+    int scanned(UUID uploadId, long bytesScanned);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        update Upload u set u.status = :status, u.error = :error, u.updatedTimestamp = :updatedTimestamp
+        where u.uploadId = :uploadId and u.status = 'UPLOADING'""")
+    int finish(UUID uploadId, UploadStatus status, String error, Timestamp updatedTimestamp);
+
+    List<Upload> findByUpdatedTimestampBefore(Timestamp updatedTimestamp);
+}
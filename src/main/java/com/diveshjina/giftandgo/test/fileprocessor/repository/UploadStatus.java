@@ -0,0 +1,7 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+public enum UploadStatus {
+    UPLOADING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,273 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.BatchProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Processes the entry files of a batch all at once, and writes their outcomes as one JSON object keyed
+ * by file name. Each value is what {@code /v0/process} would have returned for the file, or
+ * {@code {"error":"..."}} if it could not be processed, so one bad file does not fail the rest. Files
+ * below {@code parsing.parallel-threshold} are written to temp files as they are processed, so the
+ * batch streams in order without waiting on the slowest file; bigger ones are parsed on every core
+ * anyway, and are streamed when their turn comes.
+ */
+@Service
+public class BatchService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+
+    private final FileProcessorService fileProcessorService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final ObjectMapper objectMapper;
+    private final int maxFiles;
+    private final long maxEntrySize;
+    private final long parallelThreshold;
+
+    public BatchService(FileProcessorService fileProcessorService, AsyncTaskExecutor taskExecutor, ObjectMapper objectMapper,
+                        BatchProperties batchProperties, ParsingProperties parsingProperties) {
+        this.fileProcessorService = fileProcessorService;
+        this.taskExecutor = taskExecutor;
+        this.objectMapper = objectMapper;
+        this.maxFiles = batchProperties.maxFiles();
+        this.maxEntrySize = batchProperties.maxEntrySize().toBytes();
+        this.parallelThreshold = parsingProperties.parallelThreshold().toBytes();
+    }
+
+    /**
+     * @throws InvalidFileException if there are more than {@code batch.max-files} files
+     */
+    public OutcomeFile processFiles(List<MultipartFile> files, boolean validate, boolean report) throws InvalidFileException {
+        checkFileCount(files.size());
+        var entries = new ArrayList<BatchEntry>(files.size());
+        var names = new HashSet<String>();
+        for (var file : files) {
+            entries.add(submit(uniqueName(Objects.requireNonNullElse(file.getOriginalFilename(), ""), names), file, null, validate, report));
+        }
+        return outcomeFile(entries);
+    }
+
+    /**
+     * As {@link #processFiles(List, boolean, boolean)}, for the files in a zip archive, each of which
+     * is spooled to a temp file and processed as soon as it has been read. Files over
+     * {@code batch.max-entry-size} are reported as errors without being processed.
+     *
+     * @throws InvalidFileException if the archive cannot be read or holds no files, or holds more than {@code batch.max-files}
+     */
+    public OutcomeFile processArchive(MultipartFile archive, boolean validate, boolean report) throws IOException, InvalidFileException {
+        var entries = new ArrayList<BatchEntry>();
+        var names = new HashSet<String>();
+        try (var zipInputStream = new ZipInputStream(archive.getInputStream())) {
+            for (var zipEntry = zipInputStream.getNextEntry(); zipEntry != null; zipEntry = zipInputStream.getNextEntry()) {
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                checkFileCount(entries.size() + 1);
+                var name = uniqueName(zipEntry.getName(), names);
+                var path = Files.createTempFile("batch-entry", ".txt");
+                try {
+                    if (spoolEntry(zipInputStream, path) > maxEntrySize) {
+                        Files.delete(path);
+                        var tooLarge = error(String.format("File larger than %d bytes", maxEntrySize));
+                        entries.add(new BatchEntry(name, CompletableFuture.completedFuture(tooLarge), CompletableFuture.completedFuture(null), null));
+                    } else {
+                        entries.add(submit(name, new SpooledFile(path, name, null), path, validate, report));
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    Files.deleteIfExists(path);
+                    throw ex;
+                }
+            }
+        } catch (ZipException | EOFException ex) {
+            discard(entries);
+            throw new InvalidFileException(String.format("Archive could not be read: %s", ex.getMessage()));
+        } catch (IOException | InvalidFileException | RuntimeException ex) {
+            discard(entries);
+            throw ex;
+        }
+        // Anything that is not a zip archive reads as one without entries
+        if (entries.isEmpty()) {
+            throw new InvalidFileException("Archive holds no files or is not a zip archive");
+        }
+        return outcomeFile(entries);
+    }
+
+    // Copies at most one byte past max-entry-size, which is enough to tell that the entry is too large
+    private long spoolEntry(InputStream inputStream, Path path) throws IOException {
+        try (var outputStream = Files.newOutputStream(path)) {
+            var buffer = new byte[8192];
+            var copied = 0L;
+            while (copied <= maxEntrySize) {
+                var read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, maxEntrySize + 1 - copied));
+                if (read < 0) {
+                    break;
+                }
+                outputStream.write(buffer, 0, read);
+                copied += read;
+            }
+            return copied;
+        }
+    }
+
+    private void checkFileCount(int fileCount) throws InvalidFileException {
+        if (fileCount > maxFiles) {
+            throw new InvalidFileException(String.format("Batch holds more than %d files", maxFiles));
+        }
+    }
+
+    // The outcomes are keyed by name, so a name sent twice gets a number to tell them apart
+    private static String uniqueName(String name, Set<String> names) {
+        var uniqueName = name;
+        for (var i = 2; !names.add(uniqueName); i++) {
+            uniqueName = String.format("%s (%d)", name, i);
+        }
+        return uniqueName;
+    }
+
+    // A spooled file is deleted once processed, unless processing has moved it away already
+    private BatchEntry submit(String name, MultipartFile file, Path spooledFile, boolean validate, boolean report) {
+        var outcomeFile = new CompletableFuture<OutcomeFile>();
+        var processing = taskExecutor.submit(() -> {
+            try {
+                OutcomeFiles.complete(outcomeFile, process(name, file, validate, report));
+            } finally {
+                delete(spooledFile);
+            }
+        });
+        return new BatchEntry(name, outcomeFile, processing, spooledFile);
+    }
+
+    private OutcomeFile process(String name, MultipartFile file, boolean validate, boolean report) {
+        try {
+            var processedFile = fileProcessorService.processFile(file, validate, report, OutputFormat.JSON);
+            if (file.getSize() >= parallelThreshold) {
+                return processedFile;
+            }
+            return spoolOutcome(processedFile);
+        } catch (InvalidFileException ex) {
+            logger.info("File {} of batch invalid: {}", name, ex.getMessage());
+            return error(ex.getMessage());
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Failed to process file {} of batch", name, ex);
+            return error("File could not be processed");
+        }
+    }
+
+    private static OutcomeFile spoolOutcome(OutcomeFile processedFile) throws IOException {
+        var path = Files.createTempFile("batch-outcome", ".json");
+        try (var outputStream = Files.newOutputStream(path)) {
+            processedFile.writeTo(outputStream);
+        } catch (IOException | RuntimeException ex) {
+            Files.delete(path);
+            throw ex;
+        }
+        return new OutcomeFile() {
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                try {
+                    Files.copy(path, outputStream);
+                } finally {
+                    close();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                Files.deleteIfExists(path);
+            }
+        };
+    }
+
+    private OutcomeFile error(String message) {
+        var body = objectMapper.createObjectNode().put("error", message).toString().getBytes(StandardCharsets.UTF_8);
+        return outputStream -> outputStream.write(body);
+    }
+
+    private OutcomeFile outcomeFile(List<BatchEntry> entries) {
+        return new OutcomeFile() {
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                try {
+                    outputStream.write('{');
+                    for (var i = 0; i < entries.size(); i++) {
+                        var entry = entries.get(i);
+                        if (i > 0) {
+                            outputStream.write(',');
+                        }
+                        outputStream.write(objectMapper.writeValueAsBytes(entry.name()));
+                        outputStream.write(':');
+                        await(entry.outcomeFile()).writeTo(outputStream);
+                    }
+                    outputStream.write('}');
+                } finally {
+                    close();
+                }
+            }
+
+            @Override
+            public void close() {
+                discard(entries);
+            }
+        };
+    }
+
+    private static OutcomeFile await(CompletableFuture<OutcomeFile> outcomeFile) throws IOException {
+        try {
+            return outcomeFile.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while processing batch");
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static void discard(List<BatchEntry> entries) {
+        for (var entry : entries) {
+            OutcomeFiles.discard(entry.outcomeFile(), entry.processing());
+            // Processing that was cancelled before it started never deletes its spooled file
+            delete(entry.spooledFile());
+        }
+    }
+
+    private static void delete(Path spooledFile) {
+        if (spooledFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spooledFile);
+        } catch (IOException ex) {
+            logger.warn("Failed to delete spooled file {}", spooledFile, ex);
+        }
+    }
+
+    private record BatchEntry(String name, CompletableFuture<OutcomeFile> outcomeFile, Future<?> processing, Path spooledFile) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+
+/**
+ * One version of the rules requests are blocked by: countries, ISPs and autonomous systems, which
+ * need the IP looked up, and CIDR ranges, which are matched against the IP itself. A blocklist never
+ * changes once built, so a reload swaps in a new one and a request only ever sees one version.
+ */
+public final class Blocklist {
+    private static final Pattern AS_NUMBER = Pattern.compile("(?i)(?:AS)?(\\d+)(?:\\s.*)?");
+
+    private final Set<String> countries;
+    private final Set<String> isps;
+    private final Set<Long> asNumbers;
+    private final IpRanges ranges;
+
+    private Blocklist(Set<String> countries, Set<String> isps, Set<Long> asNumbers, IpRanges ranges) {
+        this.countries = countries;
+        this.isps = isps;
+        this.asNumbers = asNumbers;
+        this.ranges = ranges;
+    }
+
+    /**
+     * A blocklist of the given rules. Autonomous systems are given by number, with or without
+     * {@code AS} in front, and ranges as CIDR blocks or single addresses.
+     *
+     * @throws IllegalArgumentException if an autonomous system or range cannot be read
+     */
+    public static Blocklist of(Collection<String> countries, Collection<String> isps, Collection<String> asns, Collection<String> cidrs) {
+        var asNumbers = new HashSet<Long>();
+        for (var asn : asns) {
+            var asNumber = asNumber(asn.strip());
+            if (asNumber == null) {
+                throw new IllegalArgumentException(String.format("Not an autonomous system number: %s", asn));
+            }
+            asNumbers.add(asNumber);
+        }
+        return new Blocklist(Set.copyOf(countries), Set.copyOf(isps), Set.copyOf(asNumbers), IpRanges.of(cidrs));
+    }
+
+    /**
+     * Whether the IP is in a blocked range, which is known before it is looked up.
+     */
+    public boolean blocksAddress(String ip) {
+        return ranges.contains(ip);
+    }
+
+    /**
+     * The country, ISP or autonomous system the looked up IP is blocked for, or {@code null} if it is not.
+     */
+    public String blockedBy(IpDetailsDto ipDetails) {
+        if (countries.contains(ipDetails.country())) {
+            return ipDetails.country();
+        }
+        if (isps.contains(ipDetails.isp())) {
+            return ipDetails.isp();
+        }
+        if (!asNumbers.isEmpty() && ipDetails.as() != null) {
+            var asNumber = asNumber(ipDetails.as());
+            if (asNumber != null && asNumbers.contains(asNumber)) {
+                return "AS" + asNumber;
+            }
+        }
+        return null;
+    }
+
+    private static Long asNumber(String as) {
+        var matcher = AS_NUMBER.matcher(as);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(matcher.group(1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.BlockedProperties;
+
+/**
+ * Publishes the current {@link Blocklist}: the {@code blocked.*} rules, plus those in
+ * {@code blocked.file} if there is one. The file is checked every {@code blocked.reload-interval}
+ * and re-read once it has changed, and the new blocklist is swapped in whole, so a request never
+ * waits on a reload or sees half of one. A file that cannot be read leaves the last blocklist in place.
+ * <p>
+ * The file holds a rule per line, {@code country}, {@code isp}, {@code asn} or {@code cidr} followed
+ * by its value, e.g. {@code cidr 203.0.113.0/24}; blank lines and lines starting with {@code #} are skipped.
+ */
+@Component
+public class BlocklistLoader {
+    private static final Logger logger = LoggerFactory.getLogger(BlocklistLoader.class);
+
+    private final BlockedProperties blockedProperties;
+    private final AtomicReference<Blocklist> blocklist;
+    // Only touched by the thread reloading the file
+    private FileTime loadedModifiedTime;
+    private boolean fileMissing;
+
+    public BlocklistLoader(BlockedProperties blockedProperties) {
+        this.blockedProperties = blockedProperties;
+        this.blocklist = new AtomicReference<>(Blocklist.of(blockedProperties.countries(), blockedProperties.isps(), blockedProperties.asns(),
+            blockedProperties.cidrs()));
+        reload();
+    }
+
+    public Blocklist current() {
+        return blocklist.get();
+    }
+
+    @Scheduled(fixedDelayString = "${blocked.reload-interval}")
+    public void reload() {
+        var file = blockedProperties.file();
+        if (file == null) {
+            return;
+        }
+        FileTime modifiedTime;
+        try {
+            modifiedTime = Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException ex) {
+            if (!fileMissing) {
+                logger.warn("Blocklist file {} not found, keeping the last blocklist", file);
+                fileMissing = true;
+            }
+            return;
+        } catch (IOException ex) {
+            logger.error("Failed to check blocklist file {}", file, ex);
+            return;
+        }
+        fileMissing = false;
+        if (modifiedTime.equals(loadedModifiedTime)) {
+            return;
+        }
+        try {
+            blocklist.set(load(file));
+            loadedModifiedTime = modifiedTime;
+            logger.info("Loaded blocklist from {}", file);
+        } catch (IOException | IllegalArgumentException ex) {
+            logger.error("Failed to load blocklist from {}, keeping the last blocklist", file, ex);
+        }
+    }
+
+    private Blocklist load(Path file) throws IOException {
+        var countries = new ArrayList<>(blockedProperties.countries());
+        var isps = new ArrayList<>(blockedProperties.isps());
+        var asns = new ArrayList<>(blockedProperties.asns());
+        var cidrs = new ArrayList<>(blockedProperties.cidrs());
+        var lineNumber = 0;
+        for (var line : Files.readAllLines(file)) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            var parts = line.split("\\s+", 2);
+            if (parts.length < 2) {
+                throw new IllegalArgumentException(String.format("Rule without a value on line %d: %s", lineNumber, line));
+            }
+            var rules = switch (parts[0]) {
+                case "country" -> countries;
+                case "isp" -> isps;
+                case "asn" -> asns;
+                case "cidr" -> cidrs;
+                default -> throw new IllegalArgumentException(String.format("Unknown rule on line %d: %s", lineNumber, line));
+            };
+            rules.add(parts[1]);
+        }
+        return Blocklist.of(countries, isps, asns, cidrs);
+    }
+}
@@ -1,122 +1,447 @@
 package com.diveshjina.giftandgo.test.fileprocessor.service;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
-import java.util.regex.Pattern;
+import java.util.zip.ZipException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.SneakyThrows;
 
-import com.diveshjina.giftandgo.test.fileprocessor.client.IPAPIClient;
-import com.diveshjina.giftandgo.test.fileprocessor.configuration.BlockedProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.RejectReportProperties;
 import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
 import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.Compression;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.LineReader;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonLineParser;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.RejectReason;
 import com.diveshjina.giftandgo.test.fileprocessor.repository.Request;
-import com.diveshjina.giftandgo.test.fileprocessor.repository.RequestRepository;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.TimeOrderedUuids;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ProcessingMetrics.Phase;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ResultCache.ResultKey;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.luben.zstd.ZstdIOException;
 
 @Service
 public class FileProcessorService {
     private static final Logger logger = LoggerFactory.getLogger(FileProcessorService.class);
+    // Progress is published every 4096 lines
+    private static final long PROGRESS_LINE_MASK = 4096 - 1;
 
-    private static final String LINE_MATCHING_PATTERN = "^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\|[0-9A-Z]{6}\\|([A-Za-z ]+)\\|Likes [A-Za-z ]+\\|([A-Za-z ]+)\\|(?:[0-9]|[1-9][0-9]+)\\.[0-9]\\|((?:[0-9]|[1-9][0-9]+)\\.[0-9])$";
-
-    private final IPAPIClient ipApiClient;
-    private final BlockedProperties blockedProperties;
-    private final RequestRepository requestRepository;
+    // Asked in order until one knows the IP
+    private final IpDetailsProvider[] ipDetailsProviders;
+    private final BlocklistLoader blocklistLoader;
+    private final RequestAuditWriter requestAuditWriter;
     private final ObjectMapper objectMapper;
+    private final ObjectWriter personWriter;
+    private final ParallelFileProcessor parallelFileProcessor;
+    private final ProcessingMetrics processingMetrics;
+    private final RejectReportProperties rejectReportProperties;
+    private final ResultCache resultCache;
+    private final long parallelThreshold;
+    private final long streamFlushIntervalNanos;
 
-    public FileProcessorService(IPAPIClient ipApiClient, BlockedProperties blockedProperties, RequestRepository requestRepository, ObjectMapper objectMapper) {
-        this.ipApiClient = ipApiClient;
-        this.blockedProperties = blockedProperties;
-        this.requestRepository = requestRepository;
+    public FileProcessorService(List<IpDetailsProvider> ipDetailsProviders, BlocklistLoader blocklistLoader, RequestAuditWriter requestAuditWriter, ObjectMapper objectMapper,
+                                ParallelFileProcessor parallelFileProcessor, ParsingProperties parsingProperties, ProcessingMetrics processingMetrics,
+                                RejectReportProperties rejectReportProperties, ResultCache resultCache) {
+        this.ipDetailsProviders = ipDetailsProviders.toArray(IpDetailsProvider[]::new);
+        this.blocklistLoader = blocklistLoader;
+        this.requestAuditWriter = requestAuditWriter;
         this.objectMapper = objectMapper;
+        this.parallelFileProcessor = parallelFileProcessor;
+        this.processingMetrics = processingMetrics;
+        this.rejectReportProperties = rejectReportProperties;
+        this.resultCache = resultCache;
+        this.parallelThreshold = parsingProperties.parallelThreshold().toBytes();
+        this.streamFlushIntervalNanos = parsingProperties.streamFlushInterval().toNanos();
+        this.personWriter = objectMapper.writerFor(PersonDto.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public OutcomeFile processFile(MultipartFile file, boolean validate, OutputFormat format) throws IOException, InvalidFileException {
+        return processFile(file, validate, false, format);
+    }
+
+    /**
+     * As {@link #processFile(MultipartFile, boolean, OutputFormat)}, or with {@code report} set, reads
+     * the whole file in one pass whether or not it is validated, and writes the valid persons followed
+     * by a report of the lines rejected.
+     */
+    public OutcomeFile processFile(MultipartFile file, boolean validate, boolean report, OutputFormat format)
+        throws IOException, InvalidFileException {
+        return processFile(file, validate, report, false, format);
+    }
+
+    /**
+     * As {@link #processFile(MultipartFile, boolean, boolean, OutputFormat)}, or with {@code stats} set,
+     * follows the persons, and any report, with the count and the minimum, maximum and mean top speed of
+     * the persons written per transport, as {@code {"persons":[...],"stats":{...}}}.
+     */
+    public OutcomeFile processFile(MultipartFile file, boolean validate, boolean report, boolean stats, OutputFormat format)
+        throws IOException, InvalidFileException {
+        return processFile(file, validate, report, stats, format, new ProcessingProgress());
+    }
+
+    /**
+     * As {@link #processFile(MultipartFile, boolean, boolean, OutputFormat)}, reporting the lines written
+     * so far to {@code progress} while the outcome file is being written.
+     */
+    public OutcomeFile processFile(MultipartFile file, boolean validate, boolean report, OutputFormat format, ProcessingProgress progress)
+        throws IOException, InvalidFileException {
+        return processFile(file, validate, report, false, format, progress);
+    }
+
+    /**
+     * As {@link #processFile(MultipartFile, boolean, boolean, boolean, OutputFormat)}, reporting the lines
+     * written so far to {@code progress} while the outcome file is being written.
+     */
+    public OutcomeFile processFile(MultipartFile file, boolean validate, boolean report, boolean stats, OutputFormat format,
+                                   ProcessingProgress progress) throws IOException, InvalidFileException {
+        processingMetrics.countBytesIn(file.getSize());
+        if (!resultCache.caches(file.getSize())) {
+            return process(file, validate, report, stats, format, progress);
+        }
+        // The upload is hashed as it is read into memory, and on a miss it is processed from there rather than read again
+        var start = System.nanoTime();
+        var digest = sha256();
+        byte[] content;
+        try (var inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+            content = inputStream.readAllBytes();
+        } finally {
+            processingMetrics.record(Phase.READ, start);
+        }
+        var key = new ResultKey(HexFormat.of().formatHex(digest.digest()), content.length, validate, report, stats, format);
+        var cachedResult = resultCache.lookUp(key, content.length, progress);
+        if (cachedResult != null) {
+            return new OutcomeFile() {
+
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    cachedResult.writeTo(processingMetrics.countBytesOut(outputStream));
+                }
+
+                @Override
+                public void close() throws IOException {
+                    cachedResult.close();
+                }
+            };
+        }
+        var uploadInMemory = new InMemoryFile(file.getName(), file.getOriginalFilename(), file.getContentType(), content);
+        return resultCache.storing(key, process(uploadInMemory, validate, report, stats, format, progress), progress);
     }
 
-    public byte[] processFile(MultipartFile file, boolean validate) throws IOException, InvalidFileException {
-        var fileBytes = file.getBytes();
-        var fileLines = Arrays.asList(
-            new String(fileBytes, StandardCharsets.UTF_8)
-                .split("\n"));
-        var persons = getPersons(fileLines, validate);
-        return objectMapper.writeValueAsBytes(persons);
+    private OutcomeFile process(MultipartFile file, boolean validate, boolean report, boolean stats, OutputFormat format,
+                                ProcessingProgress progress) throws IOException, InvalidFileException {
+        // Formats that report an invalid line in the output skip the validation pass so the first person goes out straight away
+        var validateFirst = validate && !report && !format.reportsInvalidLines();
+        var reportInvalidLines = validate && !report && format.reportsInvalidLines();
+        var rejectReport = report ? new RejectReport(rejectReportProperties.maxLines(), rejectReportProperties.maxLineLength()) : null;
+        var speedStats = stats ? new SpeedStats() : null;
+        // Empty files always take the sequential path, where they count as a single invalid line
+        if (file.getSize() > 0 && file.getSize() >= parallelThreshold) {
+            var channel = openSpooledFile(file);
+            try {
+                if (validateFirst) {
+                    var phaseTimes = new PhaseTimes();
+                    try {
+                        parallelFileProcessor.validateFile(channel, phaseTimes);
+                    } finally {
+                        processingMetrics.recordValidation(phaseTimes);
+                    }
+                }
+            } catch (InvalidFileException ex) {
+                processingMetrics.countLines(0, 1);
+                channel.close();
+                throw ex;
+            } catch (Exception ex) {
+                channel.close();
+                throw ex;
+            }
+            return new OutcomeFile() {
+
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    var phaseTimes = new PhaseTimes();
+                    try (channel) {
+                        parallelFileProcessor.writePersons(channel, processingMetrics.countBytesOut(outputStream), format, reportInvalidLines,
+                            rejectReport, speedStats, progress, phaseTimes);
+                    } finally {
+                        processingMetrics.recordWrite(phaseTimes);
+                        processingMetrics.countLines(progress.linesProcessed() - progress.invalidLines(), progress.invalidLines());
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+        if (validateFirst) {
+            // The whole file is checked before any output is written so an invalid line can still fail the request
+            validateFile(file);
+        }
+        return outputStream -> writePersons(file, processingMetrics.countBytesOut(outputStream), format, reportInvalidLines, rejectReport,
+            speedStats, progress);
+    }
+
+    /**
+     * Writes the persons on the lines of {@code inputStream} as a run of {@code format}, without header or
+     * footer, led by the format's separator if {@code separate} is set and any person is written. Invalid
+     * lines are skipped, or with {@code validate} set the first one fails the run. The lines read are
+     * reported to {@code progress} once the run is done.
+     */
+    void appendPersons(InputStream inputStream, OutputStream outputStream, OutputFormat format, boolean validate, boolean separate,
+                       ProcessingProgress progress) throws IOException, InvalidFileException {
+        var lineParser = new PersonLineParser();
+        var lineNumber = 0L;
+        var invalidLines = 0L;
+        var phaseTimes = new PhaseTimes();
+        try (var lineReader = new LineReader(phaseTimes.timeReads(inputStream));
+             var generator = format.createGenerator(objectMapper, outputStream)) {
+            while (lineReader.nextLine()) {
+                lineNumber++;
+                phaseTimes.startLine();
+                var valid = !lineReader.lineTooLong() && lineParser.parse(lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd());
+                phaseTimes.lineParsed();
+                if (valid) {
+                    // Nothing has gone through the generator yet, so the separator lands ahead of the first person
+                    if (separate && lineNumber - invalidLines == 1) {
+                        outputStream.write(format.separator());
+                    }
+                    format.writePerson(personWriter, generator, lineParser.toPerson());
+                    phaseTimes.lineSerialized();
+                } else {
+                    invalidLines++;
+                    if (validate) {
+                        throw new InvalidFileException(String.format("Line invalid: %s", lineReader.line()));
+                    }
+                }
+            }
+        } finally {
+            processingMetrics.recordWrite(phaseTimes);
+            processingMetrics.countLines(lineNumber - invalidLines, invalidLines);
+        }
+        progress.report(lineNumber, invalidLines);
     }
 
     public IpDetailsDto getIpDetails(String ip) {
-        return ipApiClient.getIpDetails(ip);
+        var start = System.nanoTime();
+        try {
+            IpDetailsDto ipDetails = null;
+            for (var i = 0; ipDetails == null && i < ipDetailsProviders.length; i++) {
+                ipDetails = ipDetailsProviders[i].getIpDetails(ip);
+            }
+            return ipDetails;
+        } finally {
+            processingMetrics.record(Phase.IP_LOOKUP, start);
+        }
     }
 
-    public void validateIp(IpDetailsDto ipDetails, boolean validate) throws IpBlockedException {
-        if (validate) {
-            if (blockedProperties.countries().contains(ipDetails.country())) {
-                throw new IpBlockedException(String.format("Request from %s not allowed", ipDetails.country()));
+    /**
+     * Checks the IP against the blocked ranges, which needs no lookup, so it is done before the IP is
+     * looked up and a blocked range never costs an ip-api call.
+     */
+    public void validateAddress(String ip, boolean validate) throws IpBlockedException {
+        var start = System.nanoTime();
+        try {
+            if (validate && blocklistLoader.current().blocksAddress(ip)) {
+                throw new IpBlockedException(String.format("Request from %s not allowed", ip));
             }
-            if (blockedProperties.isps().contains(ipDetails.isp())) {
-                throw new IpBlockedException(String.format("Request from %s not allowed", ipDetails.isp()));
+        } finally {
+            processingMetrics.record(Phase.VALIDATE_IP, start);
+        }
+    }
+
+    public void validateIp(IpDetailsDto ipDetails, boolean validate) throws IpBlockedException {
+        var start = System.nanoTime();
+        try {
+            if (validate) {
+                var blockedBy = blocklistLoader.current().blockedBy(ipDetails);
+                if (blockedBy != null) {
+                    throw new IpBlockedException(String.format("Request from %s not allowed", blockedBy));
+                }
             }
+        } finally {
+            processingMetrics.record(Phase.VALIDATE_IP, start);
         }
     }
 
-    public void saveRequestDetails(HttpServletRequest request, LocalDateTime startTime, IpDetailsDto ipDetails, LocalDateTime endTime, ResponseEntity<byte[]> responseEntity) {
+    public void saveRequestDetails(HttpServletRequest request, LocalDateTime startTime, IpDetailsDto ipDetails, LocalDateTime endTime, HttpStatusCode httpStatus) {
+        var start = System.nanoTime();
         var timeLapsed = Duration.between(startTime, endTime).toMillis();
         var requestEntity = new Request(
-            UUID.randomUUID(),
+            TimeOrderedUuids.next(),
             request.getRequestURI(),
             Timestamp.valueOf(startTime),
-            responseEntity.getStatusCode().value(),
+            httpStatus.value(),
             request.getRemoteAddr(),
             ipDetails.countryCode(),
             ipDetails.isp(),
             timeLapsed
         );
-        requestRepository.save(requestEntity);
+        requestAuditWriter.write(requestEntity);
+        processingMetrics.record(Phase.PERSIST, start);
+    }
+
+    private FileChannel openSpooledFile(MultipartFile file) throws IOException, InvalidFileException {
+        var uploadPath = Files.createTempFile("entry-file", ".txt");
+        Path path = null;
+        try {
+            SpooledFile.spool(file, uploadPath);
+            var compression = compressionOf(file, uploadPath);
+            if (compression == Compression.NONE) {
+                path = uploadPath;
+            } else {
+                // Mapping needs the plain file, so it is decompressed back to disk a buffer at a time
+                path = Files.createTempFile("entry-file", ".txt");
+                try (var inputStream = compression.decode(Files.newInputStream(uploadPath))) {
+                    Files.copy(inputStream, path, StandardCopyOption.REPLACE_EXISTING);
+                } catch (ZipException | ZstdIOException | EOFException ex) {
+                    throw notDecompressed(ex);
+                }
+                Files.delete(uploadPath);
+            }
+            return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException | InvalidFileException ex) {
+            Files.deleteIfExists(uploadPath);
+            if (path != null) {
+                Files.deleteIfExists(path);
+            }
+            throw ex;
+        }
+    }
+
+    private static Compression compressionOf(MultipartFile file, Path uploadPath) throws IOException {
+        var compression = Compression.of(file.getContentType());
+        if (compression != Compression.NONE) {
+            return compression;
+        }
+        try (var inputStream = Files.newInputStream(uploadPath)) {
+            return Compression.detect(inputStream.readNBytes(Compression.MAGIC_LENGTH));
+        }
     }
 
-    private List<PersonDto> getPersons(List<String> fileLines, boolean validate) {
-        if (validate) {
-            logger.info("Getting persons with validation of file");
-            return fileLines.stream()
-                .map(this::getPersonFromLineWithValidation)
-                .toList();
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform has to support SHA-256
+            throw new IllegalStateException(ex);
         }
-        logger.info("Getting persons without validation of file");
-        return fileLines.stream()
-            .map(this::getPersonFromLine)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .toList();
-    }
-
-    @SneakyThrows(InvalidFileException.class)
-    private PersonDto getPersonFromLineWithValidation(String line) {
-        var person = getPersonFromLine(line);
-        return person.orElseThrow(() -> new InvalidFileException(String.format("Line invalid: %s", line)));
-    }
-
-    private Optional<PersonDto> getPersonFromLine(String line) {
-        var pattern = Pattern.compile(LINE_MATCHING_PATTERN);
-        var matcher = pattern.matcher(line);
-        if (matcher.find()) {
-            var name = matcher.group(1);
-            var transport = matcher.group(2);
-            var topSpeed = matcher.group(3);
-            return Optional.of(new PersonDto(name, transport, topSpeed));
+    }
+
+    // What a decoder throws for a compressed file that is corrupt or cut short
+    private static InvalidFileException notDecompressed(IOException ex) {
+        return new InvalidFileException(String.format("File could not be decompressed: %s", ex.getMessage()));
+    }
+
+    private void validateFile(MultipartFile file) throws IOException, InvalidFileException {
+        logger.info("Validating file");
+        var lineParser = new PersonLineParser();
+        var phaseTimes = new PhaseTimes();
+        try (var lineReader = new LineReader(phaseTimes.timeReads(Compression.open(file.getInputStream(), file.getContentType())))) {
+            while (lineReader.nextLine()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("Interrupted while validating file");
+                }
+                phaseTimes.startLine();
+                var valid = !lineReader.lineTooLong() && lineParser.parse(lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd());
+                phaseTimes.lineParsed();
+                if (!valid) {
+                    processingMetrics.countLines(0, 1);
+                    throw new InvalidFileException(String.format("Line invalid: %s", lineReader.line()));
+                }
+            }
+        } catch (ZipException | ZstdIOException | EOFException ex) {
+            throw notDecompressed(ex);
+        } finally {
+            processingMetrics.recordValidation(phaseTimes);
+        }
+    }
+
+    private void writePersons(MultipartFile file, OutputStream outputStream, OutputFormat format, boolean reportInvalidLines,
+                              RejectReport rejectReport, SpeedStats speedStats, ProcessingProgress progress) throws IOException {
+        logger.info("Writing persons from file");
+        var lineParser = new PersonLineParser();
+        var lineNumber = 0L;
+        var invalidLines = 0L;
+        var nextFlush = System.nanoTime();
+        var phaseTimes = new PhaseTimes();
+        try (var lineReader = new LineReader(phaseTimes.timeReads(Compression.open(file.getInputStream(), file.getContentType())))) {
+            var sections = rejectReport != null || speedStats != null;
+            if (sections) {
+                format.writeSectionsHeader(outputStream);
+            } else {
+                format.writeHeader(outputStream);
+            }
+            try (var generator = format.createGenerator(objectMapper, outputStream)) {
+                while (lineReader.nextLine()) {
+                    lineNumber++;
+                    phaseTimes.startLine();
+                    var valid = !lineReader.lineTooLong() && lineParser.parse(lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd());
+                    phaseTimes.lineParsed();
+                    if (valid) {
+                        var person = lineParser.toPerson();
+                        format.writePerson(personWriter, generator, person);
+                        if (speedStats != null) {
+                            speedStats.add(person.transport(), lineParser.topSpeedTenths());
+                        }
+                        phaseTimes.lineSerialized();
+                        if (System.nanoTime() - nextFlush >= 0) {
+                            generator.flush();
+                            nextFlush = System.nanoTime() + streamFlushIntervalNanos;
+                        }
+                    } else {
+                        invalidLines++;
+                        if (rejectReport != null) {
+                            var reason = lineReader.lineTooLong() ? RejectReason.LINE_TOO_LONG : lineParser.rejectReason();
+                            rejectReport.reject(lineNumber, reason, lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd());
+                        } else if (reportInvalidLines) {
+                            format.writeInvalidLine(generator, lineNumber, lineReader.line());
+                            break;
+                        }
+                    }
+                    if ((lineNumber & PROGRESS_LINE_MASK) == 0) {
+                        progress.report(lineNumber, invalidLines);
+                    }
+                }
+            }
+            if (sections) {
+                format.writeSections(objectMapper, outputStream, rejectReport != null ? rejectReport.toDto() : null,
+                    speedStats != null ? speedStats.toDto() : null);
+            } else {
+                format.writeFooter(outputStream);
+            }
+        } finally {
+            processingMetrics.recordWrite(phaseTimes);
+            processingMetrics.countLines(lineNumber - invalidLines, invalidLines);
         }
-        return Optional.empty();
+        progress.report(lineNumber, invalidLines);
     }
 }
@@ -0,0 +1,90 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import com.diveshjina.giftandgo.test.fileprocessor.client.IPAPIClient;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.IpDetailsCacheProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Bounded cache in front of {@link IPAPIClient}. Concurrent lookups of the same IP share a single
+ * call, and failed lookups are remembered for a shorter time so a struggling ip-api is not retried
+ * on every request. The call is made on the thread that missed, outside the cache's locks, so a
+ * slow ip-api never pins the carrier of a virtual thread. It is the last {@link IpDetailsProvider}
+ * asked, and always has an answer or fails.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class IpDetailsCache implements IpDetailsProvider {
+    private final IPAPIClient ipApiClient;
+    private final AsyncCache<String, IpLookup> cache;
+
+    public IpDetailsCache(IPAPIClient ipApiClient, IpDetailsCacheProperties ipDetailsCacheProperties, MeterRegistry meterRegistry) {
+        this.ipApiClient = ipApiClient;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(ipDetailsCacheProperties.maxSize())
+            .expireAfter(new IpLookupExpiry(ipDetailsCacheProperties.ttl().toNanos(), ipDetailsCacheProperties.negativeTtl().toNanos()))
+            .recordStats()
+            .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "ipDetails");
+    }
+
+    @Override
+    public IpDetailsDto getIpDetails(String ip) {
+        var pending = new CompletableFuture<IpLookup>();
+        var future = cache.get(ip, (key, executor) -> pending);
+        if (future == pending) {
+            try {
+                pending.complete(lookUp(ip));
+            } catch (Error ex) {
+                // Lookups waiting on this one must not wait forever
+                pending.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        var lookup = future.join();
+        if (lookup.failure() != null) {
+            throw lookup.failure();
+        }
+        return lookup.ipDetails();
+    }
+
+    private IpLookup lookUp(String ip) {
+        try {
+            return new IpLookup(ipApiClient.getIpDetails(ip), null);
+        } catch (RuntimeException ex) {
+            return new IpLookup(null, ex);
+        }
+    }
+
+    private record IpLookup(IpDetailsDto ipDetails, RuntimeException failure) {
+    }
+
+    private record IpLookupExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<String, IpLookup> {
+
+        @Override
+        public long expireAfterCreate(String ip, IpLookup lookup, long currentTime) {
+            return lookup.failure() == null ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String ip, IpLookup lookup, long currentTime, long currentDuration) {
+            return expireAfterCreate(ip, lookup, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String ip, IpLookup lookup, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+
+/**
+ * A source of the country, ISP and autonomous system of an IP. Providers are asked in their
+ * {@link org.springframework.core.annotation.Order order} until one knows the IP, with ip-api last.
+ */
+public interface IpDetailsProvider {
+
+    /**
+     * The details of the IP, or {@code null} if this provider does not know it and the next one should be asked.
+     */
+    IpDetailsDto getIpDetails(String ip);
+}
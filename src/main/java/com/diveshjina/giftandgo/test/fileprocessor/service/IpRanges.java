@@ -0,0 +1,155 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+
+/**
+ * A set of CIDR ranges, IPv4 and IPv6 alike, looked up with a binary search. Addresses are held as
+ * 16 bytes, IPv4 ones mapped into {@code ::ffff:0:0/96}, and the ranges are sorted and merged when the
+ * set is built so each address falls in at most one of them.
+ */
+final class IpRanges {
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    // Hex digits, colons and dots for an embedded IPv4 address, then an optional zone
+    private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9A-Fa-f:.]*:[0-9A-Fa-f:.]*(%[0-9A-Za-z._-]+)?");
+    private static final int MAPPED_IPV4_PREFIX = 96;
+
+    private final byte[][] starts;
+    private final byte[][] ends;
+
+    private IpRanges(byte[][] starts, byte[][] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * The ranges given as CIDR blocks or single addresses.
+     *
+     * @throws IllegalArgumentException if any of them is not an IP address or CIDR block
+     */
+    static IpRanges of(Collection<String> cidrs) {
+        var ranges = new ArrayList<byte[][]>(cidrs.size());
+        for (var cidr : cidrs) {
+            ranges.add(range(cidr.strip()));
+        }
+        ranges.sort(Comparator.comparing(range -> range[0], Arrays::compareUnsigned));
+        var starts = new ArrayList<byte[]>();
+        var ends = new ArrayList<byte[]>();
+        for (var range : ranges) {
+            var last = ends.size() - 1;
+            if (last >= 0 && Arrays.compareUnsigned(range[0], ends.get(last)) <= 0) {
+                if (Arrays.compareUnsigned(range[1], ends.get(last)) > 0) {
+                    ends.set(last, range[1]);
+                }
+            } else {
+                starts.add(range[0]);
+                ends.add(range[1]);
+            }
+        }
+        return new IpRanges(starts.toArray(byte[][]::new), ends.toArray(byte[][]::new));
+    }
+
+    boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * Whether the address is in one of the ranges. Anything that is not an IP address is not.
+     */
+    boolean contains(String ip) {
+        if (isEmpty()) {
+            return false;
+        }
+        var address = parseAddress(ip);
+        if (address == null) {
+            return false;
+        }
+        // The last range starting at or before the address is the only one that can hold it
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(starts[middle], address) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high >= 0 && Arrays.compareUnsigned(address, ends[high]) <= 0;
+    }
+
+    private static byte[][] range(String cidr) {
+        var slash = cidr.indexOf('/');
+        var literal = slash < 0 ? cidr : cidr.substring(0, slash);
+        var address = parseAddress(literal);
+        if (address == null) {
+            throw notCidr(cidr);
+        }
+        var minPrefixLength = IPV4_LITERAL.matcher(literal).matches() ? MAPPED_IPV4_PREFIX : 0;
+        var prefixLength = address.length * 8;
+        if (slash >= 0) {
+            try {
+                prefixLength = minPrefixLength + Integer.parseInt(cidr.substring(slash + 1));
+            } catch (NumberFormatException ex) {
+                throw notCidr(cidr);
+            }
+            if (prefixLength < minPrefixLength || prefixLength > address.length * 8) {
+                throw notCidr(cidr);
+            }
+        }
+        var start = address.clone();
+        var end = address.clone();
+        for (var bit = prefixLength; bit < address.length * 8; bit++) {
+            var mask = (byte) (0x80 >>> (bit & 7));
+            start[bit >>> 3] &= (byte) ~mask;
+            end[bit >>> 3] |= mask;
+        }
+        return new byte[][] {start, end};
+    }
+
+    private static IllegalArgumentException notCidr(String cidr) {
+        return new IllegalArgumentException(String.format("Not an IP address or CIDR block: %s", cidr));
+    }
+
+    // Only literals are parsed, so nothing here ever waits on DNS
+    private static byte[] parseAddress(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        if (IPV4_LITERAL.matcher(ip).matches()) {
+            var octets = ip.split("\\.");
+            var address = new byte[4];
+            for (var i = 0; i < 4; i++) {
+                var octet = Integer.parseInt(octets[i]);
+                if (octet > 255) {
+                    return null;
+                }
+                address[i] = (byte) octet;
+            }
+            return mapped(address);
+        }
+        // Anything else would be taken by InetAddress as a host name to look up
+        if (!IPV6_LITERAL.matcher(ip).matches()) {
+            return null;
+        }
+        try {
+            var address = InetAddress.getByName(ip).getAddress();
+            return address.length == 16 ? address : mapped(address);
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+    }
+
+    private static byte[] mapped(byte[] ipv4Address) {
+        var address = new byte[16];
+        address[10] = (byte) 0xFF;
+        address[11] = (byte) 0xFF;
+        System.arraycopy(ipv4Address, 0, address, 12, 4);
+        return address;
+    }
+}
@@ -0,0 +1,209 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.JobProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.JobDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.TooManyJobsException;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.Job;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.JobRepository;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.JobStatus;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.TimeOrderedUuids;
+
+/**
+ * Processes uploads in the background so a large file does not hold a request open. Uploads and
+ * results are spooled to {@code jobs.directory} on local disk and the state of each job is kept in
+ * the {@code jobs} table. Jobs run on {@code jobs.workers} threads with at most
+ * {@code jobs.queue-capacity} waiting, the progress of running jobs is written to their rows every
+ * {@code jobs.progress-interval}, and finished jobs are removed after {@code jobs.retention}.
+ */
+@Service
+public class JobService {
+    private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+    private static final int RESULT_BUFFER_SIZE = 64 * 1024;
+    private static final String WORKER_THREAD_PREFIX = "job-worker-";
+
+    private final FileProcessorService fileProcessorService;
+    private final JobRepository jobRepository;
+    private final Path directory;
+    private final Duration retention;
+    private final Clock clock;
+    private final ThreadPoolExecutor workers;
+    private final Map<UUID, ProcessingProgress> runningJobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JobService(FileProcessorService fileProcessorService, JobRepository jobRepository, JobProperties jobProperties, Environment environment)
+        throws IOException {
+        this(fileProcessorService, jobRepository, jobProperties, Clock.systemDefaultZone(), WorkerThreads.factory(environment, WORKER_THREAD_PREFIX));
+    }
+
+    JobService(FileProcessorService fileProcessorService, JobRepository jobRepository, JobProperties jobProperties, Clock clock,
+               ThreadFactory threadFactory) throws IOException {
+        this.fileProcessorService = fileProcessorService;
+        this.jobRepository = jobRepository;
+        this.directory = Files.createDirectories(jobProperties.directory());
+        this.retention = jobProperties.retention();
+        this.clock = clock;
+        this.workers = new ThreadPoolExecutor(jobProperties.workers(), jobProperties.workers(), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(jobProperties.queueCapacity()), threadFactory);
+    }
+
+    // Nothing is left to finish the jobs a previous run of the service was still working on
+    @PostConstruct
+    public void failUnfinishedJobs() {
+        for (var job : jobRepository.findByStatusIn(List.of(JobStatus.QUEUED, JobStatus.RUNNING))) {
+            logger.warn("Failing job {} left unfinished by a restart", job.getJobId());
+            jobRepository.finish(job.getJobId(), JobStatus.FAILED, job.getLinesProcessed(), job.getInvalidLines(),
+                "Interrupted by a restart", now());
+            deleteFiles(job.getJobId());
+        }
+    }
+
+    public JobDto submit(MultipartFile file, boolean validate, boolean report, boolean stats, OutputFormat format)
+        throws IOException, TooManyJobsException {
+        var jobId = TimeOrderedUuids.next();
+        var upload = uploadPath(jobId);
+        SpooledFile.spool(file, upload);
+        var job = new Job(jobId, JobStatus.QUEUED, Objects.requireNonNullElse(file.getOriginalFilename(), ""), format.name(), validate,
+            0, 0, null, now(), null);
+        try {
+            jobRepository.save(job);
+            var jobFile = new SpooledFile(upload, job.getFileName(), file.getContentType());
+            workers.execute(() -> run(jobId, jobFile, validate, report, stats, format));
+        } catch (RejectedExecutionException ex) {
+            jobRepository.deleteById(jobId);
+            Files.deleteIfExists(upload);
+            throw new TooManyJobsException("Too many jobs waiting, try again later");
+        } catch (RuntimeException ex) {
+            Files.deleteIfExists(upload);
+            throw ex;
+        }
+        logger.info("Queued job {} for file {}", jobId, job.getFileName());
+        return toJobDto(job);
+    }
+
+    public Optional<JobDto> findJob(UUID jobId) {
+        return jobRepository.findById(jobId).map(JobService::toJobDto);
+    }
+
+    /**
+     * The result of a job that has succeeded, unless it has since been removed.
+     */
+    public Optional<Path> findResult(UUID jobId) {
+        var result = resultPath(jobId);
+        return jobRepository.findById(jobId)
+            .filter(job -> job.getStatus() == JobStatus.SUCCEEDED && Files.exists(result))
+            .map(job -> result);
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.progress-interval}")
+    public void publishProgress() {
+        runningJobs.forEach((jobId, progress) -> jobRepository.updateProgress(jobId, progress.linesProcessed(), progress.invalidLines()));
+    }
+
+    @Scheduled(cron = "${jobs.cleanup-cron}")
+    public void removeExpiredJobs() {
+        var cutoff = Timestamp.valueOf(LocalDateTime.now(clock).minus(retention));
+        for (var job : jobRepository.findByFinishedTimestampBefore(cutoff)) {
+            deleteFiles(job.getJobId());
+            jobRepository.deleteById(job.getJobId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void run(UUID jobId, SpooledFile file, boolean validate, boolean report, boolean stats, OutputFormat format) {
+        var progress = new ProcessingProgress();
+        runningJobs.put(jobId, progress);
+        var status = JobStatus.FAILED;
+        String error = null;
+        try {
+            jobRepository.markRunning(jobId);
+            logger.info("Running job {}", jobId);
+            try (var outcomeFile = fileProcessorService.processFile(file, validate, report, stats, format, progress);
+                 var outputStream = new BufferedOutputStream(Files.newOutputStream(resultPath(jobId)), RESULT_BUFFER_SIZE)) {
+                outcomeFile.writeTo(outputStream);
+            }
+            status = JobStatus.SUCCEEDED;
+        } catch (InvalidFileException ex) {
+            error = ex.getMessage();
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Job {} failed", jobId, ex);
+            error = "Failed to process file";
+        } finally {
+            runningJobs.remove(jobId);
+            deleteFile(uploadPath(jobId));
+            if (status != JobStatus.SUCCEEDED) {
+                deleteFile(resultPath(jobId));
+            }
+            jobRepository.finish(jobId, status, progress.linesProcessed(), progress.invalidLines(), truncate(error), now());
+            logger.info("Job {} {}", jobId, status);
+        }
+    }
+
+    private static JobDto toJobDto(Job job) {
+        return new JobDto(job.getJobId(), job.getStatus().name(), job.getOutputFormat(), job.getLinesProcessed(), job.getInvalidLines(), job.getError());
+    }
+
+    private Path uploadPath(UUID jobId) {
+        return directory.resolve(jobId + ".upload");
+    }
+
+    private Path resultPath(UUID jobId) {
+        return directory.resolve(jobId + ".result");
+    }
+
+    private void deleteFiles(UUID jobId) {
+        deleteFile(uploadPath(jobId));
+        deleteFile(resultPath(jobId));
+    }
+
+    private static void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            logger.warn("Failed to delete {}", path, ex);
+        }
+    }
+
+    private Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now(clock));
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= Job.MAX_ERROR_LENGTH ? error : error.substring(0, Job.MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,186 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.IpDatabaseProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+
+/**
+ * Looks IPs up in a local database of IPv4 ranges, asked before ip-api. A lookup is a binary search
+ * over primitive arrays and allocates nothing. The database is a CSV file read at startup, one range
+ * per line as {@code first,last,countryCode,country,isp[,as]}, with the addresses dotted or as numbers.
+ * Lines starting with {@code #} are skipped, and so are IPv6 ranges, which leaves IPv6 addresses to ip-api.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "ip-database.file")
+public class LocalIpDatabase implements IpDetailsProvider {
+    private static final Logger logger = LoggerFactory.getLogger(LocalIpDatabase.class);
+    private static final int MIN_FIELDS = 5;
+
+    // Sorted, non-overlapping ranges; the addresses are unsigned
+    private final int[] firsts;
+    private final int[] lasts;
+    // Many ranges share their details, so each range holds an index into details
+    private final int[] detailIndexes;
+    private final IpDetailsDto[] details;
+
+    public LocalIpDatabase(IpDatabaseProperties ipDatabaseProperties) throws IOException {
+        var file = ipDatabaseProperties.file();
+        var ranges = new ArrayList<long[]>();
+        var detailIndexByDetails = new HashMap<IpDetailsDto, Integer>();
+        var detailList = new ArrayList<IpDetailsDto>();
+        var skippedLines = 0;
+        try (var reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            var lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                var fields = fields(line);
+                if (fields.size() < MIN_FIELDS) {
+                    throw new IllegalArgumentException(String.format("Expected %d fields or more on line %d: %s", MIN_FIELDS, lineNumber, line));
+                }
+                if (fields.get(0).indexOf(':') >= 0) {
+                    skippedLines++;
+                    continue;
+                }
+                var first = address(fields.get(0));
+                var last = address(fields.get(1));
+                if (first < 0 || last < first) {
+                    throw new IllegalArgumentException(String.format("Not an IPv4 range on line %d: %s", lineNumber, line));
+                }
+                var ipDetails = new IpDetailsDto(fields.get(3), fields.get(4), fields.get(2), fields.size() > MIN_FIELDS ? fields.get(MIN_FIELDS) : "");
+                var detailIndex = detailIndexByDetails.computeIfAbsent(ipDetails, key -> {
+                    detailList.add(key);
+                    return detailList.size() - 1;
+                });
+                ranges.add(new long[] {first, last, detailIndex});
+            }
+        }
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        firsts = new int[ranges.size()];
+        lasts = new int[ranges.size()];
+        detailIndexes = new int[ranges.size()];
+        for (var i = 0; i < ranges.size(); i++) {
+            var range = ranges.get(i);
+            if (i > 0 && range[0] <= Integer.toUnsignedLong(lasts[i - 1])) {
+                throw new IllegalArgumentException(String.format("Range starting at %s overlaps the one before it", toDotted(range[0])));
+            }
+            firsts[i] = (int) range[0];
+            lasts[i] = (int) range[1];
+            detailIndexes[i] = (int) range[2];
+        }
+        details = detailList.toArray(IpDetailsDto[]::new);
+        logger.info("Loaded {} IP ranges from {}, skipping {} IPv6 ones", firsts.length, file, skippedLines);
+    }
+
+    @Override
+    public IpDetailsDto getIpDetails(String ip) {
+        var address = ipv4(ip);
+        if (address < 0) {
+            return null;
+        }
+        var key = (int) address;
+        // The last range starting at or before the address is the only one that can hold it
+        int low = 0;
+        int high = firsts.length - 1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            if (Integer.compareUnsigned(firsts[middle], key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high >= 0 && Integer.compareUnsigned(key, lasts[high]) <= 0 ? details[detailIndexes[high]] : null;
+    }
+
+    /**
+     * The dotted IPv4 address as an unsigned number, or -1 if it is not one. Parsed by hand so a lookup allocates nothing.
+     */
+    static long ipv4(String ip) {
+        if (ip == null) {
+            return -1;
+        }
+        long address = 0;
+        var octet = 0;
+        var digits = 0;
+        var dots = 0;
+        for (var i = 0; i < ip.length(); i++) {
+            var c = ip.charAt(i);
+            if (c == '.' && digits > 0 && dots < 3) {
+                address = address << 8 | octet;
+                octet = 0;
+                digits = 0;
+                dots++;
+            } else if (c >= '0' && c <= '9' && digits < 3) {
+                octet = octet * 10 + c - '0';
+                digits++;
+                if (octet > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        return digits > 0 && dots == 3 ? address << 8 | octet : -1;
+    }
+
+    // Some databases give addresses dotted, others as numbers
+    private static long address(String field) {
+        var address = ipv4(field);
+        if (address >= 0) {
+            return address;
+        }
+        try {
+            address = Long.parseLong(field);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+        return address <= 0xFFFFFFFFL ? address : -1;
+    }
+
+    // Fields may be quoted, as ISP names often hold commas, with "" for a quote inside one
+    private static List<String> fields(String line) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        for (var i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (c == '"' && quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String toDotted(long address) {
+        return String.format("%d.%d.%d.%d", address >>> 24, address >>> 16 & 0xFF, address >>> 8 & 0xFF, address & 0xFF);
+    }
+}
@@ -0,0 +1,17 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * A processed file that is ready to be streamed. Writing it releases whatever it holds on to, and
+ * an outcome file that is never written must be closed instead.
+ */
+public interface OutcomeFile extends StreamingResponseBody, Closeable {
+
+    @Override
+    default void close() throws IOException {
+    }
+}
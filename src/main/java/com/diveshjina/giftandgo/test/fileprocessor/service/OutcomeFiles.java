@@ -0,0 +1,48 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands outcome files over from the task processing them to whoever streams them. Whichever of
+ * {@link #complete} and {@link #discard} loses the race on the future is left to close the outcome
+ * file, so it is closed once whether or not it is ever streamed.
+ */
+public final class OutcomeFiles {
+    private static final Logger logger = LoggerFactory.getLogger(OutcomeFiles.class);
+
+    private OutcomeFiles() {
+    }
+
+    /**
+     * Completes {@code outcomeFile} with the processed file, or closes the processed file if the
+     * outcome file has been discarded already.
+     */
+    public static void complete(CompletableFuture<OutcomeFile> outcomeFile, OutcomeFile processedFile) {
+        if (!outcomeFile.complete(processedFile)) {
+            close(processedFile);
+        }
+    }
+
+    /**
+     * Cancels the processing, and closes the outcome file if it has been completed already.
+     */
+    public static void discard(CompletableFuture<OutcomeFile> outcomeFile, Future<?> processing) {
+        processing.cancel(true);
+        if (!outcomeFile.cancel(false) && !outcomeFile.isCompletedExceptionally() && outcomeFile.join() != null) {
+            close(outcomeFile.join());
+        }
+    }
+
+    private static void close(OutcomeFile outcomeFile) {
+        try {
+            outcomeFile.close();
+        } catch (IOException ex) {
+            logger.warn("Failed to discard processed file", ex);
+        }
+    }
+}
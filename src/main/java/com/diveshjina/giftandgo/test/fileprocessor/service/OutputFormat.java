@@ -0,0 +1,191 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.RejectReportDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.TransportStatsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonColumns;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * The encodings the persons of an outcome file can be written in. Each is a header, the persons
+ * one after another and a footer, so any run of persons can be encoded on its own and the runs
+ * joined with {@link #separator()}.
+ * <p>
+ * NDJSON is streamed without validating the file first, so the first person is sent straight away.
+ * If validation is on and a line turns out to be invalid, the response, already a 200, ends with
+ * the record {@code {"error":"Line invalid: ...","line":n}} in place of any further persons.
+ * <p>
+ * In report mode the persons are followed by a report of the lines rejected, as
+ * {@code {"persons":[...],"report":{...}}}, or for NDJSON a final {@code {"report":{...}}} record.
+ * The stats section follows the persons the same way, after any report.
+ */
+public enum OutputFormat {
+    JSON(MediaType.APPLICATION_JSON, bytes("["), bytes(","), bytes("]"), null),
+    NDJSON(MediaType.APPLICATION_NDJSON, new byte[0], new byte[0], new byte[0], "\n"),
+    // An indefinite-length array, so the number of persons need not be known up front
+    CBOR(MediaType.valueOf("application/cbor"), new byte[] {(byte) 0x9F}, new byte[0], new byte[] {(byte) 0xFF}, null);
+
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+    // An indefinite-length map holding "persons" as an indefinite-length array, then the sections
+    private static final byte[] CBOR_SECTIONS_HEADER = {(byte) 0xBF, 0x67, 'p', 'e', 'r', 's', 'o', 'n', 's', (byte) 0x9F};
+    private static final byte CBOR_BREAK = (byte) 0xFF;
+    private static final int CBOR_TEXT_STRING = 0x60;
+
+    private final MediaType mediaType;
+    private final byte[] header;
+    private final byte[] separator;
+    private final byte[] footer;
+    private final String terminator;
+    private final SerializedString rootValueSeparator;
+
+    OutputFormat(MediaType mediaType, byte[] header, byte[] separator, byte[] footer, String terminator) {
+        this.mediaType = mediaType;
+        this.header = header;
+        this.separator = separator;
+        this.footer = footer;
+        this.terminator = terminator;
+        this.rootValueSeparator = separator.length > 0 ? new SerializedString(new String(separator, StandardCharsets.UTF_8)) : null;
+    }
+
+    /**
+     * The format with the given name, ignoring case.
+     */
+    public static Optional<OutputFormat> named(String name) {
+        return Arrays.stream(values())
+            .filter(outputFormat -> outputFormat.name().equalsIgnoreCase(name))
+            .findFirst();
+    }
+
+    public static List<MediaType> mediaTypes() {
+        return Arrays.stream(values()).map(OutputFormat::mediaType).toList();
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public void writeHeader(OutputStream outputStream) throws IOException {
+        outputStream.write(header);
+    }
+
+    public byte[] separator() {
+        return separator;
+    }
+
+    public void writeFooter(OutputStream outputStream) throws IOException {
+        outputStream.write(footer);
+    }
+
+    public void writeSectionsHeader(OutputStream outputStream) throws IOException {
+        outputStream.write(switch (this) {
+            case JSON -> bytes("{\"persons\":[");
+            case NDJSON -> header;
+            case CBOR -> CBOR_SECTIONS_HEADER;
+        });
+    }
+
+    /**
+     * Ends an outcome file started with {@link #writeSectionsHeader(OutputStream)} with the report of its
+     * rejected lines and its stats, leaving out either that is {@code null}.
+     */
+    public void writeSections(ObjectMapper objectMapper, OutputStream outputStream, RejectReportDto report, Map<String, TransportStatsDto> stats)
+        throws IOException {
+        if (this == JSON) {
+            outputStream.write(']');
+        } else if (this == CBOR) {
+            outputStream.write(CBOR_BREAK);
+        }
+        writeSection(objectMapper, outputStream, "report", report);
+        writeSection(objectMapper, outputStream, "stats", stats);
+        if (this == JSON) {
+            outputStream.write('}');
+        } else if (this == CBOR) {
+            outputStream.write(CBOR_BREAK);
+        }
+    }
+
+    private void writeSection(ObjectMapper objectMapper, OutputStream outputStream, String name, Object section) throws IOException {
+        if (section == null) {
+            return;
+        }
+        outputStream.write(switch (this) {
+            case JSON -> bytes(",\"" + name + "\":");
+            case NDJSON -> bytes("{\"" + name + "\":");
+            // Section names are short enough for the length to fit in the type byte
+            case CBOR -> cborTextString(name);
+        });
+        try (var generator = createGenerator(objectMapper, outputStream)) {
+            objectMapper.writeValue(generator, section);
+        }
+        if (this == NDJSON) {
+            outputStream.write(bytes("}\n"));
+        }
+    }
+
+    /**
+     * A generator for a run of persons, which leaves the output stream open when closed.
+     */
+    public JsonGenerator createGenerator(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        if (this == CBOR) {
+            // Binary root values follow each other without a separator
+            return CBOR_FACTORY.createGenerator(outputStream).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+        var generator = objectMapper.getFactory().createGenerator(outputStream).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(rootValueSeparator);
+        return generator;
+    }
+
+    public boolean reportsInvalidLines() {
+        return this == NDJSON;
+    }
+
+    public void writeInvalidLine(JsonGenerator generator, long lineNumber, String line) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", String.format("Line invalid: %s", line));
+        generator.writeNumberField("line", lineNumber);
+        generator.writeEndObject();
+        if (terminator != null) {
+            generator.writeRaw(terminator);
+        }
+    }
+
+    public void writePerson(ObjectWriter personWriter, JsonGenerator generator, PersonDto person) throws IOException {
+        personWriter.writeValue(generator, person);
+        if (terminator != null) {
+            generator.writeRaw(terminator);
+        }
+    }
+
+    public void writePerson(JsonGenerator generator, PersonColumns persons, int index) throws IOException {
+        persons.writePerson(index, generator);
+        if (terminator != null) {
+            generator.writeRaw(terminator);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] cborTextString(String value) {
+        var text = bytes(value);
+        var textString = new byte[text.length + 1];
+        textString[0] = (byte) (CBOR_TEXT_STRING + text.length);
+        System.arraycopy(text, 0, textString, 1, text.length);
+        return textString;
+    }
+}
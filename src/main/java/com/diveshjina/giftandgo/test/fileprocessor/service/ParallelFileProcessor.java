@@ -0,0 +1,315 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.ChunkReader;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.LineReader;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonColumns;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonLineParser;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.RejectReason;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Parses large files on a ForkJoin pool. The file is mapped and cut into chunks of whole lines,
+ * each chunk is parsed straight from the mapping and serialized on the pool, and the results are
+ * consumed in file order with a bounded number of chunks in flight so memory use does not grow with
+ * the file.
+ */
+@Component
+public class ParallelFileProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelFileProcessor.class);
+
+    private final ObjectMapper objectMapper;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+
+    public ParallelFileProcessor(ObjectMapper objectMapper, ParsingProperties parsingProperties) {
+        this.objectMapper = objectMapper;
+        var parallelism = parsingProperties.parallelism() > 0
+            ? parsingProperties.parallelism()
+            : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = (int) parsingProperties.chunkSize().toBytes();
+        this.maxChunksInFlight = parallelism * 2;
+    }
+
+    public void validateFile(FileChannel channel, PhaseTimes phaseTimes) throws IOException, InvalidFileException {
+        logger.info("Validating file in parallel");
+        var pending = new ArrayDeque<Future<CheckedChunk>>();
+        try {
+            var chunkReader = new ChunkReader(channel, chunkSize);
+            ByteBuffer chunk;
+            while ((chunk = nextChunk(chunkReader, phaseTimes)) != null) {
+                var parsedChunk = chunk;
+                pending.add(pool.submit(() -> findInvalidLine(parsedChunk)));
+                if (pending.size() >= maxChunksInFlight) {
+                    checkChunk(await(pending.poll()), phaseTimes);
+                }
+            }
+            while (!pending.isEmpty()) {
+                checkChunk(await(pending.poll()), phaseTimes);
+            }
+        } finally {
+            cancel(pending);
+        }
+    }
+
+    // Once persons are being written the outcome can no longer be turned into a failed request
+    private static ByteBuffer nextChunkToWrite(ChunkReader chunkReader, PhaseTimes phaseTimes) throws IOException {
+        try {
+            return nextChunk(chunkReader, phaseTimes);
+        } catch (InvalidFileException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Writes the persons of a file. With a {@code rejectReport} the persons are followed by the report
+     * of the lines rejected, which are otherwise skipped or, with {@code reportInvalidLines}, end the file,
+     * and with {@code speedStats} by the stats of the persons written.
+     */
+    public void writePersons(FileChannel channel, OutputStream outputStream, OutputFormat format, boolean reportInvalidLines,
+                             RejectReport rejectReport, SpeedStats speedStats, ProcessingProgress progress, PhaseTimes phaseTimes)
+        throws IOException {
+        logger.info("Writing persons from file in parallel");
+        var pending = new ArrayDeque<Future<SerializedChunk>>();
+        try {
+            var chunkReader = new ChunkReader(channel, chunkSize);
+            var chunkWriter = new ChunkWriter(outputStream, format, rejectReport, speedStats, progress, phaseTimes);
+            var sections = rejectReport != null || speedStats != null;
+            if (sections) {
+                format.writeSectionsHeader(outputStream);
+            } else {
+                format.writeHeader(outputStream);
+            }
+            ByteBuffer chunk;
+            while (!chunkWriter.stopped && (chunk = nextChunkToWrite(chunkReader, phaseTimes)) != null) {
+                var parsedChunk = chunk;
+                var chunkReport = rejectReport != null ? rejectReport.forChunk() : null;
+                var chunkStats = speedStats != null ? new SpeedStats() : null;
+                pending.add(pool.submit(() -> serializePersons(parsedChunk, format, reportInvalidLines, chunkReport, chunkStats)));
+                if (pending.size() >= maxChunksInFlight) {
+                    chunkWriter.write(await(pending.poll()));
+                }
+            }
+            while (!chunkWriter.stopped && !pending.isEmpty()) {
+                chunkWriter.write(await(pending.poll()));
+            }
+            if (sections) {
+                format.writeSections(objectMapper, outputStream, rejectReport != null ? rejectReport.toDto() : null,
+                    speedStats != null ? speedStats.toDto() : null);
+            } else {
+                format.writeFooter(outputStream);
+            }
+        } finally {
+            cancel(pending);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Only maps the next chunk; its pages are read in as it is parsed
+    private static ByteBuffer nextChunk(ChunkReader chunkReader, PhaseTimes phaseTimes) throws IOException, InvalidFileException {
+        var start = System.nanoTime();
+        try {
+            return chunkReader.nextChunk();
+        } finally {
+            phaseTimes.addRead(start);
+        }
+    }
+
+    private CheckedChunk findInvalidLine(ByteBuffer chunk) {
+        var lineParser = new PersonLineParser();
+        var phaseTimes = new PhaseTimes();
+        var lineStart = 0;
+        while (lineStart < chunk.limit()) {
+            var lineEnd = lineEnd(chunk, lineStart);
+            phaseTimes.startLine();
+            var valid = !tooLong(lineStart, lineEnd) && lineParser.parse(chunk, lineStart, lineEnd);
+            phaseTimes.lineParsed();
+            if (!valid) {
+                return new CheckedChunk(decodeLine(chunk, lineStart, lineEnd), phaseTimes);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return new CheckedChunk(null, phaseTimes);
+    }
+
+    // Line numbers in the chunk's report count from the start of the chunk. The persons are parsed into
+    // columns first and then written from them, so none of them ever becomes a PersonDto.
+    private SerializedChunk serializePersons(ByteBuffer chunk, OutputFormat format, boolean reportInvalidLines, RejectReport rejectReport,
+                                             SpeedStats speedStats) {
+        var lineParser = new PersonLineParser();
+        var phaseTimes = new PhaseTimes();
+        // Names and top speeds are well under a quarter of a line
+        var persons = new PersonColumns(chunk.limit() / 4);
+        var lineCount = 0;
+        var invalidCount = 0;
+        String invalidLine = null;
+        var lineStart = 0;
+        while (lineStart < chunk.limit()) {
+            var lineEnd = lineEnd(chunk, lineStart);
+            lineCount++;
+            phaseTimes.startLine();
+            var tooLong = tooLong(lineStart, lineEnd);
+            var valid = !tooLong && lineParser.parse(chunk, lineStart, lineEnd);
+            if (valid) {
+                lineParser.appendTo(persons);
+                if (speedStats != null) {
+                    speedStats.add(lineParser.transport(), lineParser.topSpeedTenths());
+                }
+            }
+            phaseTimes.lineParsed();
+            if (!valid) {
+                invalidCount++;
+                if (rejectReport != null) {
+                    rejectReport.reject(lineCount, tooLong ? RejectReason.LINE_TOO_LONG : lineParser.rejectReason(), chunk, lineStart, lineEnd);
+                } else if (reportInvalidLines) {
+                    invalidLine = decodeLine(chunk, lineStart, lineEnd);
+                    break;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        var outputStream = new ByteArrayOutputStream(chunk.limit());
+        var serializeStart = System.nanoTime();
+        try (var generator = format.createGenerator(objectMapper, outputStream)) {
+            for (var i = 0; i < persons.size(); i++) {
+                format.writePerson(generator, persons, i);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        phaseTimes.addSerialize(serializeStart);
+        return new SerializedChunk(outputStream.toByteArray(), lineCount, invalidCount, invalidLine, rejectReport, speedStats, phaseTimes);
+    }
+
+    private static int lineEnd(ByteBuffer chunk, int lineStart) {
+        var lineEnd = lineStart;
+        while (lineEnd < chunk.limit() && chunk.get(lineEnd) != '\n') {
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+
+    // The same limit the sequential path's LineReader puts on a line, so both reject the same lines
+    private static boolean tooLong(int lineStart, int lineEnd) {
+        return lineEnd - lineStart > LineReader.DEFAULT_MAX_LINE_LENGTH;
+    }
+
+    // Cut to the longest line allowed, as LineReader hands over a line that is too long
+    private static String decodeLine(ByteBuffer chunk, int lineStart, int lineEnd) {
+        var line = new byte[Math.min(lineEnd - lineStart, LineReader.DEFAULT_MAX_LINE_LENGTH)];
+        chunk.get(lineStart, line);
+        return new String(line, StandardCharsets.UTF_8);
+    }
+
+    private static void checkChunk(CheckedChunk chunk, PhaseTimes phaseTimes) throws InvalidFileException {
+        phaseTimes.add(chunk.phaseTimes());
+        if (chunk.invalidLine() != null) {
+            throw new InvalidFileException(String.format("Line invalid: %s", chunk.invalidLine()));
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing file");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            throw new IllegalStateException("Failed to parse chunk of file", ex.getCause());
+        }
+    }
+
+    private static void cancel(Queue<? extends Future<?>> pending) {
+        pending.forEach(future -> future.cancel(true));
+    }
+
+    private record CheckedChunk(String invalidLine, PhaseTimes phaseTimes) {
+    }
+
+    // With invalidLine set, lineCount runs up to and including that line
+    private record SerializedChunk(byte[] persons, int lineCount, int invalidCount, String invalidLine, RejectReport rejectReport,
+                                   SpeedStats speedStats, PhaseTimes phaseTimes) {
+    }
+
+    // Writes chunks in file order, stopping after the first one that reports an invalid line
+    private class ChunkWriter {
+        private final OutputStream outputStream;
+        private final OutputFormat format;
+        private final RejectReport rejectReport;
+        private final SpeedStats speedStats;
+        private final ProcessingProgress progress;
+        private final PhaseTimes phaseTimes;
+        private boolean firstPerson = true;
+        private long linesWritten;
+        private long invalidLines;
+        private boolean stopped;
+
+        ChunkWriter(OutputStream outputStream, OutputFormat format, RejectReport rejectReport, SpeedStats speedStats,
+                    ProcessingProgress progress, PhaseTimes phaseTimes) {
+            this.outputStream = outputStream;
+            this.format = format;
+            this.rejectReport = rejectReport;
+            this.speedStats = speedStats;
+            this.progress = progress;
+            this.phaseTimes = phaseTimes;
+        }
+
+        void write(SerializedChunk chunk) throws IOException {
+            phaseTimes.add(chunk.phaseTimes());
+            if (chunk.persons().length > 0) {
+                if (!firstPerson) {
+                    outputStream.write(format.separator());
+                }
+                outputStream.write(chunk.persons());
+                firstPerson = false;
+            }
+            if (rejectReport != null) {
+                rejectReport.add(chunk.rejectReport(), linesWritten);
+            }
+            if (speedStats != null) {
+                speedStats.add(chunk.speedStats());
+            }
+            linesWritten += chunk.lineCount();
+            invalidLines += chunk.invalidCount();
+            if (chunk.invalidLine() != null) {
+                try (var generator = format.createGenerator(objectMapper, outputStream)) {
+                    format.writeInvalidLine(generator, linesWritten, chunk.invalidLine());
+                }
+                stopped = true;
+            }
+            // Each chunk reaches the client as soon as it is ready
+            outputStream.flush();
+            progress.report(linesWritten, invalidLines);
+        }
+    }
+}
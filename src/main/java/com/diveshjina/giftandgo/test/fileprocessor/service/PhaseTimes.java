@@ -0,0 +1,98 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Time a file spends being read, parsed and serialized. Reads are timed whole, as they come a
+ * buffer at a time, but parse and serialize are only timed on every sixteenth line and scaled up
+ * to the whole file, so timing a line does not cost as much as parsing it. Persons serialized a
+ * chunk at a time are timed whole too. Not thread safe; the
+ * times of chunks parsed on other threads are {@link #add added} once they are done.
+ */
+public class PhaseTimes {
+    private static final long SAMPLE_MASK = 16 - 1;
+
+    private long readNanos;
+    private long lines;
+    private long sampledLines;
+    private long parseNanos;
+    private long serializeNanos;
+    private long wholeSerializeNanos;
+    private boolean sampling;
+    private long mark;
+
+    long readNanos() {
+        return readNanos;
+    }
+
+    long parseNanos() {
+        return scaled(parseNanos);
+    }
+
+    long serializeNanos() {
+        return scaled(serializeNanos) + wholeSerializeNanos;
+    }
+
+    void addRead(long startNanos) {
+        readNanos += System.nanoTime() - startNanos;
+    }
+
+    void addSerialize(long startNanos) {
+        wholeSerializeNanos += System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Wraps a stream so the time spent in its reads is counted as reading.
+     */
+    InputStream timeReads(InputStream inputStream) {
+        return new FilterInputStream(inputStream) {
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                var start = System.nanoTime();
+                try {
+                    return super.read(buffer, offset, length);
+                } finally {
+                    addRead(start);
+                }
+            }
+        };
+    }
+
+    void startLine() {
+        sampling = (lines++ & SAMPLE_MASK) == 0;
+        if (sampling) {
+            sampledLines++;
+            mark = System.nanoTime();
+        }
+    }
+
+    void lineParsed() {
+        if (sampling) {
+            var now = System.nanoTime();
+            parseNanos += now - mark;
+            mark = now;
+        }
+    }
+
+    void lineSerialized() {
+        if (sampling) {
+            serializeNanos += System.nanoTime() - mark;
+        }
+    }
+
+    void add(PhaseTimes other) {
+        readNanos += other.readNanos;
+        lines += other.lines;
+        sampledLines += other.sampledLines;
+        parseNanos += other.parseNanos;
+        serializeNanos += other.serializeNanos;
+        wholeSerializeNanos += other.wholeSerializeNanos;
+    }
+
+    private long scaled(long sampledNanos) {
+        return sampledLines == 0 ? 0 : (long) ((double) sampledNanos * lines / sampledLines);
+    }
+}
@@ -0,0 +1,106 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Where the time of a request goes, as a {@code processing.phase} timer tagged with each
+ * {@link Phase}, and how many lines and bytes go through. Phases are timed on {@link System#nanoTime()}
+ * and published as histograms so percentiles can be taken across instances.
+ */
+@Component
+public class ProcessingMetrics {
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Counter linesParsed;
+    private final Counter linesRejected;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+
+    public ProcessingMetrics(MeterRegistry meterRegistry) {
+        for (var phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("processing.phase")
+                .tag("phase", phase.tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+        this.linesParsed = meterRegistry.counter("processing.lines.parsed");
+        this.linesRejected = meterRegistry.counter("processing.lines.rejected");
+        this.bytesIn = meterRegistry.counter("processing.bytes.in");
+        this.bytesOut = meterRegistry.counter("processing.bytes.out");
+    }
+
+    /**
+     * Records a phase that started at {@code startNanos} and has just finished.
+     */
+    void record(Phase phase, long startNanos) {
+        phaseTimers.get(phase).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordValidation(PhaseTimes phaseTimes) {
+        phaseTimers.get(Phase.READ).record(phaseTimes.readNanos(), TimeUnit.NANOSECONDS);
+        phaseTimers.get(Phase.PARSE).record(phaseTimes.parseNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    void recordWrite(PhaseTimes phaseTimes) {
+        recordValidation(phaseTimes);
+        phaseTimers.get(Phase.SERIALIZE).record(phaseTimes.serializeNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts the persons parsed and the lines rejected by a file. A file that fails validation before
+     * anything is written only counts its invalid line.
+     */
+    void countLines(long parsed, long rejected) {
+        linesParsed.increment(parsed);
+        linesRejected.increment(rejected);
+    }
+
+    void countBytesIn(long bytes) {
+        bytesIn.increment(bytes);
+    }
+
+    /**
+     * Wraps a response stream so the bytes written to it are counted.
+     */
+    OutputStream countBytesOut(OutputStream outputStream) {
+        return new FilterOutputStream(outputStream) {
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesOut.increment();
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                bytesOut.increment(length);
+            }
+        };
+    }
+
+    public enum Phase {
+        IP_LOOKUP("ip-lookup"),
+        VALIDATE_IP("validate-ip"),
+        READ("read"),
+        PARSE("parse"),
+        SERIALIZE("serialize"),
+        PERSIST("persist");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+}
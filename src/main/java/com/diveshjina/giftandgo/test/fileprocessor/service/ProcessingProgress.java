@@ -0,0 +1,23 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+/**
+ * How far through its file an outcome file has got while it is being written. It is updated by the
+ * writing thread every so often rather than on every line, and can be read from any thread.
+ */
+public class ProcessingProgress {
+    private volatile long linesProcessed;
+    private volatile long invalidLines;
+
+    public long linesProcessed() {
+        return linesProcessed;
+    }
+
+    public long invalidLines() {
+        return invalidLines;
+    }
+
+    void report(long linesProcessed, long invalidLines) {
+        this.invalidLines = invalidLines;
+        this.linesProcessed = linesProcessed;
+    }
+}
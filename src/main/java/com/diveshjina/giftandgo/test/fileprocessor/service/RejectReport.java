@@ -0,0 +1,69 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.RejectReportDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.RejectedLineDto;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.RejectReason;
+
+/**
+ * The lines of a file rejected in report mode. Every rejected line is counted, but only the first
+ * {@code maxLines} are kept, each cut to {@code maxLineLength} bytes, so a report stays small
+ * however bad the file is. Not thread safe; each chunk parsed in parallel gets its own report,
+ * which is {@link #add added} to the file's in file order.
+ */
+public class RejectReport {
+    private final int maxLines;
+    private final int maxLineLength;
+    private final List<RejectedLineDto> rejectedLines = new ArrayList<>();
+    private long rejectedLineCount;
+
+    public RejectReport(int maxLines, int maxLineLength) {
+        this.maxLines = maxLines;
+        this.maxLineLength = maxLineLength;
+    }
+
+    void reject(long lineNumber, RejectReason reason, byte[] bytes, int lineStart, int lineEnd) {
+        rejectedLineCount++;
+        if (rejectedLines.size() < maxLines) {
+            var content = new String(bytes, lineStart, Math.min(lineEnd - lineStart, maxLineLength), StandardCharsets.UTF_8);
+            rejectedLines.add(new RejectedLineDto(lineNumber, reason.name(), content));
+        }
+    }
+
+    void reject(long lineNumber, RejectReason reason, ByteBuffer bytes, int lineStart, int lineEnd) {
+        rejectedLineCount++;
+        if (rejectedLines.size() < maxLines) {
+            var content = new byte[Math.min(lineEnd - lineStart, maxLineLength)];
+            bytes.get(lineStart, content);
+            rejectedLines.add(new RejectedLineDto(lineNumber, reason.name(), new String(content, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * An empty report with the same limits, for one chunk of the file.
+     */
+    RejectReport forChunk() {
+        return new RejectReport(maxLines, maxLineLength);
+    }
+
+    /**
+     * Adds the report of a chunk whose line numbers start after {@code linesBefore} lines of the file.
+     */
+    void add(RejectReport chunkReport, long linesBefore) {
+        rejectedLineCount += chunkReport.rejectedLineCount;
+        for (var rejectedLine : chunkReport.rejectedLines) {
+            if (rejectedLines.size() >= maxLines) {
+                break;
+            }
+            rejectedLines.add(new RejectedLineDto(linesBefore + rejectedLine.line(), rejectedLine.reason(), rejectedLine.content()));
+        }
+    }
+
+    RejectReportDto toDto() {
+        return new RejectReportDto(rejectedLineCount, List.copyOf(rejectedLines));
+    }
+}
@@ -0,0 +1,186 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.AuditProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.Request;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.RequestSink;
+
+/**
+ * Records requests off the request thread. Requests are put on a bounded queue and a background
+ * thread saves them in batches of up to {@code audit.batch-size}, waiting at most
+ * {@code audit.max-linger} for a batch to fill. When the queue is full a request waits up to
+ * {@code audit.enqueue-timeout} for space and is then dropped. Stopping the writer, which happens
+ * after the web server has finished its in-flight requests, saves everything still queued.
+ */
+@Component
+public class RequestAuditWriter implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(RequestAuditWriter.class);
+    // Upper bound on any single wait, so a stop is noticed without interrupting a save
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final RequestSink requestSink;
+    private final BlockingQueue<Request> queue;
+    private final int batchSize;
+    private final long maxLingerNanos;
+    private final long enqueueTimeoutNanos;
+    private final Counter queued;
+    private final Counter backpressure;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer batchTimer;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public RequestAuditWriter(RequestSink requestSink, AuditProperties auditProperties, MeterRegistry meterRegistry) {
+        this.requestSink = requestSink;
+        this.queue = new ArrayBlockingQueue<>(auditProperties.queueCapacity());
+        this.batchSize = auditProperties.batchSize();
+        this.maxLingerNanos = auditProperties.maxLinger().toNanos();
+        this.enqueueTimeoutNanos = auditProperties.enqueueTimeout().toNanos();
+        this.queued = meterRegistry.counter("audit.requests.queued");
+        this.backpressure = meterRegistry.counter("audit.requests.backpressure");
+        this.dropped = meterRegistry.counter("audit.requests.dropped");
+        this.written = meterRegistry.counter("audit.requests.written");
+        this.failed = meterRegistry.counter("audit.requests.failed");
+        this.batchTimer = meterRegistry.timer("audit.batch.write");
+        meterRegistry.gauge("audit.queue.size", queue, BlockingQueue::size);
+    }
+
+    public void write(Request request) {
+        if (!running) {
+            // Nothing would ever drain the queue, so save straight away
+            writeBatch(List.of(request));
+            return;
+        }
+        if (queue.offer(request)) {
+            enqueued();
+            return;
+        }
+        backpressure.increment();
+        try {
+            if (queue.offer(request, enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                enqueued();
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        logger.warn("Audit queue full, dropping request {}", request.getRequestId());
+    }
+
+    private void enqueued() {
+        queued.increment();
+        if (!running) {
+            // Stopped between the check in write and the offer, so the final drain may have missed it
+            drain();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::run, "request-audit-writer");
+        writerThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything queued after the writer thread last looked
+        drain();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server, so requests finishing during a graceful shutdown are still recorded
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void run() {
+        var batch = new ArrayList<Request>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                var deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    var remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    var next = queue.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Audit writer interrupted, saving queued requests");
+                writeBatch(batch);
+                drain();
+                return;
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void drain() {
+        var batch = new ArrayList<Request>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Request> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        var start = System.nanoTime();
+        try {
+            requestSink.saveAll(batch);
+            written.increment(batch.size());
+        } catch (RuntimeException ex) {
+            failed.increment(batch.size());
+            logger.error("Failed to save {} audited requests", batch.size(), ex);
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ResultCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+/**
+ * Results of processed uploads, kept by a SHA-256 of the upload and how it was processed, so a
+ * byte-identical upload is streamed its stored result instead of being parsed again. Results are held
+ * in memory up to {@code result-cache.memory-size}, and with a {@code result-cache.directory} set, those
+ * evicted from memory spill to disk up to {@code result-cache.disk-size}. The disk tier is emptied on
+ * startup, as which file holds which result is only known in memory. A result bigger than the memory
+ * tier is streamed straight to disk as it is written, rather than being held in memory first.
+ * <p>
+ * Lookups are counted by {@code result.cache.lookups}, tagged {@code result} with {@code memory-hit},
+ * {@code disk-hit} or {@code miss}, and the uploads served without being processed by
+ * {@code result.cache.bytes.saved}.
+ */
+@Component
+public class ResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+    private static final String SPILLED_RESULT_SUFFIX = ".result";
+
+    private final long maxFileSize;
+    private final long memorySize;
+    private final Path directory;
+    private final Cache<ResultKey, StoredResult> memory;
+    // Null without a directory
+    private final Cache<ResultKey, SpilledResult> disk;
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Counter bytesSaved;
+
+    @Autowired
+    public ResultCache(ResultCacheProperties resultCacheProperties, MeterRegistry meterRegistry) throws IOException {
+        this(resultCacheProperties, meterRegistry, ForkJoinPool.commonPool());
+    }
+
+    // Evictions and spills run on the executor
+    ResultCache(ResultCacheProperties resultCacheProperties, MeterRegistry meterRegistry, Executor executor) throws IOException {
+        this.maxFileSize = resultCacheProperties.enabled() ? resultCacheProperties.maxFileSize().toBytes() : -1;
+        this.memorySize = resultCacheProperties.enabled() ? resultCacheProperties.memorySize().toBytes() : 0;
+        this.directory = resultCacheProperties.enabled() ? resultCacheProperties.directory() : null;
+        if (directory != null) {
+            Files.createDirectories(directory);
+            try (var spilledResults = Files.newDirectoryStream(directory, "*" + SPILLED_RESULT_SUFFIX)) {
+                for (var spilledResult : spilledResults) {
+                    Files.deleteIfExists(spilledResult);
+                }
+            }
+            this.disk = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumWeight(resultCacheProperties.diskSize().toBytes())
+                .<ResultKey, SpilledResult>weigher((key, spilledResult) -> (int) Math.min(spilledResult.size(), Integer.MAX_VALUE))
+                .removalListener((key, spilledResult, cause) -> delete(spilledResult.path()))
+                .build();
+        } else {
+            this.disk = null;
+        }
+        this.memory = Caffeine.newBuilder()
+            .executor(executor)
+            .maximumWeight(memorySize)
+            .<ResultKey, StoredResult>weigher((key, storedResult) -> storedResult.bytes().length)
+            .removalListener(this::spill)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "results");
+        this.memoryHits = meterRegistry.counter("result.cache.lookups", "result", "memory-hit");
+        this.diskHits = meterRegistry.counter("result.cache.lookups", "result", "disk-hit");
+        this.misses = meterRegistry.counter("result.cache.lookups", "result", "miss");
+        this.bytesSaved = meterRegistry.counter("result.cache.bytes.saved");
+    }
+
+    /**
+     * Whether uploads of this size are cached, which is only those small enough to be read into memory
+     * before they are processed. A size of 0 may be a stream still arriving, whose persons have to be
+     * written as its lines come in, so it is never cached.
+     */
+    boolean caches(long uploadSize) {
+        return uploadSize > 0 && uploadSize <= maxFileSize;
+    }
+
+    /**
+     * The stored result of an identical upload, with its line counts reported to {@code progress}, or
+     * {@code null} if there is none.
+     */
+    OutcomeFile lookUp(ResultKey key, long uploadSize, ProcessingProgress progress) {
+        var storedResult = memory.getIfPresent(key);
+        if (storedResult != null) {
+            hit(memoryHits, uploadSize, progress, storedResult.lines(), storedResult.invalidLines());
+            var bytes = storedResult.bytes();
+            return outputStream -> outputStream.write(bytes);
+        }
+        var spilledResult = disk == null ? null : disk.getIfPresent(key);
+        if (spilledResult != null) {
+            try {
+                // Opened now, so the file outlives its eviction until the hit has been streamed
+                var channel = FileChannel.open(spilledResult.path(), StandardOpenOption.READ);
+                hit(diskHits, uploadSize, progress, spilledResult.lines(), spilledResult.invalidLines());
+                return new OutcomeFile() {
+
+                    @Override
+                    public void writeTo(OutputStream outputStream) throws IOException {
+                        try (channel) {
+                            Channels.newInputStream(channel).transferTo(outputStream);
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        channel.close();
+                    }
+                };
+            } catch (IOException ex) {
+                logger.warn("Failed to open spilled result {}", spilledResult.path(), ex);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Wraps the outcome file of a miss so that its result is stored once it has been written whole.
+     */
+    OutcomeFile storing(ResultKey key, OutcomeFile outcomeFile, ProcessingProgress progress) {
+        return new OutcomeFile() {
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                var recording = new Recording();
+                try {
+                    outcomeFile.writeTo(new FilterOutputStream(outputStream) {
+
+                        @Override
+                        public void write(int b) throws IOException {
+                            out.write(b);
+                            recording.write(new byte[] {(byte) b}, 0, 1);
+                        }
+
+                        @Override
+                        public void write(byte[] buffer, int offset, int length) throws IOException {
+                            out.write(buffer, offset, length);
+                            recording.write(buffer, offset, length);
+                        }
+                    });
+                    recording.store(key, progress.linesProcessed(), progress.invalidLines());
+                } finally {
+                    recording.discard();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                outcomeFile.close();
+            }
+        };
+    }
+
+    private void hit(Counter hits, long uploadSize, ProcessingProgress progress, long lines, long invalidLines) {
+        hits.increment();
+        bytesSaved.increment(uploadSize);
+        progress.report(lines, invalidLines);
+    }
+
+    // Run off the request thread by Caffeine once a result has been evicted from memory
+    private void spill(ResultKey key, StoredResult storedResult, RemovalCause cause) {
+        if (disk == null || !cause.wasEvicted() || key == null || storedResult == null || disk.getIfPresent(key) != null) {
+            return;
+        }
+        Path path = null;
+        try {
+            // Named afresh every time, so a result spilled again never shares a file with the one it replaces
+            path = Files.createTempFile(directory, "", SPILLED_RESULT_SUFFIX);
+            Files.write(path, storedResult.bytes());
+            disk.put(key, new SpilledResult(path, storedResult.bytes().length, storedResult.lines(), storedResult.invalidLines()));
+        } catch (IOException ex) {
+            spillFailed(ex);
+            if (path != null) {
+                delete(path);
+            }
+        }
+    }
+
+    private void spillFailed(IOException ex) {
+        logger.warn("Failed to spill result to {}", directory, ex);
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            logger.warn("Failed to delete spilled result {}", path, ex);
+        }
+    }
+
+    /**
+     * What a result depends on: the upload's content, and how it was processed.
+     */
+    record ResultKey(String sha256, long size, boolean validate, boolean report, boolean stats, OutputFormat format) {
+    }
+
+    private record StoredResult(byte[] bytes, long lines, long invalidLines) {
+    }
+
+    private record SpilledResult(Path path, long size, long lines, long invalidLines) {
+    }
+
+    /**
+     * A result as it is written, held in memory while it fits the memory tier and past that streamed to a
+     * spill file, or dropped without a directory. A failure to spill only stops the result being stored.
+     */
+    private final class Recording {
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Path path;
+        private OutputStream file;
+        private long size;
+
+        void write(byte[] bytes, int offset, int length) {
+            size += length;
+            if (buffer != null && size > memorySize) {
+                spillBuffer();
+            }
+            if (buffer != null) {
+                buffer.write(bytes, offset, length);
+            } else if (file != null) {
+                try {
+                    file.write(bytes, offset, length);
+                } catch (IOException ex) {
+                    spillFailed(ex);
+                    discard();
+                }
+            }
+        }
+
+        private void spillBuffer() {
+            var buffered = buffer;
+            buffer = null;
+            if (disk == null) {
+                return;
+            }
+            try {
+                path = Files.createTempFile(directory, "", SPILLED_RESULT_SUFFIX);
+                file = new BufferedOutputStream(Files.newOutputStream(path));
+                buffered.writeTo(file);
+            } catch (IOException ex) {
+                spillFailed(ex);
+                discard();
+            }
+        }
+
+        void store(ResultKey key, long lines, long invalidLines) {
+            if (buffer != null) {
+                memory.put(key, new StoredResult(buffer.toByteArray(), lines, invalidLines));
+            } else if (file != null) {
+                try {
+                    file.close();
+                    file = null;
+                    // The file is kept only if no identical result got there first
+                    if (disk.asMap().putIfAbsent(key, new SpilledResult(path, size, lines, invalidLines)) == null) {
+                        path = null;
+                    }
+                } catch (IOException ex) {
+                    spillFailed(ex);
+                }
+            }
+        }
+
+        void discard() {
+            buffer = null;
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ex) {
+                    logger.warn("Failed to close spilled result {}", path, ex);
+                }
+                file = null;
+            }
+            if (path != null) {
+                delete(path);
+                path = null;
+            }
+        }
+    }
+}
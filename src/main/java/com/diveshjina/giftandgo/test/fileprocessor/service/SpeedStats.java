@@ -0,0 +1,94 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.TransportStatsDto;
+
+/**
+ * The count and the minimum, maximum and mean top speed of the persons written, per transport, for
+ * the stats section. Speeds are added as fixed-point tenths to primitive accumulators as the persons
+ * are parsed, so the stats cost no second pass and no decimal arithmetic until they are written.
+ * Not thread safe; each chunk parsed in parallel gets its own stats, which are {@link #add added} to
+ * the file's.
+ */
+public class SpeedStats {
+    private static final int MEAN_SCALE = 2;
+
+    private final Map<String, Accumulator> transports = new HashMap<>();
+
+    void add(String transport, long topSpeedTenths) {
+        var accumulator = transports.get(transport);
+        if (accumulator == null) {
+            accumulator = new Accumulator();
+            transports.put(transport, accumulator);
+        }
+        accumulator.add(topSpeedTenths);
+    }
+
+    void add(SpeedStats chunkStats) {
+        chunkStats.transports.forEach((transport, chunkAccumulator) ->
+            transports.computeIfAbsent(transport, key -> new Accumulator()).add(chunkAccumulator));
+    }
+
+    /**
+     * The stats keyed by transport, in transport order.
+     */
+    Map<String, TransportStatsDto> toDto() {
+        var stats = new TreeMap<String, TransportStatsDto>();
+        transports.forEach((transport, accumulator) -> stats.put(transport, accumulator.toDto()));
+        return stats;
+    }
+
+    private static final class Accumulator {
+        private long count;
+        private long min = Long.MAX_VALUE;
+        private long max;
+        private long sum;
+        // Takes over from sum once it no longer fits in a long
+        private BigInteger bigSum;
+
+        void add(long tenths) {
+            count++;
+            min = Math.min(min, tenths);
+            max = Math.max(max, tenths);
+            addToSum(tenths);
+        }
+
+        void add(Accumulator other) {
+            count += other.count;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            if (other.bigSum == null) {
+                addToSum(other.sum);
+            } else {
+                bigSum = sum().add(other.bigSum);
+            }
+        }
+
+        TransportStatsDto toDto() {
+            var mean = new BigDecimal(sum(), 1).divide(BigDecimal.valueOf(count), MEAN_SCALE, RoundingMode.HALF_UP);
+            return new TransportStatsDto(count, BigDecimal.valueOf(min, 1), BigDecimal.valueOf(max, 1), mean);
+        }
+
+        private void addToSum(long tenths) {
+            if (bigSum != null) {
+                bigSum = bigSum.add(BigInteger.valueOf(tenths));
+                return;
+            }
+            try {
+                sum = Math.addExact(sum, tenths);
+            } catch (ArithmeticException ex) {
+                bigSum = BigInteger.valueOf(sum).add(BigInteger.valueOf(tenths));
+            }
+        }
+
+        private BigInteger sum() {
+            return bigSum != null ? bigSum : BigInteger.valueOf(sum);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * An entry file spooled to disk by the service itself, such as the upload of a job, which the servlet
+ * container would delete once the submitting request completes, or an entry of a batch archive. Like
+ * the container's, {@link #transferTo(File)} moves the file rather than copying it.
+ */
+class SpooledFile implements MultipartFile {
+    private final Path path;
+    private final String originalFilename;
+    private final String contentType;
+
+    SpooledFile(Path path, String originalFilename, String contentType) {
+        this.path = path;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Moves an upload to {@code path}. The servlet container has usually spooled the upload to disk
+     * already, so this is just a rename.
+     */
+    static void spool(MultipartFile file, Path path) throws IOException {
+        file.transferTo(path.toFile());
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(path);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.move(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
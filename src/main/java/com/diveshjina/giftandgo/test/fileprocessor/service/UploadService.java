@@ -0,0 +1,303 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.UploadProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.UploadDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.UploadConflictException;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.TimeOrderedUuids;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.Upload;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.UploadRepository;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.UploadStatus;
+
+/**
+ * Takes an entry file in chunks, so an upload that drops can carry on from the last byte received
+ * rather than start over. Each chunk is appended to the upload in {@code uploads.directory}, and the
+ * whole lines received so far are parsed straight away into the result alongside it. The state of
+ * each upload is kept in the {@code uploads} table, and the files are cut back to it before they are
+ * written, so whatever a chunk wrote before the service went down is dropped and redone. Uploads are
+ * plain text, as a compressed stream cannot be picked up at a line.
+ */
+@Service
+public class UploadService {
+    private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
+    private static final int RESULT_BUFFER_SIZE = 64 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileProcessorService fileProcessorService;
+    private final UploadRepository uploadRepository;
+    private final ProcessingMetrics processingMetrics;
+    private final Path directory;
+    private final Duration retention;
+    private final Clock clock;
+    private final Set<UUID> appending = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public UploadService(FileProcessorService fileProcessorService, UploadRepository uploadRepository, ProcessingMetrics processingMetrics,
+                         UploadProperties uploadProperties) throws IOException {
+        this(fileProcessorService, uploadRepository, processingMetrics, uploadProperties, Clock.systemDefaultZone());
+    }
+
+    UploadService(FileProcessorService fileProcessorService, UploadRepository uploadRepository, ProcessingMetrics processingMetrics,
+                  UploadProperties uploadProperties, Clock clock) throws IOException {
+        this.fileProcessorService = fileProcessorService;
+        this.uploadRepository = uploadRepository;
+        this.processingMetrics = processingMetrics;
+        this.directory = Files.createDirectories(uploadProperties.directory());
+        this.retention = uploadProperties.retention();
+        this.clock = clock;
+    }
+
+    public UploadDto create(String fileName, boolean validate, OutputFormat format) {
+        var now = now();
+        var upload = new Upload(TimeOrderedUuids.next(), UploadStatus.UPLOADING, Objects.requireNonNullElse(fileName, ""), format.name(),
+            validate, 0, 0, 0, 0, 0, 0, null, now, now);
+        uploadRepository.save(upload);
+        logger.info("Started upload {} for file {}", upload.getUploadId(), upload.getFileName());
+        return toUploadDto(upload);
+    }
+
+    public Optional<UploadDto> findUpload(UUID uploadId) {
+        return uploadRepository.findById(uploadId).map(UploadService::toUploadDto);
+    }
+
+    /**
+     * The result of an upload that has succeeded, unless it has since been removed.
+     */
+    public Optional<Path> findResult(UUID uploadId) {
+        var result = resultPath(uploadId);
+        return uploadRepository.findById(uploadId)
+            .filter(upload -> upload.getStatus() == UploadStatus.SUCCEEDED && Files.exists(result))
+            .map(upload -> result);
+    }
+
+    /**
+     * Appends a chunk that starts {@code offset} bytes into the file, which must be exactly the bytes
+     * received so far, and parses the lines it completes. The {@code last} chunk, which may be empty,
+     * finishes the upload. Whatever arrives of a chunk that drops part way is kept, the rest can be sent
+     * from the offset the upload then reports, and parsing left unfinished is picked up by the next chunk.
+     */
+    public Optional<UploadDto> append(UUID uploadId, long offset, InputStream chunk, boolean last)
+        throws IOException, InvalidFileException, UploadConflictException {
+        if (!appending.add(uploadId)) {
+            throw new UploadConflictException("Another chunk is being appended to the upload");
+        }
+        try {
+            var found = uploadRepository.findById(uploadId);
+            if (found.isEmpty()) {
+                return Optional.empty();
+            }
+            var upload = found.get();
+            if (upload.getStatus() != UploadStatus.UPLOADING) {
+                throw new UploadConflictException(String.format("Upload already %s", upload.getStatus()));
+            }
+            if (offset != upload.getBytesReceived()) {
+                throw new UploadConflictException(String.format("Expected chunk at offset %d", upload.getBytesReceived()));
+            }
+            upload.setBytesReceived(receive(uploadId, upload.getBytesReceived(), chunk));
+            try {
+                parse(upload, last);
+            } catch (InvalidFileException ex) {
+                uploadRepository.finish(uploadId, UploadStatus.FAILED, truncate(ex.getMessage()), now());
+                deleteFiles(uploadId);
+                logger.info("Upload {} {}", uploadId, UploadStatus.FAILED);
+                throw ex;
+            }
+            if (last) {
+                uploadRepository.finish(uploadId, UploadStatus.SUCCEEDED, null, now());
+                deleteFile(uploadPath(uploadId));
+                logger.info("Upload {} {}", uploadId, UploadStatus.SUCCEEDED);
+            }
+            return findUpload(uploadId);
+        } finally {
+            appending.remove(uploadId);
+        }
+    }
+
+    @Scheduled(cron = "${uploads.cleanup-cron}")
+    public void removeExpiredUploads() {
+        var cutoff = Timestamp.valueOf(LocalDateTime.now(clock).minus(retention));
+        for (var upload : uploadRepository.findByUpdatedTimestampBefore(cutoff)) {
+            deleteFiles(upload.getUploadId());
+            uploadRepository.deleteById(upload.getUploadId());
+        }
+    }
+
+    // Anything past what the upload last recorded as received is left over from a chunk that failed to be recorded
+    private long receive(UUID uploadId, long bytesReceived, InputStream chunk) throws IOException {
+        try (var channel = FileChannel.open(uploadPath(uploadId), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(bytesReceived);
+            channel.position(bytesReceived);
+            try {
+                chunk.transferTo(Channels.newOutputStream(channel));
+            } finally {
+                // Whatever arrived of a chunk that drops part way is kept, so it can be resumed from there
+                channel.force(false);
+                processingMetrics.countBytesIn(channel.position() - bytesReceived);
+                uploadRepository.receive(uploadId, channel.position(), now());
+            }
+            return channel.position();
+        }
+    }
+
+    private void parse(Upload upload, boolean last) throws IOException, InvalidFileException {
+        var uploadId = upload.getUploadId();
+        var format = OutputFormat.valueOf(upload.getOutputFormat());
+        try (var uploadChannel = FileChannel.open(uploadPath(uploadId), StandardOpenOption.READ);
+             var resultChannel = FileChannel.open(resultPath(uploadId), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            var parseEnd = last
+                ? upload.getBytesReceived()
+                : lastLineEnd(uploadChannel, upload.getBytesParsed(), upload.getBytesScanned(), upload.getBytesReceived());
+            // Only an upload that is empty altogether still holds a line once all its newlines are parsed
+            var parsing = parseEnd > upload.getBytesParsed() || (last && parseEnd == 0);
+            if (!parsing && !last) {
+                uploadRepository.scanned(uploadId, upload.getBytesReceived());
+                return;
+            }
+            resultChannel.truncate(upload.getOutputBytes());
+            resultChannel.position(upload.getOutputBytes());
+            var outputStream = new BufferedOutputStream(processingMetrics.countBytesOut(Channels.newOutputStream(resultChannel)), RESULT_BUFFER_SIZE);
+            if (upload.getOutputBytes() == 0) {
+                format.writeHeader(outputStream);
+            }
+            var progress = new ProcessingProgress();
+            if (parsing) {
+                var separate = upload.getLinesProcessed() > upload.getInvalidLines();
+                fileProcessorService.appendPersons(range(uploadChannel, upload.getBytesParsed(), parseEnd), outputStream, format, upload.isValidate(),
+                    separate, progress);
+            }
+            outputStream.flush();
+            // The footer is left out of the checkpoint, so a last chunk that is sent again writes it only once
+            var outputBytes = resultChannel.position();
+            if (last) {
+                format.writeFooter(outputStream);
+                outputStream.flush();
+            }
+            resultChannel.force(false);
+            uploadRepository.checkpoint(uploadId, parseEnd, upload.getBytesReceived(), outputBytes, upload.getLinesProcessed() + progress.linesProcessed(),
+                upload.getInvalidLines() + progress.invalidLines(), now());
+        }
+    }
+
+    /**
+     * Where parsing can run up to without splitting a line: just past the last newline after
+     * {@code from} that ends a non-empty line. Empty lines after it are left for later, as they are
+     * only lines at all if another line follows them. The bytes before {@code scanned} are known to
+     * hold no such newline, so only those from the byte before it on are read.
+     */
+    private static long lastLineEnd(FileChannel channel, long from, long scanned, long to) throws IOException {
+        var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        // The byte before scanned is read again, as the newline that ends its line may only just have arrived
+        var scanFrom = Math.max(from, scanned - 1);
+        var end = to;
+        var followedByNewline = false;
+        while (end > scanFrom) {
+            var start = Math.max(scanFrom, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("Upload shorter than recorded");
+                }
+            }
+            for (var i = buffer.limit() - 1; i >= 0; i--) {
+                var newline = buffer.get(i) == '\n';
+                if (followedByNewline && !newline) {
+                    return start + i + 2;
+                }
+                followedByNewline = newline;
+            }
+            end = start;
+        }
+        return from;
+    }
+
+    private static InputStream range(FileChannel channel, long from, long to) throws IOException {
+        return new FilterInputStream(Channels.newInputStream(channel.position(from))) {
+            private long remaining = to - from;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining == 0) {
+                    return -1;
+                }
+                var read = super.read();
+                if (read >= 0) {
+                    remaining--;
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining == 0) {
+                    return -1;
+                }
+                var read = super.read(buffer, offset, (int) Math.min(length, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+        };
+    }
+
+    private static UploadDto toUploadDto(Upload upload) {
+        return new UploadDto(upload.getUploadId(), upload.getStatus().name(), upload.getOutputFormat(), upload.isValidate(),
+            upload.getBytesReceived(), upload.getLinesProcessed(), upload.getInvalidLines(), upload.getError());
+    }
+
+    private Path uploadPath(UUID uploadId) {
+        return directory.resolve(uploadId + ".upload");
+    }
+
+    private Path resultPath(UUID uploadId) {
+        return directory.resolve(uploadId + ".result");
+    }
+
+    private void deleteFiles(UUID uploadId) {
+        deleteFile(uploadPath(uploadId));
+        deleteFile(resultPath(uploadId));
+    }
+
+    private static void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            logger.warn("Failed to delete {}", path, ex);
+        }
+    }
+
+    private Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now(clock));
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= Upload.MAX_ERROR_LENGTH ? error : error.substring(0, Upload.MAX_ERROR_LENGTH);
+    }
+}
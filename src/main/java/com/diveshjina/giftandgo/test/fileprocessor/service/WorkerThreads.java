@@ -0,0 +1,25 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Threads for the pools that bound how much work of one kind runs at once. They are virtual when
+ * {@code spring.threads.virtual.enabled} is set, and the pool still does the bounding.
+ */
+public final class WorkerThreads {
+
+    private WorkerThreads() {
+    }
+
+    public static ThreadFactory factory(Environment environment, String threadNamePrefix) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory(threadNamePrefix);
+    }
+}
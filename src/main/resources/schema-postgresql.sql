@@ -0,0 +1,45 @@
+-- Partitioned by day so old audit rows are removed by dropping partitions, see RequestPartitionManager
+CREATE TABLE IF NOT EXISTS requests (
+    request_id uuid NOT NULL,
+    request_uri varchar(255) NOT NULL,
+    request_timestamp timestamp(6) NOT NULL,
+    http_response_code integer NOT NULL,
+    request_ip_address varchar(255) NOT NULL,
+    request_country_code varchar(255) NOT NULL,
+    request_ip_provider varchar(255) NOT NULL,
+    time_lapsed_in_millis bigint NOT NULL,
+    PRIMARY KEY (request_timestamp, request_id)
+) PARTITION BY RANGE (request_timestamp);
+
+CREATE TABLE IF NOT EXISTS jobs (
+    job_id uuid PRIMARY KEY,
+    status varchar(16) NOT NULL,
+    file_name varchar(255) NOT NULL,
+    output_format varchar(16) NOT NULL,
+    validate boolean NOT NULL,
+    lines_processed bigint NOT NULL,
+    invalid_lines bigint NOT NULL,
+    error varchar(1024),
+    created_timestamp timestamp(6) NOT NULL,
+    finished_timestamp timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS uploads (
+    upload_id uuid PRIMARY KEY,
+    status varchar(16) NOT NULL,
+    file_name varchar(255) NOT NULL,
+    output_format varchar(16) NOT NULL,
+    validate boolean NOT NULL,
+    bytes_received bigint NOT NULL,
+    bytes_parsed bigint NOT NULL,
+    bytes_scanned bigint NOT NULL,
+    output_bytes bigint NOT NULL,
+    lines_processed bigint NOT NULL,
+    invalid_lines bigint NOT NULL,
+    error varchar(1024),
+    created_timestamp timestamp(6) NOT NULL,
+    updated_timestamp timestamp(6) NOT NULL
+);
+
+-- Uploads tables created before the scan checkpoint existed
+ALTER TABLE uploads ADD COLUMN IF NOT EXISTS bytes_scanned bigint NOT NULL DEFAULT 0;
@@ -1,6 +1,12 @@
 package com.diveshjina.giftandgo.test.fileprocessor;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
@@ -9,6 +15,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
@@ -16,6 +23,8 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.mock.web.MockPart;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
@@ -32,6 +41,7 @@ import com.maciejwalkowiak.wiremock.spring.InjectWireMock;
 @EnableWireMock(@ConfigureWireMock(name = "ip-api"))
 @WireMockTest(httpPort = 8081)
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 public class FileProcessorApplicationIT {
     private static final String INPUT_FILE = """
         18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1
@@ -60,18 +70,35 @@ public class FileProcessorApplicationIT {
             .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("UP"));
     }
 
+    @Test
+    void actuatorprometheus_FileProcessed_PhaseTimersAndCountersExported() throws Exception {
+        stubIpApiWithAllowedIp();
+        var mockFile = new MockMultipartFile("file", "EntryFile.txt", "text/plain", INPUT_FILE.getBytes(StandardCharsets.UTF_8));
+        var processRequest = MockMvcRequestBuilders.multipart("/v0/process")
+            .file(mockFile)
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+        performAsync(processRequest)
+            .andExpect(MockMvcResultMatchers.status().isOk());
+
+        var mockRequest = MockMvcRequestBuilders.get("/actuator/prometheus");
+        var content = mockMvc.perform(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        for (var phase : new String[] {"ip-lookup", "validate-ip", "read", "parse", "serialize", "persist"}) {
+            assertTrue(content.contains(String.format("processing_phase_seconds_bucket{phase=\"%s\"", phase)), phase);
+        }
+        assertTrue(content.contains("processing_lines_parsed_total"));
+        assertTrue(content.contains("processing_lines_rejected_total"));
+        assertTrue(content.contains("processing_bytes_in_total"));
+        assertTrue(content.contains("processing_bytes_out_total"));
+    }
+
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
     void v0process_ValidFileAndValidIp_HttpStatus200AndAllPersonsInFileReturned(boolean validate) throws Exception {
-        var jsonResponseFromIpApi = new JSONObject();
-        jsonResponseFromIpApi.put("country", "Italy");
-        jsonResponseFromIpApi.put("countryCode", "IT");
-        jsonResponseFromIpApi.put("isp", "Sky Italia");
-        WireMock.stubFor(WireMock.get(String.format("/json/%s", IP_ADDRESS))
-            .willReturn(
-                WireMock.ok()
-                    .withBody(jsonResponseFromIpApi.toString())
-                    .withHeader("Content-Type", "application/json")));
+        stubIpApiWithAllowedIp();
 
         var mockFile = new MockMultipartFile("file", "EmptyFile.txt", "text/plain", INPUT_FILE.getBytes(StandardCharsets.UTF_8));
         var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
@@ -79,22 +106,33 @@ public class FileProcessorApplicationIT {
             .part(new MockPart("validate", String.valueOf(validate).getBytes(StandardCharsets.UTF_8)))
             .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
 
-        mockMvc.perform(mockRequest)
+        performAsync(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.content().bytes(OUTPUT_FILE.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void v0process_GzipFileAndValidIp_HttpStatus200AndAllPersonsInFileReturned() throws Exception {
+        stubIpApiWithAllowedIp();
+
+        var gzippedFile = new ByteArrayOutputStream();
+        try (var gzipStream = new GZIPOutputStream(gzippedFile)) {
+            gzipStream.write(INPUT_FILE.getBytes(StandardCharsets.UTF_8));
+        }
+        var mockFile = new MockMultipartFile("file", "EntryFile.txt.gz", "application/octet-stream", gzippedFile.toByteArray());
+        var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
+            .file(mockFile)
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+
+        performAsync(mockRequest)
             .andExpect(MockMvcResultMatchers.status().isOk())
             .andExpect(MockMvcResultMatchers.content().bytes(OUTPUT_FILE.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Test
     void v0process_InvalidFileAndValidIpAndValidate_HttpStatus400Returned() throws Exception {
-        var jsonResponseFromIpApi = new JSONObject();
-        jsonResponseFromIpApi.put("country", "Italy");
-        jsonResponseFromIpApi.put("countryCode", "IT");
-        jsonResponseFromIpApi.put("isp", "Sky Italia");
-        WireMock.stubFor(WireMock.get(String.format("/json/%s", IP_ADDRESS))
-            .willReturn(
-                WireMock.ok()
-                    .withBody(jsonResponseFromIpApi.toString())
-                    .withHeader("Content-Type", "application/json")));
+        stubIpApiWithAllowedIp();
 
         var mockFile = new MockMultipartFile("file", "EmptyFile.txt", "text/plain", INVALID_INPUT_FILE.getBytes(StandardCharsets.UTF_8));
         var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
@@ -106,17 +144,28 @@ public class FileProcessorApplicationIT {
             .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
+    @Test
+    void v0process_InvalidFileAndValidIpAndValidateInReportMode_HttpStatus200AndSomePersonsAndReportReturned() throws Exception {
+        stubIpApiWithAllowedIp();
+
+        var mockFile = new MockMultipartFile("file", "EmptyFile.txt", "text/plain", INVALID_INPUT_FILE.getBytes(StandardCharsets.UTF_8));
+        var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
+            .file(mockFile)
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .part(new MockPart("report", "true".getBytes(StandardCharsets.UTF_8)))
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+
+        performAsync(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.persons.length()").value(2))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.report.rejectedLineCount").value(1))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.report.rejectedLines[0].line").value(2))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.report.rejectedLines[0].reason").value("TRAILING_CHARACTERS"));
+    }
+
     @Test
     void v0process_InvalidFileAndValidIpAndDoNotValidate_HttpStatus200AndSomePersonsInFileReturned() throws Exception {
-        var jsonResponseFromIpApi = new JSONObject();
-        jsonResponseFromIpApi.put("country", "Italy");
-        jsonResponseFromIpApi.put("countryCode", "IT");
-        jsonResponseFromIpApi.put("isp", "Sky Italia");
-        WireMock.stubFor(WireMock.get(String.format("/json/%s", IP_ADDRESS))
-            .willReturn(
-                WireMock.ok()
-                    .withBody(jsonResponseFromIpApi.toString())
-                    .withHeader("Content-Type", "application/json")));
+        stubIpApiWithAllowedIp();
 
         var mockFile = new MockMultipartFile("file", "EmptyFile.txt", "text/plain", INVALID_INPUT_FILE.getBytes(StandardCharsets.UTF_8));
         var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
@@ -124,7 +173,7 @@ public class FileProcessorApplicationIT {
             .part(new MockPart("validate", "false".getBytes(StandardCharsets.UTF_8)))
             .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
 
-        mockMvc.perform(mockRequest)
+        performAsync(mockRequest)
             .andExpect(MockMvcResultMatchers.status().isOk())
             .andExpect(MockMvcResultMatchers.content().bytes(PARTIAL_OUTPUT_FILE.getBytes(StandardCharsets.UTF_8)));
     }
@@ -148,7 +197,7 @@ public class FileProcessorApplicationIT {
             .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
             .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
 
-        mockMvc.perform(mockRequest)
+        performAsync(mockRequest)
             .andExpect(MockMvcResultMatchers.status().isForbidden());
     }
 
@@ -171,7 +220,7 @@ public class FileProcessorApplicationIT {
             .part(new MockPart("validate", "false".getBytes(StandardCharsets.UTF_8)))
             .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
 
-        mockMvc.perform(mockRequest)
+        performAsync(mockRequest)
             .andExpect(MockMvcResultMatchers.status().isOk())
             .andExpect(MockMvcResultMatchers.content().bytes(OUTPUT_FILE.getBytes(StandardCharsets.UTF_8)));
     }
@@ -195,7 +244,7 @@ public class FileProcessorApplicationIT {
             .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
             .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
 
-        mockMvc.perform(mockRequest)
+        performAsync(mockRequest)
             .andExpect(MockMvcResultMatchers.status().isForbidden());
     }
 
@@ -218,8 +267,167 @@ public class FileProcessorApplicationIT {
             .part(new MockPart("validate", "false".getBytes(StandardCharsets.UTF_8)))
             .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
 
-        mockMvc.perform(mockRequest)
+        performAsync(mockRequest)
             .andExpect(MockMvcResultMatchers.status().isOk())
             .andExpect(MockMvcResultMatchers.content().bytes(OUTPUT_FILE.getBytes(StandardCharsets.UTF_8)));
     }
+
+    @Test
+    void v0process_ValidFileAndNdjsonAccepted_HttpStatus200AndPersonsReturnedAsNdjson() throws Exception {
+        stubIpApiWithAllowedIp();
+
+        var mockFile = new MockMultipartFile("file", "EntryFile.txt", "text/plain", INPUT_FILE.getBytes(StandardCharsets.UTF_8));
+        var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
+            .file(mockFile)
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .accept(MediaType.APPLICATION_NDJSON)
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+
+        var expectedOutputFile = OUTPUT_FILE.substring(1, OUTPUT_FILE.length() - 1).replace("},{", "}\n{") + "\n";
+        performAsync(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+            .andExpect(MockMvcResultMatchers.content().string(expectedOutputFile));
+    }
+
+    @Test
+    void v0process_InvalidFileAsNdjsonAndValidate_HttpStatus200AndErrorRecordAfterValidPersons() throws Exception {
+        stubIpApiWithAllowedIp();
+
+        var mockFile = new MockMultipartFile("file", "EntryFile.txt", "text/plain", (INPUT_FILE + "\ninvalid line").getBytes(StandardCharsets.UTF_8));
+        var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
+            .file(mockFile)
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .part(new MockPart("format", "ndjson".getBytes(StandardCharsets.UTF_8)))
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+
+        var expectedOutputFile = OUTPUT_FILE.substring(1, OUTPUT_FILE.length() - 1).replace("},{", "}\n{") + "\n"
+            + "{\"error\":\"Line invalid: invalid line\",\"line\":4}\n";
+        performAsync(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.content().string(expectedOutputFile));
+    }
+
+    @Test
+    void v0process_UnsupportedFormat_HttpStatus406() throws Exception {
+        var mockFile = new MockMultipartFile("file", "EntryFile.txt", "text/plain", INPUT_FILE.getBytes(StandardCharsets.UTF_8));
+        var mockRequest = MockMvcRequestBuilders.multipart("/v0/process")
+            .file(mockFile)
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .part(new MockPart("format", "xml".getBytes(StandardCharsets.UTF_8)))
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+
+        mockMvc.perform(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isNotAcceptable());
+    }
+
+    @Test
+    void v1jobs_ValidFileSubmitted_JobSucceedsAndResultReturned() throws Exception {
+        stubIpApiWithAllowedIp();
+
+        var mockFile = new MockMultipartFile("file", "EntryFile.txt", "text/plain", INPUT_FILE.getBytes(StandardCharsets.UTF_8));
+        var mockRequest = MockMvcRequestBuilders.multipart("/v1/jobs")
+            .file(mockFile)
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+
+        var submitted = mockMvc.perform(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isAccepted())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("QUEUED"))
+            .andReturn();
+        var location = submitted.getResponse().getHeader("Location");
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String status;
+        do {
+            Thread.sleep(50);
+            var polled = mockMvc.perform(MockMvcRequestBuilders.get(location))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+            status = new JSONObject(polled.getResponse().getContentAsString()).getString("status");
+        } while (!"SUCCEEDED".equals(status) && System.nanoTime() < deadline);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(location))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("SUCCEEDED"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.linesProcessed").value(3))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.invalidLines").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.get(location + "/result"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(MockMvcResultMatchers.content().string(OUTPUT_FILE));
+    }
+
+    @Test
+    void v1uploads_FileSentInChunks_UploadSucceedsAndResultReturned() throws Exception {
+        stubIpApiWithAllowedIp();
+
+        var mockRequest = MockMvcRequestBuilders.post("/v1/uploads")
+            .param("validate", "true")
+            .param("fileName", "EntryFile.txt")
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+        var created = mockMvc.perform(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isCreated())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("UPLOADING"))
+            .andReturn();
+        var location = created.getResponse().getHeader("Location");
+        var file = INPUT_FILE.getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(MockMvcRequestBuilders.put(location).param("offset", "0")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(Arrays.copyOfRange(file, 0, 100))
+                .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;}))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.bytesReceived").value(100))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.linesProcessed").value(1));
+        mockMvc.perform(MockMvcRequestBuilders.put(location).param("offset", "50")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(Arrays.copyOfRange(file, 50, 100))
+                .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;}))
+            .andExpect(MockMvcResultMatchers.status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders.put(location).param("offset", "100").param("last", "true")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(Arrays.copyOfRange(file, 100, file.length))
+                .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;}))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("SUCCEEDED"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.linesProcessed").value(3))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.invalidLines").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.get(location + "/result"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(MockMvcResultMatchers.content().string(OUTPUT_FILE));
+    }
+
+    @Test
+    void v1batch_ValidAndInvalidFiles_HttpStatus200AndOutcomesKeyedByFileName() throws Exception {
+        stubIpApiWithAllowedIp();
+
+        var mockRequest = MockMvcRequestBuilders.multipart("/v1/batch")
+            .file(new MockMultipartFile("files", "EntryFile1.txt", "text/plain", INPUT_FILE.getBytes(StandardCharsets.UTF_8)))
+            .file(new MockMultipartFile("files", "EntryFile2.txt", "text/plain", INVALID_INPUT_FILE.getBytes(StandardCharsets.UTF_8)))
+            .part(new MockPart("validate", "true".getBytes(StandardCharsets.UTF_8)))
+            .with(request -> {request.setRemoteAddr(IP_ADDRESS); return request;});
+
+        performAsync(mockRequest)
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(MockMvcResultMatchers.content().string("{\"EntryFile1.txt\":" + OUTPUT_FILE + ",\"EntryFile2.txt\":{\"error\":" +
+                "\"Line invalid: 3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5something on the end\"}}"));
+        WireMock.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo(String.format("/json/%s", IP_ADDRESS))));
+    }
+
+    private static void stubIpApiWithAllowedIp() throws Exception {
+        var jsonResponseFromIpApi = new JSONObject();
+        jsonResponseFromIpApi.put("country", "Italy");
+        jsonResponseFromIpApi.put("countryCode", "IT");
+        jsonResponseFromIpApi.put("isp", "Sky Italia");
+        WireMock.stubFor(WireMock.get(String.format("/json/%s", IP_ADDRESS))
+            .willReturn(
+                WireMock.ok()
+                    .withBody(jsonResponseFromIpApi.toString())
+                    .withHeader("Content-Type", "application/json")));
+    }
+
+    private ResultActions performAsync(RequestBuilder mockRequest) throws Exception {
+        var mvcResult = mockMvc.perform(mockRequest)
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult));
+    }
 }
@@ -0,0 +1,125 @@
+package com.diveshjina.giftandgo.test.fileprocessor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+/**
+ * Shows the concurrency ceiling of {@code /v0/process} while ip-api is slow. The Tomcat pool is cut
+ * down to a few threads, and every request comes from a different IP so no lookups are shared.
+ * With platform threads the pool caps how many requests wait on ip-api at once; with virtual
+ * threads, which need Java 21, they all wait together.
+ */
+class VirtualThreadsLoadIT {
+    private static final int TOMCAT_THREADS = 4;
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsLoadIT.class);
+    private static final int REQUESTS = 32;
+    private static final int IP_API_DELAY_MILLIS = 250;
+    // The fewest rounds of ip-api calls a pool of TOMCAT_THREADS can get through REQUESTS in
+    private static final long CEILING_MILLIS = (long) REQUESTS / TOMCAT_THREADS * IP_API_DELAY_MILLIS;
+    private static final String BOUNDARY = "entry-file-boundary";
+    private static final String BODY = "--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"file\"; filename=\"EntryFile.txt\"\r\n"
+        + "Content-Type: text/plain\r\n\r\n"
+        + "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1\r\n"
+        + "--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"validate\"\r\n\r\n"
+        + "true\r\n"
+        + "--" + BOUNDARY + "--\r\n";
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=" + TOMCAT_THREADS,
+        "server.tomcat.threads.min-spare=" + TOMCAT_THREADS,
+        "server.forward-headers-strategy=native",
+        "spring.threads.virtual.enabled=false",
+    })
+    @ActiveProfiles({"test", "wiremock-test"})
+    @WireMockTest(httpPort = 8081)
+    class PlatformThreads {
+        @LocalServerPort
+        int port;
+
+        @Test
+        void v0process_SlowIpApi_ConcurrencyCappedByTomcatThreads() {
+            var elapsedMillis = sendConcurrentRequests(port);
+
+            assertTrue(elapsedMillis >= CEILING_MILLIS, String.format("took %d ms, expected at least %d ms", elapsedMillis, CEILING_MILLIS));
+        }
+    }
+
+    @Nested
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=" + TOMCAT_THREADS,
+        "server.tomcat.threads.min-spare=" + TOMCAT_THREADS,
+        "server.forward-headers-strategy=native",
+        "spring.threads.virtual.enabled=true",
+    })
+    @ActiveProfiles({"test", "wiremock-test"})
+    @WireMockTest(httpPort = 8081)
+    class VirtualThreads {
+        @LocalServerPort
+        int port;
+
+        @Test
+        void v0process_SlowIpApi_ConcurrencyNotCappedByTomcatThreads() {
+            var elapsedMillis = sendConcurrentRequests(port);
+
+            assertTrue(elapsedMillis < CEILING_MILLIS, String.format("took %d ms, expected under %d ms", elapsedMillis, CEILING_MILLIS));
+        }
+    }
+
+    private static long sendConcurrentRequests(int port) {
+        WireMock.stubFor(WireMock.get(WireMock.urlPathMatching("/json/.*"))
+            .willReturn(
+                WireMock.ok()
+                    .withFixedDelay(IP_API_DELAY_MILLIS)
+                    .withBody("{\"country\":\"Italy\",\"countryCode\":\"IT\",\"isp\":\"Sky Italia\"}")
+                    .withHeader("Content-Type", "application/json")));
+        var httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        // Warms up a fresh context so the timing is of waiting on ip-api, not of first-request setup
+        assertEquals(200, httpClient.sendAsync(processRequest(port, "10.1.0.0"), HttpResponse.BodyHandlers.ofString()).join().statusCode());
+        var start = System.nanoTime();
+        var responses = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+        for (var i = 0; i < REQUESTS; i++) {
+            var request = processRequest(port, String.format("10.0.%d.%d", i / 256, i % 256));
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (var response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        var elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("{} requests with ip-api taking {} ms each took {} ms on {} Tomcat threads",
+            REQUESTS, IP_API_DELAY_MILLIS, elapsedMillis, TOMCAT_THREADS);
+        return elapsedMillis;
+    }
+
+    private static HttpRequest processRequest(int port, String ip) {
+        return HttpRequest.newBuilder(URI.create(String.format("http://localhost:%d/v0/process", port)))
+            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+            .header("X-Forwarded-For", ip)
+            .POST(HttpRequest.BodyPublishers.ofString(BODY, StandardCharsets.UTF_8))
+            .build();
+    }
+}
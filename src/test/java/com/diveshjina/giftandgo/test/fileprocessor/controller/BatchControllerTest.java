@@ -0,0 +1,144 @@
+package com.diveshjina.giftandgo.test.fileprocessor.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.service.BatchService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+
+@SpringBootTest
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class BatchControllerTest {
+    private static final String IP_ADDRESS = "127.0.0.1";
+    private static final String BATCH_JSON = "{\"EntryFile.txt\":[]}";
+
+    @Autowired
+    private BatchController batchController;
+
+    @MockBean
+    private FileProcessorService fileProcessorService;
+
+    @MockBean
+    private BatchService batchService;
+
+    @Mock
+    private MultipartFile inputFile;
+
+    @Mock
+    private MultipartFile archive;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private IpDetailsDto ipDetailsDto;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().when(request.getRemoteAddr()).thenReturn(IP_ADDRESS);
+        lenient().when(fileProcessorService.getIpDetails(IP_ADDRESS)).thenReturn(ipDetailsDto);
+    }
+
+    @Test
+    void process_FilesAndValidIp_HttpStatus200AndOneRequestRecordedOnceStreamed() throws Exception {
+        when(batchService.processFiles(List.of(inputFile, inputFile), true, false))
+            .thenReturn(outputStream -> outputStream.write(BATCH_JSON.getBytes(StandardCharsets.UTF_8)));
+
+        var actualResponse = batchController.process(List.of(inputFile, inputFile), null, true, false, request);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, actualResponse.getHeaders().getContentType());
+        verify(fileProcessorService, never()).saveRequestDetails(any(), any(), any(), any(), any());
+        assertEquals(BATCH_JSON, new String(writeBody(actualResponse.getBody()), StandardCharsets.UTF_8));
+        verify(fileProcessorService).getIpDetails(IP_ADDRESS);
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.OK));
+    }
+
+    @Test
+    void process_Archive_ArchiveProcessed() throws Exception {
+        when(batchService.processArchive(archive, false, true))
+            .thenReturn(outputStream -> outputStream.write(BATCH_JSON.getBytes(StandardCharsets.UTF_8)));
+
+        var actualResponse = batchController.process(null, archive, false, true, request);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(BATCH_JSON, new String(writeBody(actualResponse.getBody()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void process_IpBlocked_HttpStatus403AndBatchNotProcessed() throws Exception {
+        doThrow(new IpBlockedException("Request from China not allowed")).when(fileProcessorService).validateIp(ipDetailsDto, true);
+
+        var actualResponse = batchController.process(List.of(inputFile), null, true, false, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        assertEquals("Error: Request from China not allowed", new String(writeBody(actualResponse.getBody()), StandardCharsets.UTF_8));
+        verifyNoInteractions(batchService);
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class),
+            eq(HttpStatus.FORBIDDEN));
+    }
+
+    @Test
+    void process_FilesAndArchive_HttpStatus400() throws Exception {
+        var actualResponse = batchController.process(List.of(inputFile), archive, true, false, request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
+        assertEquals("Error: Send either files or an archive", new String(writeBody(actualResponse.getBody()), StandardCharsets.UTF_8));
+        verifyNoInteractions(batchService);
+    }
+
+    @Test
+    void process_NeitherFilesNorArchive_HttpStatus400() throws Exception {
+        assertEquals(HttpStatus.BAD_REQUEST, batchController.process(List.of(), null, true, false, request).getStatusCode());
+    }
+
+    @Test
+    void process_ArchiveUnreadable_HttpStatus400AndRequestRecorded() throws Exception {
+        when(batchService.processArchive(archive, true, false)).thenThrow(new InvalidFileException("Archive holds no files or is not a zip archive"));
+
+        var actualResponse = batchController.process(null, archive, true, false, request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class),
+            eq(HttpStatus.BAD_REQUEST));
+    }
+
+    private static byte[] writeBody(StreamingResponseBody body) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+}
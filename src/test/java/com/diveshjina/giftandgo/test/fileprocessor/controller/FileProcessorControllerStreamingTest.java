@@ -0,0 +1,85 @@
+package com.diveshjina.giftandgo.test.fileprocessor.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class FileProcessorControllerStreamingTest {
+    private static final long CONTAINER_ASYNC_TIMEOUT_MILLIS = 500;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockBean
+    private FileProcessorService fileProcessorService;
+
+    @Test
+    void process_StreamedLongerThanContainerAsyncTimeout_WholeBodyReturned() throws Exception {
+        when(fileProcessorService.getIpDetails(anyString())).thenReturn(IpDetailsDto.NOT_LOOKED_UP);
+        when(fileProcessorService.processFile(any(), eq(false), eq(false), eq(false), eq(OutputFormat.JSON))).thenReturn(outputStream -> {
+            outputStream.write('[');
+            outputStream.flush();
+            try {
+                Thread.sleep(CONTAINER_ASYNC_TIMEOUT_MILLIS * 3);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            outputStream.write(']');
+        });
+        var body = new LinkedMultiValueMap<String, Object>();
+        body.add("file", new ByteArrayResource("content".getBytes(StandardCharsets.UTF_8)) {
+
+            @Override
+            public String getFilename() {
+                return "EntryFile.txt";
+            }
+        });
+        body.add("validate", "false");
+
+        var response = restTemplate.postForEntity("/v0/process", body, String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("[]", response.getBody());
+        verify(fileProcessorService, timeout(1000)).saveRequestDetails(any(HttpServletRequest.class), any(LocalDateTime.class),
+            eq(IpDetailsDto.NOT_LOOKED_UP), any(LocalDateTime.class), eq(HttpStatus.OK));
+    }
+
+    // Stands in for Tomcat's default of 30s, which spring.mvc.async.request-timeout has to override
+    @TestConfiguration
+    static class ShortContainerAsyncTimeout {
+
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> shortAsyncTimeout() {
+            return factory -> factory.addConnectorCustomizers(connector -> connector.setAsyncTimeout(CONTAINER_ASYNC_TIMEOUT_MILLIS));
+        }
+    }
+}
@@ -1,36 +1,56 @@
 package com.diveshjina.giftandgo.test.fileprocessor.controller;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ProcessingProperties;
 import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
 import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutcomeFile;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
 
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
@@ -55,58 +75,225 @@ class FileProcessorControllerTest {
 
     @BeforeEach
     void beforeEach() {
-        when(request.getRemoteAddr()).thenReturn(IP_ADDRESS);
-        when(fileProcessorService.getIpDetails(IP_ADDRESS)).thenReturn(ipDetailsDto);
+        // Lenient as requests for an unsupported format are turned away before the IP is looked up
+        lenient().when(request.getRemoteAddr()).thenReturn(IP_ADDRESS);
+        lenient().when(fileProcessorService.getIpDetails(IP_ADDRESS)).thenReturn(ipDetailsDto);
     }
 
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
-    void process_ValidFile_HttpStatus200AndProcessedFileReturned(boolean validate) throws InvalidFileException, IOException, IpBlockedException {
+    void process_ValidFile_HttpStatus200AndProcessedFileReturned(boolean validate) throws InvalidFileException, IOException, IpBlockedException, HttpMediaTypeNotAcceptableException {
         var returnedBytes = "returned".getBytes(StandardCharsets.UTF_8);
-        when(fileProcessorService.processFile(inputFile, validate)).thenReturn(returnedBytes);
+        when(fileProcessorService.processFile(inputFile, validate, false, false, OutputFormat.JSON)).thenReturn(outputStream -> outputStream.write(returnedBytes));
 
-        var actualResponse = fileProcessorController.process(inputFile, validate, request);
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
 
         assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
-        assertEquals(returnedBytes, actualResponse.getBody());
+        verify(fileProcessorService, times(0)).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), any(HttpStatus.class));
+        assertArrayEquals(returnedBytes, writeBody(actualResponse.getBody()));
         verify(fileProcessorService).validateIp(ipDetailsDto, validate);
-        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(actualResponse));
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.OK));
     }
 
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
-    void process_invalidFile_HttpStatus400Returned(boolean validate) throws InvalidFileException, IOException, IpBlockedException {
-        doThrow(InvalidFileException.class).when(fileProcessorService).processFile(inputFile, validate);
+    void process_errorStreamingFile_RequestSavedWithHttpStatus500(boolean validate) throws InvalidFileException, IOException, IpBlockedException, HttpMediaTypeNotAcceptableException {
+        when(fileProcessorService.processFile(inputFile, validate, false, false, OutputFormat.JSON)).thenReturn(outputStream -> {
+            throw new IOException();
+        });
 
-        var actualResponse = fileProcessorController.process(inputFile, validate, request);
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
+
+        assertThrows(IOException.class, () -> writeBody(actualResponse.getBody()));
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void process_invalidFile_HttpStatus400Returned(boolean validate) throws InvalidFileException, IOException, IpBlockedException, HttpMediaTypeNotAcceptableException {
+        doThrow(InvalidFileException.class).when(fileProcessorService).processFile(inputFile, validate, false, false, OutputFormat.JSON);
+
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
 
         assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
         verify(fileProcessorService).validateIp(ipDetailsDto, validate);
-        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(actualResponse));
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(actualResponse.getStatusCode()));
     }
 
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
-    void process_errorReadingFile_HttpStatus500Returned(boolean validate) throws InvalidFileException, IOException, IpBlockedException {
-        doThrow(IOException.class).when(fileProcessorService).processFile(inputFile, validate);
+    void process_errorReadingFile_HttpStatus500Returned(boolean validate) throws InvalidFileException, IOException, IpBlockedException, HttpMediaTypeNotAcceptableException {
+        doThrow(IOException.class).when(fileProcessorService).processFile(inputFile, validate, false, false, OutputFormat.JSON);
 
-        var actualResponse = fileProcessorController.process(inputFile, validate, request);
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, actualResponse.getStatusCode());
         verify(fileProcessorService).validateIp(ipDetailsDto, validate);
-        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(actualResponse));
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(actualResponse.getStatusCode()));
     }
 
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
-    void process_ipBlocked_HttpStatus403Returned(boolean validate) throws InvalidFileException, IOException, IpBlockedException {
+    void process_ipBlocked_HttpStatus403Returned(boolean validate) throws InvalidFileException, IOException, IpBlockedException, HttpMediaTypeNotAcceptableException {
         doThrow(IpBlockedException.class).when(fileProcessorService).validateIp(ipDetailsDto, validate);
 
-        var actualResponse = fileProcessorController.process(inputFile, validate, request);
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
 
         assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        assertEquals("Error: null", new String(writeBody(actualResponse.getBody()), StandardCharsets.UTF_8));
         verify(fileProcessorService).validateIp(ipDetailsDto, validate);
-        verify(fileProcessorService, times(0)).processFile(inputFile, validate);
-        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(actualResponse));
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(actualResponse.getStatusCode()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void process_AddressInBlockedRange_HttpStatus403AndIpNotLookedUp(boolean validate) throws Exception {
+        doThrow(new IpBlockedException("Request from 127.0.0.1 not allowed")).when(fileProcessorService).validateAddress(IP_ADDRESS, validate);
+
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        assertEquals("Error: Request from 127.0.0.1 not allowed", new String(writeBody(actualResponse.getBody()), StandardCharsets.UTF_8));
+        verify(fileProcessorService, times(0)).getIpDetails(any());
+        verify(fileProcessorService, times(0)).processFile(any(), anyBoolean(), anyBoolean(), anyBoolean(), any());
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(IpDetailsDto.NOT_LOOKED_UP), any(LocalDateTime.class),
+            eq(HttpStatus.FORBIDDEN));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void process_ipBlockedWhileFileProcessing_ProcessingInterrupted(boolean validate) throws Exception {
+        var processingStarted = new CountDownLatch(1);
+        var processingInterrupted = new CountDownLatch(1);
+        when(fileProcessorService.processFile(inputFile, validate, false, false, OutputFormat.JSON)).thenAnswer(invocation -> {
+            processingStarted.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException ex) {
+                processingInterrupted.countDown();
+                throw ex;
+            }
+            return null;
+        });
+        when(fileProcessorService.getIpDetails(IP_ADDRESS)).thenAnswer(invocation -> {
+            processingStarted.await();
+            return ipDetailsDto;
+        });
+        doThrow(IpBlockedException.class).when(fileProcessorService).validateIp(ipDetailsDto, validate);
+
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        assertTrue(processingInterrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void process_ipBlockedAfterFileProcessed_OutcomeFileClosed(boolean validate) throws Exception {
+        var outcomeFile = mock(OutcomeFile.class);
+        var processingFinished = new CountDownLatch(1);
+        when(fileProcessorService.processFile(inputFile, validate, false, false, OutputFormat.JSON)).thenAnswer(invocation -> {
+            processingFinished.countDown();
+            return outcomeFile;
+        });
+        when(fileProcessorService.getIpDetails(IP_ADDRESS)).thenAnswer(invocation -> {
+            processingFinished.await();
+            return ipDetailsDto;
+        });
+        doThrow(IpBlockedException.class).when(fileProcessorService).validateIp(ipDetailsDto, validate);
+
+        var actualResponse = fileProcessorController.process(inputFile, validate, false, false, null, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        verify(outcomeFile, timeout(5000)).close();
+        verify(outcomeFile, times(0)).writeTo(any());
+    }
+
+    @Test
+    void process_TooManyFilesWaiting_HttpStatus503AndRequestSaved() throws Exception {
+        var controller = new FileProcessorController(fileProcessorService, new ProcessingProperties(1, 1), new MockEnvironment());
+        var processingReleased = new CountDownLatch(1);
+        when(fileProcessorService.processFile(inputFile, true, false, false, OutputFormat.JSON)).thenAnswer(invocation -> {
+            processingReleased.await();
+            return (OutcomeFile) outputStream -> outputStream.write('x');
+        });
+        // One file being processed and one waiting fill the pool
+        var running = new Thread(() -> process(controller));
+        var waiting = new Thread(() -> process(controller));
+        try {
+            running.start();
+            waiting.start();
+            verify(fileProcessorService, timeout(5000).times(2)).getIpDetails(IP_ADDRESS);
+
+            var actualResponse = controller.process(inputFile, true, false, false, null, request);
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, actualResponse.getStatusCode());
+            assertArrayEquals("Error: Too many files being processed, try again later".getBytes(StandardCharsets.UTF_8), writeBody(actualResponse.getBody()));
+            verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(IpDetailsDto.NOT_LOOKED_UP), any(LocalDateTime.class),
+                eq(HttpStatus.SERVICE_UNAVAILABLE));
+        } finally {
+            processingReleased.countDown();
+            running.join();
+            waiting.join();
+            controller.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "ndjson, , NDJSON",
+        "CBOR, application/json, CBOR",
+        ", application/x-ndjson, NDJSON",
+        ", 'application/json;q=0.5, application/cbor', CBOR",
+        ", */*, JSON",
+        ", , JSON",
+    })
+    void process_FormatRequested_OutcomeWrittenInNegotiatedFormat(String format, String accept, OutputFormat expectedFormat) throws Exception {
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(accept);
+        when(fileProcessorService.processFile(inputFile, true, false, false, expectedFormat)).thenReturn(outputStream -> {
+        });
+
+        var actualResponse = fileProcessorController.process(inputFile, true, false, false, format, request);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(expectedFormat.mediaType(), actualResponse.getHeaders().getContentType());
+    }
+
+    @Test
+    void process_StatsRequested_StatsAndReportPassedToService() throws Exception {
+        var returnedBytes = "returned".getBytes(StandardCharsets.UTF_8);
+        when(fileProcessorService.processFile(inputFile, true, true, true, OutputFormat.JSON)).thenReturn(outputStream -> outputStream.write(returnedBytes));
+
+        var actualResponse = fileProcessorController.process(inputFile, true, true, true, null, request);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertArrayEquals(returnedBytes, writeBody(actualResponse.getBody()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "xml, ",
+        ", application/xml",
+        ", not a media type",
+    })
+    void process_UnsupportedFormatRequested_NotAcceptable(String format, String accept) {
+        when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(accept);
+
+        assertThrows(HttpMediaTypeNotAcceptableException.class, () -> fileProcessorController.process(inputFile, true, false, false, format, request));
+        verifyNoInteractions(fileProcessorService);
+    }
+
+    private void process(FileProcessorController controller) {
+        try {
+            controller.process(inputFile, true, false, false, null, request);
+        } catch (HttpMediaTypeNotAcceptableException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] writeBody(StreamingResponseBody body) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toByteArray();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package com.diveshjina.giftandgo.test.fileprocessor.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.JobDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.TooManyJobsException;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.JobService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+
+@SpringBootTest
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class JobControllerTest {
+    private static final String IP_ADDRESS = "127.0.0.1";
+    private static final UUID JOB_ID = UUID.fromString("018d2e4c-5a00-7000-8000-000000000000");
+
+    @Autowired
+    private JobController jobController;
+
+    @MockBean
+    private FileProcessorService fileProcessorService;
+
+    @MockBean
+    private JobService jobService;
+
+    @Mock
+    private MultipartFile inputFile;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private IpDetailsDto ipDetailsDto;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void beforeEach() {
+        // Lenient as requests for an unsupported format are turned away before the IP is looked up
+        lenient().when(request.getRemoteAddr()).thenReturn(IP_ADDRESS);
+        lenient().when(fileProcessorService.getIpDetails(IP_ADDRESS)).thenReturn(ipDetailsDto);
+    }
+
+    @Test
+    void submit_ValidIp_HttpStatus202AndJobLocationReturned() throws Exception {
+        var job = job("QUEUED");
+        when(jobService.submit(inputFile, true, false, false, OutputFormat.NDJSON)).thenReturn(job);
+
+        var actualResponse = jobController.submit(inputFile, true, false, false, "ndjson", request);
+
+        assertEquals(HttpStatus.ACCEPTED, actualResponse.getStatusCode());
+        assertEquals(URI.create("/v1/jobs/" + JOB_ID), actualResponse.getHeaders().getLocation());
+        assertEquals(job, actualResponse.getBody());
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.ACCEPTED));
+    }
+
+    @Test
+    void submit_IpBlocked_HttpStatus403AndNoJobSubmitted() throws Exception {
+        doThrow(new IpBlockedException("Request from China not allowed")).when(fileProcessorService).validateIp(ipDetailsDto, true);
+
+        var actualResponse = jobController.submit(inputFile, true, false, false, null, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        assertEquals("Error: Request from China not allowed", actualResponse.getBody());
+        verifyNoInteractions(jobService);
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.FORBIDDEN));
+    }
+
+    @Test
+    void submit_AddressInBlockedRange_HttpStatus403AndIpNotLookedUp() throws Exception {
+        doThrow(new IpBlockedException("Request from 127.0.0.1 not allowed")).when(fileProcessorService).validateAddress(IP_ADDRESS, true);
+
+        var actualResponse = jobController.submit(inputFile, true, false, false, null, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        verify(fileProcessorService, times(0)).getIpDetails(any());
+        verifyNoInteractions(jobService);
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(IpDetailsDto.NOT_LOOKED_UP), any(LocalDateTime.class),
+            eq(HttpStatus.FORBIDDEN));
+    }
+
+    @Test
+    void submit_TooManyJobs_HttpStatus503() throws Exception {
+        when(jobService.submit(inputFile, false, false, false, OutputFormat.JSON)).thenThrow(new TooManyJobsException("Too many jobs waiting, try again later"));
+
+        var actualResponse = jobController.submit(inputFile, false, false, false, null, request);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, actualResponse.getStatusCode());
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    void submit_UnsupportedFormat_HttpMediaTypeNotAcceptableExceptionThrown() {
+        assertThrows(HttpMediaTypeNotAcceptableException.class, () -> jobController.submit(inputFile, true, false, false, "xml", request));
+
+        verifyNoInteractions(jobService);
+    }
+
+    @Test
+    void get_UnknownJob_HttpStatus404() {
+        when(jobService.findJob(JOB_ID)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, jobController.get(JOB_ID).getStatusCode());
+    }
+
+    @Test
+    void getResult_JobStillRunning_HttpStatus409() {
+        when(jobService.findJob(JOB_ID)).thenReturn(Optional.of(job("RUNNING")));
+
+        assertEquals(HttpStatus.CONFLICT, jobController.getResult(JOB_ID).getStatusCode());
+    }
+
+    @Test
+    void getResult_JobSucceeded_ResultReturnedInJobFormat() throws IOException {
+        var result = Files.writeString(tempDir.resolve("result"), "{}\n");
+        when(jobService.findJob(JOB_ID)).thenReturn(Optional.of(job("SUCCEEDED")));
+        when(jobService.findResult(JOB_ID)).thenReturn(Optional.of(result));
+
+        var actualResponse = jobController.getResult(JOB_ID);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, actualResponse.getHeaders().getContentType());
+        assertEquals("{}\n", actualResponse.getBody().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void getResult_ResultRemoved_HttpStatus404() {
+        when(jobService.findJob(JOB_ID)).thenReturn(Optional.of(job("SUCCEEDED")));
+        when(jobService.findResult(JOB_ID)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, jobController.getResult(JOB_ID).getStatusCode());
+    }
+
+    private static JobDto job(String status) {
+        return new JobDto(JOB_ID, status, OutputFormat.NDJSON.name(), 0, 0, null);
+    }
+}
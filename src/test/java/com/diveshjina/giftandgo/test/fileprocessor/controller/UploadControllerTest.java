@@ -0,0 +1,193 @@
+package com.diveshjina.giftandgo.test.fileprocessor.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.UploadDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.UploadConflictException;
+import com.diveshjina.giftandgo.test.fileprocessor.service.FileProcessorService;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+import com.diveshjina.giftandgo.test.fileprocessor.service.UploadService;
+
+@SpringBootTest
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class UploadControllerTest {
+    private static final String IP_ADDRESS = "127.0.0.1";
+    private static final UUID UPLOAD_ID = UUID.fromString("018d2e4c-5a00-7000-8000-000000000000");
+
+    @Autowired
+    private UploadController uploadController;
+
+    @MockBean
+    private FileProcessorService fileProcessorService;
+
+    @MockBean
+    private UploadService uploadService;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private IpDetailsDto ipDetailsDto;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void beforeEach() {
+        lenient().when(request.getRemoteAddr()).thenReturn(IP_ADDRESS);
+        lenient().when(fileProcessorService.getIpDetails(IP_ADDRESS)).thenReturn(ipDetailsDto);
+    }
+
+    @Test
+    void create_ValidIp_HttpStatus201AndUploadLocationReturned() throws Exception {
+        var upload = upload("UPLOADING");
+        when(uploadService.create("EntryFile.txt", true, OutputFormat.NDJSON)).thenReturn(upload);
+
+        var actualResponse = uploadController.create(true, "EntryFile.txt", "ndjson", request);
+
+        assertEquals(HttpStatus.CREATED, actualResponse.getStatusCode());
+        assertEquals(URI.create("/v1/uploads/" + UPLOAD_ID), actualResponse.getHeaders().getLocation());
+        assertEquals(upload, actualResponse.getBody());
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.CREATED));
+    }
+
+    @Test
+    void create_IpBlocked_HttpStatus403AndNoUploadStarted() throws Exception {
+        doThrow(new IpBlockedException("Request from China not allowed")).when(fileProcessorService).validateIp(ipDetailsDto, true);
+
+        var actualResponse = uploadController.create(true, null, null, request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        assertEquals("Error: Request from China not allowed", actualResponse.getBody());
+        verifyNoInteractions(uploadService);
+    }
+
+    @Test
+    void append_ChunkAppended_HttpStatus200AndUploadReturned() throws Exception {
+        var chunk = new ByteArrayInputStream(new byte[10]);
+        var upload = upload("UPLOADING");
+        when(uploadService.append(UPLOAD_ID, 0, chunk, false)).thenReturn(Optional.of(upload));
+
+        var actualResponse = uploadController.append(UPLOAD_ID, 0, false, chunk, request);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(upload, actualResponse.getBody());
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(ipDetailsDto), any(LocalDateTime.class), eq(HttpStatus.OK));
+    }
+
+    @Test
+    void append_IpBlocked_HttpStatus403AndNothingAppended() throws Exception {
+        when(uploadService.findUpload(UPLOAD_ID)).thenReturn(Optional.of(upload("UPLOADING")));
+        doThrow(new IpBlockedException("Request from 127.0.0.1 not allowed")).when(fileProcessorService).validateAddress(IP_ADDRESS, true);
+
+        var actualResponse = uploadController.append(UPLOAD_ID, 0, false, new ByteArrayInputStream(new byte[10]), request);
+
+        assertEquals(HttpStatus.FORBIDDEN, actualResponse.getStatusCode());
+        assertEquals("Error: Request from 127.0.0.1 not allowed", actualResponse.getBody());
+        verify(uploadService, never()).append(any(), anyLong(), any(), anyBoolean());
+        verify(fileProcessorService).saveRequestDetails(eq(request), any(LocalDateTime.class), eq(IpDetailsDto.NOT_LOOKED_UP), any(LocalDateTime.class),
+            eq(HttpStatus.FORBIDDEN));
+    }
+
+    @Test
+    void append_UnknownUpload_HttpStatus404() throws Exception {
+        var chunk = InputStream.nullInputStream();
+        when(uploadService.append(UPLOAD_ID, 0, chunk, true)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, uploadController.append(UPLOAD_ID, 0, true, chunk, request).getStatusCode());
+    }
+
+    @Test
+    void append_WrongOffset_HttpStatus409() throws Exception {
+        var chunk = InputStream.nullInputStream();
+        when(uploadService.append(UPLOAD_ID, 5, chunk, false)).thenThrow(new UploadConflictException("Expected chunk at offset 10"));
+
+        var actualResponse = uploadController.append(UPLOAD_ID, 5, false, chunk, request);
+
+        assertEquals(HttpStatus.CONFLICT, actualResponse.getStatusCode());
+        assertEquals("Error: Expected chunk at offset 10", actualResponse.getBody());
+    }
+
+    @Test
+    void append_InvalidLineAndValidate_HttpStatus400() throws Exception {
+        var chunk = InputStream.nullInputStream();
+        when(uploadService.append(UPLOAD_ID, 0, chunk, false)).thenThrow(new InvalidFileException("Line invalid: totally invalid line"));
+
+        var actualResponse = uploadController.append(UPLOAD_ID, 0, false, chunk, request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, actualResponse.getStatusCode());
+        assertEquals("Error: Line invalid: totally invalid line", actualResponse.getBody());
+    }
+
+    @Test
+    void append_ChunkNotWritten_HttpStatus500() throws Exception {
+        var chunk = InputStream.nullInputStream();
+        when(uploadService.append(UPLOAD_ID, 0, chunk, false)).thenThrow(new IOException("Connection reset"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, uploadController.append(UPLOAD_ID, 0, false, chunk, request).getStatusCode());
+    }
+
+    @Test
+    void getResult_UploadUnfinished_HttpStatus409() {
+        when(uploadService.findUpload(UPLOAD_ID)).thenReturn(Optional.of(upload("UPLOADING")));
+
+        assertEquals(HttpStatus.CONFLICT, uploadController.getResult(UPLOAD_ID).getStatusCode());
+    }
+
+    @Test
+    void getResult_UploadSucceeded_ResultReturnedInUploadFormat() throws IOException {
+        var result = Files.writeString(tempDir.resolve("result"), "{}\n");
+        when(uploadService.findUpload(UPLOAD_ID)).thenReturn(Optional.of(upload("SUCCEEDED")));
+        when(uploadService.findResult(UPLOAD_ID)).thenReturn(Optional.of(result));
+
+        var actualResponse = uploadController.getResult(UPLOAD_ID);
+
+        assertEquals(HttpStatus.OK, actualResponse.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, actualResponse.getHeaders().getContentType());
+        assertEquals("{}\n", actualResponse.getBody().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private static UploadDto upload(String status) {
+        return new UploadDto(UPLOAD_ID, status, OutputFormat.NDJSON.name(), true, 0, 0, 0, null);
+    }
+}
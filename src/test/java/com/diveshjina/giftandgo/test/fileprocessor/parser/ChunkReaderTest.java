@@ -0,0 +1,77 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+
+class ChunkReaderTest {
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"line 1\nline 2\n\nline 3\n\n", "a line longer than the chunk\nb", "\n\n\n\n\n\n\n\n\nafter the run"})
+    void nextChunk_LinesUpToMaxChunkSize_SameLinesAsLineReader(String file) throws IOException, InvalidFileException {
+        var lines = new ArrayList<String>();
+        try (var channel = open(file)) {
+            var chunkReader = new ChunkReader(channel, 4, 64);
+            for (var chunk = chunkReader.nextChunk(); chunk != null; chunk = chunkReader.nextChunk()) {
+                // Split as the parallel path splits a chunk, a line per '\n' and one after the last
+                var text = StandardCharsets.UTF_8.decode(chunk).toString();
+                for (var lineStart = 0; lineStart < text.length(); ) {
+                    var lineEnd = text.indexOf('\n', lineStart);
+                    lineEnd = lineEnd < 0 ? text.length() : lineEnd;
+                    lines.add(text.substring(lineStart, lineEnd));
+                    lineStart = lineEnd + 1;
+                }
+            }
+        }
+
+        assertEquals(List.of(file.split("\n")), lines);
+    }
+
+    @Test
+    void nextChunk_LineLongerThanMaxChunkSize_InvalidFileExceptionThrown() throws IOException, InvalidFileException {
+        try (var channel = open("short\na line longer than the largest chunk allowed\nshort")) {
+            var chunkReader = new ChunkReader(channel, 4, 16);
+
+            assertEquals("short\n", StandardCharsets.UTF_8.decode(chunkReader.nextChunk()).toString());
+            assertThrows(InvalidFileException.class, chunkReader::nextChunk);
+        }
+    }
+
+    @Test
+    void nextChunk_RunOfEmptyLinesLongerThanMaxChunkSize_InvalidFileExceptionThrown() throws IOException {
+        try (var channel = open("\n".repeat(40) + "after the run")) {
+            var chunkReader = new ChunkReader(channel, 4, 16);
+
+            assertThrows(InvalidFileException.class, chunkReader::nextChunk);
+        }
+    }
+
+    @Test
+    void nextChunk_EmptyFile_NoChunk() throws IOException, InvalidFileException {
+        try (var channel = open("")) {
+            assertNull(new ChunkReader(channel, 4, 16).nextChunk());
+        }
+    }
+
+    private FileChannel open(String file) throws IOException {
+        var path = Files.writeString(directory.resolve("entry-file.txt"), file);
+        return FileChannel.open(path);
+    }
+}
@@ -0,0 +1,82 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.luben.zstd.Zstd;
+
+class CompressionTest {
+    private static final byte[] FILE = "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1\n"
+        .repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+    @ParameterizedTest
+    @EnumSource(Compression.class)
+    void open_CompressedFileWithoutContentType_DecompressedFromMagicBytes(Compression compression) throws IOException {
+        try (var inputStream = Compression.open(new ByteArrayInputStream(compress(FILE, compression)), null)) {
+            assertArrayEquals(FILE, inputStream.readAllBytes());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "a", "ab", "abc", "abcd", "abcde"})
+    void open_ShortPlainFile_Unchanged(String file) throws IOException {
+        try (var inputStream = Compression.open(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), null)) {
+            assertEquals(file, new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"application/gzip, GZIP", "application/zstd, ZSTD"})
+    void open_CompressionDeclaredInContentType_Decompressed(String contentType, Compression compression) throws IOException {
+        try (var inputStream = Compression.open(new ByteArrayInputStream(compress(FILE, compression)), contentType)) {
+            assertArrayEquals(FILE, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void open_DeclaredGzipButPlainFile_ZipExceptionThrown() {
+        assertThrows(ZipException.class, () -> Compression.open(new ByteArrayInputStream(FILE), "application/gzip"));
+    }
+
+    @ParameterizedTest
+    @CsvSource(nullValues = "null", value = {
+        "application/gzip, GZIP",
+        "application/x-gzip, GZIP",
+        "Application/GZIP; name=EntryFile.txt.gz, GZIP",
+        "application/zstd, ZSTD",
+        "text/plain, NONE",
+        "application/octet-stream, NONE",
+        "null, NONE",
+    })
+    void of_ContentTypeGiven_DeclaredCompressionReturned(String contentType, Compression expectedCompression) {
+        assertEquals(expectedCompression, Compression.of(contentType));
+    }
+
+    private static byte[] compress(byte[] file, Compression compression) throws IOException {
+        return switch (compression) {
+            case NONE -> file;
+            case GZIP -> {
+                var outputStream = new ByteArrayOutputStream();
+                try (var gzipStream = new GZIPOutputStream(outputStream)) {
+                    gzipStream.write(file);
+                }
+                yield outputStream.toByteArray();
+            }
+            case ZSTD -> Zstd.compress(file);
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LineReaderTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "", "\n", "\n\n", "line 1", "line 1\n", "line 1\nline 2", "line 1\n\nline 2\n\n\n",
+        "\nline 1", "\n\nline 1\n", "line 1\r\nline 2\r\n", "a line longer than the buffer\nb\n\nc",
+    })
+    void nextLine_FileGiven_SameLinesAsSplitReturned(String file) throws IOException {
+        var expectedLines = Arrays.asList(file.split("\n"));
+
+        var actualLines = readLines(file, 4);
+
+        assertEquals(expectedLines, actualLines);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 16, 64 * 1024})
+    void nextLine_AnyBufferSize_SameLinesReturned(int bufferSize) throws IOException {
+        var file = "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1\n\nMike Smith\n";
+
+        var actualLines = readLines(file, bufferSize);
+
+        assertEquals(Arrays.asList(file.split("\n")), actualLines);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 16})
+    void nextLine_LineLongerThanMax_LineCutAndFlaggedAndRestSkipped(int bufferSize) throws IOException {
+        var file = "short\n" + "x".repeat(100) + "\n\nafter\n" + "y".repeat(11);
+
+        var actualLines = new ArrayList<String>();
+        var tooLongLines = new ArrayList<Boolean>();
+        try (var lineReader = new LineReader(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), bufferSize, 10)) {
+            while (lineReader.nextLine()) {
+                actualLines.add(lineReader.line());
+                tooLongLines.add(lineReader.lineTooLong());
+                assertTrue(lineReader.buffer().length <= 11);
+            }
+        }
+
+        assertEquals(List.of("short", "x".repeat(10), "", "after", "y".repeat(10)), actualLines);
+        assertEquals(List.of(false, true, false, false, true), tooLongLines);
+    }
+
+    @Test
+    void nextLine_LineOfExactlyMax_LineNotFlagged() throws IOException {
+        try (var lineReader = new LineReader(new ByteArrayInputStream("x".repeat(10).getBytes(StandardCharsets.UTF_8)), 4, 10)) {
+            assertTrue(lineReader.nextLine());
+            assertEquals("x".repeat(10), lineReader.line());
+            assertFalse(lineReader.lineTooLong());
+            assertFalse(lineReader.nextLine());
+        }
+    }
+
+    private static List<String> readLines(String file, int bufferSize) throws IOException {
+        var lines = new ArrayList<String>();
+        try (var lineReader = new LineReader(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), bufferSize,
+            LineReader.DEFAULT_MAX_LINE_LENGTH)) {
+            while (lineReader.nextLine()) {
+                lines.add(lineReader.line());
+            }
+        }
+        return lines;
+    }
+}
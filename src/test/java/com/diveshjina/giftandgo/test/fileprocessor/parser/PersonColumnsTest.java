@@ -0,0 +1,119 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
+import com.diveshjina.giftandgo.test.fileprocessor.service.OutputFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+class PersonColumnsTest {
+    private static final String[] LINES = {
+        "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5",
+        "1afb6f5d-a7c2-4311-a92d-974f3180ff5e|3X3D35|Jenny Walters|Likes Avocados|Rides A Scooter|8.5|15.3",
+        "00000000-0000-0000-0000-000000000000|ZZZZZZ| |Likes  | |0.0|0.0",
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void person_LinesAppended_SamePersonsAsParser() {
+        var lineParser = new PersonLineParser();
+        var persons = new PersonColumns(0);
+        var expectedPersons = new ArrayList<PersonDto>();
+        for (var i = 0; i < 1000; i++) {
+            var line = LINES[i % LINES.length].getBytes(StandardCharsets.UTF_8);
+            assertTrue(lineParser.parse(line, 0, line.length));
+            lineParser.appendTo(persons);
+            expectedPersons.add(lineParser.toPerson());
+        }
+
+        assertEquals(1000, persons.size());
+        for (var i = 0; i < expectedPersons.size(); i++) {
+            assertEquals(expectedPersons.get(i), persons.person(i));
+        }
+    }
+
+    @Test
+    void person_SameTransportTwice_TransportKeptOnce() {
+        var persons = columns(LINES[0], LINES[1], LINES[0]);
+
+        assertSame(persons.person(0).transport(), persons.person(2).transport());
+    }
+
+    @Test
+    void trimToSize_ThenMoreLinesAppended_AllPersonsKept() {
+        var persons = columns(LINES);
+        persons.trimToSize();
+        var lineParser = new PersonLineParser();
+        var line = LINES[1].getBytes(StandardCharsets.UTF_8);
+        assertTrue(lineParser.parse(line, 0, line.length));
+
+        lineParser.appendTo(persons);
+
+        assertEquals(LINES.length + 1, persons.size());
+        assertEquals(new PersonDto("John Smith", "Rides A Bike", "12.1"), persons.person(0));
+        assertEquals(new PersonDto("Mike Smith", "Drives an SUV", "95.5"), persons.person(LINES.length));
+    }
+
+    @Test
+    void appendTo_LinesInDirectBuffer_FieldsCopied() {
+        var content = String.join("\n", LINES).getBytes(StandardCharsets.UTF_8);
+        var chunk = ByteBuffer.allocateDirect(content.length).put(content);
+        var lineParser = new PersonLineParser();
+        var persons = new PersonColumns(0);
+
+        assertTrue(lineParser.parse(chunk, LINES[0].length() + 1, LINES[0].length() + 1 + LINES[1].length()));
+        lineParser.appendTo(persons);
+
+        assertEquals(new PersonDto("Mike Smith", "Drives an SUV", "95.5"), persons.person(0));
+    }
+
+    @ParameterizedTest
+    @EnumSource(OutputFormat.class)
+    void writePerson_EveryFormat_SameBytesAsPersonDto(OutputFormat format) throws IOException {
+        var persons = columns(LINES);
+        var personWriter = objectMapper.writerFor(PersonDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        var expected = new ByteArrayOutputStream();
+        try (var generator = format.createGenerator(objectMapper, expected)) {
+            for (var i = 0; i < persons.size(); i++) {
+                format.writePerson(personWriter, generator, persons.person(i));
+            }
+        }
+        var actual = new ByteArrayOutputStream();
+        try (var generator = format.createGenerator(objectMapper, actual)) {
+            for (var i = 0; i < persons.size(); i++) {
+                format.writePerson(generator, persons, i);
+            }
+        }
+
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    private static PersonColumns columns(String... lines) {
+        var lineParser = new PersonLineParser();
+        var persons = new PersonColumns(0);
+        for (var line : List.of(lines)) {
+            var bytes = line.getBytes(StandardCharsets.UTF_8);
+            assertTrue(lineParser.parse(bytes, 0, bytes.length));
+            lineParser.appendTo(persons);
+        }
+        return persons;
+    }
+}
@@ -0,0 +1,194 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
+
+class PersonLineParserTest {
+    private static final Pattern LINE_MATCHING_PATTERN = Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}\\|[0-9A-Z]{6}\\|([A-Za-z ]+)\\|Likes [A-Za-z ]+\\|([A-Za-z ]+)\\|(?:[0-9]|[1-9][0-9]+)\\.[0-9]\\|((?:[0-9]|[1-9][0-9]+)\\.[0-9])$");
+    private static final String[] VALID_LINES = {
+        "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5",
+        "1afb6f5d-a7c2-4311-a92d-974f3180ff5e|3X3D35|Jenny Walters|Likes Avocados|Rides A Scooter|8.5|15.3",
+        "00000000-0000-0000-0000-000000000000|ZZZZZZ| |Likes  | |0.0|0.0",
+    };
+    private static final String[] MUTATIONS = {
+        "", "x", "X", "0", "1", "9", "f", "g", "F", "|", " ", ".", "-", "Likes", "\r", "\r\r", "\u0085", "\u2028",
+        "\u2029", "\u00e9", "\ufffd", "1.5", "\t",
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1",
+        "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1\r",
+        "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|106.2|120.1",
+    })
+    void parse_ValidLine_FieldsReturned(String line) {
+        var lineParser = new PersonLineParser();
+        var bytes = line.getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(lineParser.parse(bytes, 0, bytes.length));
+        var matcher = LINE_MATCHING_PATTERN.matcher(line);
+        assertTrue(matcher.find());
+        assertEquals(new PersonDto(matcher.group(1), matcher.group(2), matcher.group(3)), lineParser.toPerson());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "", "totally invalid line",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5something on the end",
+        "something at the start3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|05.5",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|05.0|95.5",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith 123|Likes Grape|Drives an SUV|35.0|95.5",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35|95.5",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222cx|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5",
+    })
+    void parse_InvalidLine_FalseReturned(String line) {
+        var lineParser = new PersonLineParser();
+        var bytes = line.getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(lineParser.parse(bytes, 0, bytes.length));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+        "'';                                                                                                 EMPTY_LINE",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5;          UUID",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222cx|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5;         UUID",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2x2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5;         ID",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith 123|Likes Grape|Drives an SUV|35.0|95.5;     NAME",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24||Likes Grape|Drives an SUV|35.0|95.5;                   NAME",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Loves Grape|Drives an SUV|35.0|95.5;         LIKES",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV 4x4|35.0|95.5;     TRANSPORT",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35|95.5;           AVG_SPEED",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|05.0|95.5;         AVG_SPEED",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|05.5;         TOP_SPEED",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.55;        TOP_SPEED",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5|;        TRAILING_CHARACTERS",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5something; TRAILING_CHARACTERS",
+    })
+    void parse_InvalidLine_FirstInvalidFieldReported(String line, RejectReason expectedReason) {
+        var lineParser = new PersonLineParser();
+        var bytes = line.getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(lineParser.parse(bytes, 0, bytes.length));
+        assertEquals(expectedReason, lineParser.rejectReason());
+    }
+
+    @Test
+    void parse_LineInsideLargerBuffer_OnlyLineRangeParsed() {
+        var line = VALID_LINES[0];
+        var bytes = ("garbage" + line + "garbage").getBytes(StandardCharsets.UTF_8);
+        var lineParser = new PersonLineParser();
+
+        assertTrue(lineParser.parse(bytes, 7, 7 + line.length()));
+        assertEquals(new PersonDto("John Smith", "Rides A Bike", "12.1"), lineParser.toPerson());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "12.1, 121",
+        "0.0, 0",
+        "120.1, 1201",
+        "922337203685477580.7, 9223372036854775807",
+        "9223372036854775808.0, 9223372036854775807",
+    })
+    void topSpeedTenths_ValidLine_SpeedReadAsFixedPoint(String topSpeed, long expectedTopSpeedTenths) {
+        var line = "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|" + topSpeed;
+        var bytes = line.getBytes(StandardCharsets.UTF_8);
+        var lineParser = new PersonLineParser();
+
+        assertTrue(lineParser.parse(bytes, 0, bytes.length));
+        assertEquals(expectedTopSpeedTenths, lineParser.topSpeedTenths());
+    }
+
+    @Test
+    void toPerson_SameValuesOnLaterLine_SameStringInstancesReturned() {
+        var bytes = (VALID_LINES[0] + "\n" + VALID_LINES[1] + "\n" + VALID_LINES[0]).getBytes(StandardCharsets.UTF_8);
+        var lineParser = new PersonLineParser();
+        var secondStart = VALID_LINES[0].length() + 1;
+        var thirdStart = secondStart + VALID_LINES[1].length() + 1;
+
+        assertTrue(lineParser.parse(bytes, 0, VALID_LINES[0].length()));
+        var firstPerson = lineParser.toPerson();
+        assertTrue(lineParser.parse(bytes, secondStart, thirdStart - 1));
+        lineParser.toPerson();
+        assertTrue(lineParser.parse(bytes, thirdStart, bytes.length));
+        var thirdPerson = lineParser.toPerson();
+
+        assertEquals(firstPerson, thirdPerson);
+        assertSame(firstPerson.name(), thirdPerson.name());
+        assertSame(firstPerson.transport(), thirdPerson.transport());
+        assertSame(firstPerson.topSpeed(), thirdPerson.topSpeed());
+    }
+
+    @Test
+    void parse_MutatedLines_SameResultAsRegex() {
+        var lineParser = new PersonLineParser();
+        for (var line : mutatedLines()) {
+            assertSameResultAsRegex(lineParser, line);
+        }
+    }
+
+    @Test
+    void parse_RandomLines_SameResultAsRegex() {
+        var random = new Random(42);
+        var lineParser = new PersonLineParser();
+        for (var i = 0; i < 100_000; i++) {
+            var line = new StringBuilder(VALID_LINES[random.nextInt(VALID_LINES.length)]);
+            for (var edits = random.nextInt(3) + 1; edits > 0; edits--) {
+                var position = random.nextInt(line.length() + 1);
+                var mutation = MUTATIONS[random.nextInt(MUTATIONS.length)];
+                if (random.nextBoolean() && position < line.length()) {
+                    line.replace(position, position + 1, mutation);
+                } else {
+                    line.insert(position, mutation);
+                }
+            }
+            assertSameResultAsRegex(lineParser, line.toString());
+        }
+    }
+
+    private static List<String> mutatedLines() {
+        var lines = new ArrayList<String>();
+        for (var line : VALID_LINES) {
+            lines.add(line);
+            for (var position = 0; position <= line.length(); position++) {
+                for (var mutation : MUTATIONS) {
+                    lines.add(line.substring(0, position) + mutation + line.substring(position));
+                    if (position < line.length()) {
+                        lines.add(line.substring(0, position) + mutation + line.substring(position + 1));
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static void assertSameResultAsRegex(PersonLineParser lineParser, String line) {
+        var bytes = line.getBytes(StandardCharsets.UTF_8);
+        var matcher = LINE_MATCHING_PATTERN.matcher(line);
+        var expectedMatch = matcher.find();
+
+        assertEquals(expectedMatch, lineParser.parse(bytes, 0, bytes.length), line);
+        if (expectedMatch) {
+            assertEquals(new PersonDto(matcher.group(1), matcher.group(2), matcher.group(3)), lineParser.toPerson(), line);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.diveshjina.giftandgo.test.fileprocessor.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class SymbolTableTest {
+
+    @Test
+    void intern_SameBytesAtDifferentOffsets_SameInstanceReturned() {
+        var bytes = ByteBuffer.wrap("Rides A Bike|Drives an SUV|Rides A Bike".getBytes(StandardCharsets.US_ASCII));
+        var symbolTable = new SymbolTable(16);
+
+        var first = symbolTable.intern(bytes, 0, 12);
+        var other = symbolTable.intern(bytes, 13, 26);
+        var second = symbolTable.intern(bytes, 27, 39);
+
+        assertEquals("Rides A Bike", first);
+        assertEquals("Drives an SUV", other);
+        assertSame(first, second);
+        assertEquals(2, symbolTable.size());
+    }
+
+    @Test
+    void intern_DirectBuffer_SameInstanceReturned() {
+        var content = "Rides A Bike|Rides A Bike".getBytes(StandardCharsets.US_ASCII);
+        var bytes = ByteBuffer.allocateDirect(content.length).put(content);
+        var symbolTable = new SymbolTable(16);
+
+        var first = symbolTable.intern(bytes, 0, 12);
+
+        assertEquals("Rides A Bike", first);
+        assertSame(first, symbolTable.intern(bytes, 13, 25));
+    }
+
+    @Test
+    void intern_ManyValues_AllKeptUpToMaxSymbols() {
+        var symbolTable = new SymbolTable(1000);
+        var symbols = new String[1000];
+        for (var i = 0; i < symbols.length; i++) {
+            symbols[i] = symbolTable.intern(ascii(i + ".5"), 0, Integer.toString(i).length() + 2);
+        }
+
+        for (var i = 0; i < symbols.length; i++) {
+            assertSame(symbols[i], symbolTable.intern(ascii(i + ".5"), 0, Integer.toString(i).length() + 2));
+        }
+        assertEquals(1000, symbolTable.size());
+    }
+
+    @Test
+    void intern_TableFull_NewValueDecodedButNotKept() {
+        var symbolTable = new SymbolTable(1);
+        symbolTable.intern(ascii("John Smith"), 0, 10);
+
+        var first = symbolTable.intern(ascii("Mike Smith"), 0, 10);
+        var second = symbolTable.intern(ascii("Mike Smith"), 0, 10);
+
+        assertEquals("Mike Smith", first);
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertEquals(1, symbolTable.size());
+    }
+
+    @Test
+    void intern_ValueLongerThanMaxSymbolLength_DecodedButNotKept() {
+        var value = "A".repeat(SymbolTable.MAX_SYMBOL_LENGTH + 1);
+        var symbolTable = new SymbolTable(16);
+
+        var first = symbolTable.intern(ascii(value), 0, value.length());
+        var second = symbolTable.intern(ascii(value), 0, value.length());
+
+        assertEquals(value, first);
+        assertNotSame(first, second);
+        assertEquals(0, symbolTable.size());
+    }
+
+    private static ByteBuffer ascii(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
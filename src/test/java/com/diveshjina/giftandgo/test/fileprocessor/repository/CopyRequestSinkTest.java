@@ -0,0 +1,86 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.util.FileCopyUtils;
+
+@ExtendWith(MockitoExtension.class)
+class CopyRequestSinkTest {
+    private static final Request REQUEST = new Request(UUID.fromString("18148426-89e1-11ee-b9d1-0242ac120002"), "/v1/process",
+        Timestamp.valueOf("2024-01-21 21:30:00.5"), 200, "127.0.0.1", "IT", "Sky \"Italia\", S.r.l.", 567);
+
+    @Mock
+    DataSource dataSource;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    PGConnection pgConnection;
+
+    @Mock
+    CopyManager copyManager;
+
+    @Captor
+    ArgumentCaptor<Reader> readerCaptor;
+
+    @Test
+    void toCsv_QuotesAndCommasInValues_ValuesQuoted() {
+        assertEquals("18148426-89e1-11ee-b9d1-0242ac120002,\"/v1/process\",2024-01-21 21:30:00.5,200,\"127.0.0.1\",\"IT\",\"Sky \"\"Italia\"\", S.r.l.\",567\n",
+            CopyRequestSink.toCsv(List.of(REQUEST)));
+    }
+
+    @Test
+    void saveAll_Requests_RowsCopiedIntoRequestsTable() throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+
+        new CopyRequestSink(dataSource).saveAll(List.of(REQUEST, REQUEST));
+
+        verify(copyManager).copyIn(anyString(), readerCaptor.capture());
+        assertEquals(CopyRequestSink.toCsv(List.of(REQUEST, REQUEST)), FileCopyUtils.copyToString(readerCaptor.getValue()));
+        verify(connection).close();
+    }
+
+    @Test
+    void saveAll_NoRequests_NothingCopied() {
+        new CopyRequestSink(dataSource).saveAll(List.of());
+
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    void saveAll_CopyFails_ConnectionClosed() throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenThrow(new SQLException("relation \"requests\" does not exist", "42P01"));
+
+        assertThrows(RuntimeException.class, () -> new CopyRequestSink(dataSource).saveAll(List.of(REQUEST)));
+        verify(connection).close();
+    }
+}
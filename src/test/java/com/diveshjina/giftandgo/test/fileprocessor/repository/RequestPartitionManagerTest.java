@@ -0,0 +1,56 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.AuditPartitionProperties;
+
+@ExtendWith(MockitoExtension.class)
+class RequestPartitionManagerTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-21T21:30:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void maintainPartitions_DaysAhead_PartitionsCreatedFromToday() {
+        var requestPartitionManager = new RequestPartitionManager(jdbcTemplate, new AuditPartitionProperties(true, Duration.ofDays(30), 2), CLOCK);
+
+        requestPartitionManager.maintainPartitions();
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS requests_20240121 PARTITION OF requests FOR VALUES FROM ('2024-01-21') TO ('2024-01-22')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS requests_20240122 PARTITION OF requests FOR VALUES FROM ('2024-01-22') TO ('2024-01-23')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS requests_20240123 PARTITION OF requests FOR VALUES FROM ('2024-01-23') TO ('2024-01-24')");
+    }
+
+    @Test
+    void maintainPartitions_PartitionsPastRetention_OnlyThosePartitionsDropped() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+            .thenReturn(List.of("requests_20231221", "requests_20231222", "requests_20231223", "requests_archive", "requests_20240121"));
+        var requestPartitionManager = new RequestPartitionManager(jdbcTemplate, new AuditPartitionProperties(true, Duration.ofDays(30), 0), CLOCK);
+
+        requestPartitionManager.maintainPartitions();
+
+        verify(jdbcTemplate).execute("DROP TABLE requests_20231221");
+        // 2023-12-22 ends at midnight on the 23rd, which is still within 30 days of 2024-01-21T21:30
+        verify(jdbcTemplate, never()).execute("DROP TABLE requests_20231222");
+        verify(jdbcTemplate, never()).execute("DROP TABLE requests_20231223");
+        verify(jdbcTemplate, never()).execute("DROP TABLE requests_archive");
+        verify(jdbcTemplate, never()).execute("DROP TABLE requests_20240121");
+    }
+}
@@ -0,0 +1,77 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Compares insert throughput of the audit sinks against a real Postgres, e.g.
+ * {@code mvn test -Dtest=RequestSinkBenchmark -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5433/fileprocessor}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark.postgres.url", matches = ".+")
+class RequestSinkBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(RequestSinkBenchmark.class);
+    private static final int ROWS = 200_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    RequestRepository requestRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("benchmark.postgres.url"));
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        new JdbcTemplate(dataSource).execute("TRUNCATE requests");
+    }
+
+    @Test
+    void jpaRequestSink() {
+        run("jpa", new JpaRequestSink(requestRepository));
+    }
+
+    @Test
+    void copyRequestSink() {
+        run("copy", new CopyRequestSink(dataSource));
+    }
+
+    private void run(String name, RequestSink requestSink) {
+        // Warm up the connection pool, statement caches and JIT before timing
+        insert(requestSink, ROWS / 10);
+        var start = System.nanoTime();
+        insert(requestSink, ROWS);
+        var seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        logger.info("{} sink: {} rows in {} s, {} rows/s", name, ROWS, String.format("%.2f", seconds), String.format("%.0f", ROWS / seconds));
+    }
+
+    private static void insert(RequestSink requestSink, int rows) {
+        var batch = new ArrayList<Request>(BATCH_SIZE);
+        for (var i = 0; i < rows; i++) {
+            batch.add(new Request(TimeOrderedUuids.next(), "/v1/process", new Timestamp(System.currentTimeMillis()), 200, "127.0.0.1", "IT", "Sky Italia", i % 1000));
+            if (batch.size() == BATCH_SIZE) {
+                requestSink.saveAll(batch);
+                batch.clear();
+            }
+        }
+        requestSink.saveAll(batch);
+    }
+}
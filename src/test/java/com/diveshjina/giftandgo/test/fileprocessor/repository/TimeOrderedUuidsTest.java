@@ -0,0 +1,38 @@
+package com.diveshjina.giftandgo.test.fileprocessor.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedUuidsTest {
+
+    @Test
+    void next_AnyTime_Version7Uuid() {
+        var uuid = TimeOrderedUuids.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void next_EpochMillis_TimestampInLeadingBits() {
+        var epochMillis = 1705872600567L;
+
+        var uuid = TimeOrderedUuids.next(epochMillis);
+
+        assertEquals(epochMillis, uuid.getMostSignificantBits() >>> 16);
+        assertTrue(uuid.toString().startsWith("018d2dee-2df7-7"));
+    }
+
+    @Test
+    void next_LaterMillisecond_SortsAfter() {
+        var earlier = TimeOrderedUuids.next(1705872600567L);
+        var later = TimeOrderedUuids.next(1705872600568L);
+
+        // Postgres compares uuids as unsigned bytes, which is the order of their string form
+        assertTrue(earlier.toString().compareTo(later.toString()) < 0);
+        assertNotEquals(TimeOrderedUuids.next(1705872600567L), earlier);
+    }
+}
@@ -0,0 +1,198 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.BatchProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchServiceTest {
+    private static final String VALID_FILE = """
+        18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1
+        1afb6f5d-a7c2-4311-a92d-974f3180ff5e|3X3D35|Jenny Walters|Likes Avocados|Rides A Scooter|8.5|15.3""";
+    private static final String VALID_FILE_JSON = "[" +
+        "{\"name\":\"John Smith\",\"transport\":\"Rides A Bike\",\"topSpeed\":\"12.1\"}," +
+        "{\"name\":\"Jenny Walters\",\"transport\":\"Rides A Scooter\",\"topSpeed\":\"15.3\"}" +
+        "]";
+    private static final String INVALID_FILE = """
+        18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1
+        totally invalid line""";
+    private static final String INVALID_FILE_JSON = "[{\"name\":\"John Smith\",\"transport\":\"Rides A Bike\",\"topSpeed\":\"12.1\"}]";
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private FileProcessorService fileProcessorService;
+
+    @Autowired
+    private AsyncTaskExecutor taskExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ParsingProperties parsingProperties;
+
+    @Test
+    void processFiles_ValidAndInvalidFilesAndValidate_OutcomesKeyedByNameAndInvalidFileFailedAlone() throws Exception {
+        var files = List.<MultipartFile>of(file("EntryFile1.txt", VALID_FILE), file("EntryFile2.txt", INVALID_FILE), file("EntryFile3.txt", VALID_FILE));
+
+        var actualOutcome = write(batchService.processFiles(files, true, false));
+
+        assertEquals("{\"EntryFile1.txt\":" + VALID_FILE_JSON + ",\"EntryFile2.txt\":{\"error\":\"Line invalid: totally invalid line\"}," +
+            "\"EntryFile3.txt\":" + VALID_FILE_JSON + "}", actualOutcome);
+    }
+
+    @Test
+    void processFiles_InvalidFileAndDoNotValidate_InvalidLinesSkipped() throws Exception {
+        var actualOutcome = write(batchService.processFiles(List.of(file("EntryFile.txt", INVALID_FILE)), false, false));
+
+        assertEquals("{\"EntryFile.txt\":" + INVALID_FILE_JSON + "}", actualOutcome);
+    }
+
+    @Test
+    void processFiles_Report_ReportReturnedForEachFile() throws Exception {
+        var actualOutcome = write(batchService.processFiles(List.of(file("EntryFile.txt", INVALID_FILE)), true, true));
+
+        var outcome = objectMapper.readTree(actualOutcome).get("EntryFile.txt");
+        assertEquals(1, outcome.get("persons").size());
+        assertEquals(1, outcome.get("report").get("rejectedLineCount").asInt());
+    }
+
+    @Test
+    void processFiles_SameNameTwice_SecondNameNumbered() throws Exception {
+        var files = List.<MultipartFile>of(file("EntryFile.txt", VALID_FILE), file("EntryFile.txt", INVALID_FILE));
+
+        var actualOutcome = write(batchService.processFiles(files, false, false));
+
+        assertEquals("{\"EntryFile.txt\":" + VALID_FILE_JSON + ",\"EntryFile.txt (2)\":" + INVALID_FILE_JSON + "}", actualOutcome);
+    }
+
+    @Test
+    void processFiles_TooManyFiles_InvalidFileExceptionThrown() {
+        var files = Collections.<MultipartFile>nCopies(3, file("EntryFile.txt", VALID_FILE));
+
+        var exception = assertThrows(InvalidFileException.class, () -> batchService(2, 1024).processFiles(files, false, false));
+
+        assertEquals("Batch holds more than 2 files", exception.getMessage());
+    }
+
+    @Test
+    void processArchive_ZipOfPlainAndCompressedFiles_OutcomesKeyedByEntryName() throws Exception {
+        var archive = zip("entries/", null, "entries/EntryFile1.txt", VALID_FILE.getBytes(StandardCharsets.UTF_8),
+            "entries/EntryFile2.txt.gz", gzip(INVALID_FILE));
+
+        var actualOutcome = write(batchService.processArchive(archive, false, false));
+
+        assertEquals("{\"entries/EntryFile1.txt\":" + VALID_FILE_JSON + ",\"entries/EntryFile2.txt.gz\":" + INVALID_FILE_JSON + "}", actualOutcome);
+    }
+
+    @Test
+    void processArchive_EntryTooLarge_EntryFailedAlone() throws Exception {
+        var archive = zip("EntryFile1.txt", VALID_FILE.getBytes(StandardCharsets.UTF_8), "EntryFile2.txt", INVALID_FILE.getBytes(StandardCharsets.UTF_8));
+
+        var actualOutcome = write(batchService(10, INVALID_FILE.length()).processArchive(archive, false, false));
+
+        assertEquals("{\"EntryFile1.txt\":{\"error\":\"File larger than " + INVALID_FILE.length() + " bytes\"},\"EntryFile2.txt\":" + INVALID_FILE_JSON + "}",
+            actualOutcome);
+    }
+
+    @Test
+    void processArchive_ArchiveWritten_SpooledFilesDeleted() throws Exception {
+        var archive = zip("EntryFile1.txt", VALID_FILE.getBytes(StandardCharsets.UTF_8), "EntryFile2.txt", INVALID_FILE.getBytes(StandardCharsets.UTF_8));
+        var filesBefore = spooledFiles();
+
+        write(batchService.processArchive(archive, false, false));
+
+        assertEquals(filesBefore, spooledFiles());
+    }
+
+    @Test
+    void processArchive_NotAZipArchive_InvalidFileExceptionThrown() {
+        var archive = file("EntryFile.txt", VALID_FILE);
+
+        var exception = assertThrows(InvalidFileException.class, () -> batchService.processArchive(archive, false, false));
+
+        assertEquals("Archive holds no files or is not a zip archive", exception.getMessage());
+    }
+
+    @Test
+    void processArchive_ArchiveCutShort_InvalidFileExceptionThrown() throws IOException {
+        var content = zip("EntryFile.txt", VALID_FILE.getBytes(StandardCharsets.UTF_8)).getBytes();
+        var archive = new MockMultipartFile("archive", "batch.zip", "application/zip", Arrays.copyOf(content, 60));
+
+        assertThrows(InvalidFileException.class, () -> batchService.processArchive(archive, false, false));
+    }
+
+    private BatchService batchService(int maxFiles, int maxEntrySize) {
+        return new BatchService(fileProcessorService, taskExecutor, objectMapper, new BatchProperties(maxFiles, DataSize.ofBytes(maxEntrySize)),
+            parsingProperties);
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("files", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Names and contents in turn; a null content makes a directory
+    private static MockMultipartFile zip(Object... entries) throws IOException {
+        var archive = new ByteArrayOutputStream();
+        try (var zipOutputStream = new ZipOutputStream(archive)) {
+            for (var i = 0; i < entries.length; i += 2) {
+                zipOutputStream.putNextEntry(new ZipEntry((String) entries[i]));
+                if (entries[i + 1] != null) {
+                    zipOutputStream.write((byte[]) entries[i + 1]);
+                }
+                zipOutputStream.closeEntry();
+            }
+        }
+        return new MockMultipartFile("archive", "batch.zip", "application/zip", archive.toByteArray());
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        var compressed = new ByteArrayOutputStream();
+        try (var gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+
+    private static Set<Path> spooledFiles() throws IOException {
+        try (var files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("batch-")).collect(Collectors.toSet());
+        }
+    }
+
+    private static String write(OutcomeFile outcomeFile) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        outcomeFile.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
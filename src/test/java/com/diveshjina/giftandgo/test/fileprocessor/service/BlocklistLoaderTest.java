@@ -0,0 +1,91 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.BlockedProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+
+class BlocklistLoaderTest {
+    private static final IpDetailsDto CHINA = new IpDetailsDto("China", "Alibaba", "CN", "AS37963 Hangzhou Alibaba Advertising Co.,Ltd.");
+    private static final IpDetailsDto UNITED_KINGDOM = new IpDetailsDto("United Kingdom", "BT", "GB", "AS2856 British Telecommunications PLC");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reload_FileChanged_FileRulesReplacedAndPropertyRulesKept() throws IOException {
+        var file = writeRules("cidr 10.0.0.0/8\ncountry United Kingdom\n", 1);
+        var blocklistLoader = new BlocklistLoader(properties(file));
+        var loaded = blocklistLoader.current();
+
+        writeRules("# Moved to the new office range\ncidr 192.168.0.0/16\n\nasn AS2856\n", 2);
+        blocklistLoader.reload();
+        var reloaded = blocklistLoader.current();
+
+        assertTrue(loaded.blocksAddress("10.1.2.3"));
+        assertEquals("United Kingdom", loaded.blockedBy(UNITED_KINGDOM));
+        assertFalse(reloaded.blocksAddress("10.1.2.3"));
+        assertTrue(reloaded.blocksAddress("192.168.4.5"));
+        assertEquals("AS2856", reloaded.blockedBy(UNITED_KINGDOM));
+        assertEquals("China", reloaded.blockedBy(CHINA));
+    }
+
+    @Test
+    void reload_FileUnchanged_SameBlocklistKept() throws IOException {
+        var file = writeRules("cidr 10.0.0.0/8\n", 1);
+        var blocklistLoader = new BlocklistLoader(properties(file));
+        var loaded = blocklistLoader.current();
+
+        blocklistLoader.reload();
+
+        assertSame(loaded, blocklistLoader.current());
+    }
+
+    @Test
+    void reload_InvalidRuleInFile_LastBlocklistKept() throws IOException {
+        var file = writeRules("cidr 10.0.0.0/8\n", 1);
+        var blocklistLoader = new BlocklistLoader(properties(file));
+        var loaded = blocklistLoader.current();
+
+        writeRules("cidr 10.0.0.0/33\n", 2);
+        blocklistLoader.reload();
+
+        assertSame(loaded, blocklistLoader.current());
+        assertTrue(blocklistLoader.current().blocksAddress("10.1.2.3"));
+    }
+
+    @Test
+    void current_FileMissing_PropertyRulesOnly() {
+        var blocklistLoader = new BlocklistLoader(properties(directory.resolve("missing.txt")));
+
+        assertEquals("China", blocklistLoader.current().blockedBy(CHINA));
+        assertNull(blocklistLoader.current().blockedBy(UNITED_KINGDOM));
+        assertFalse(blocklistLoader.current().blocksAddress("10.1.2.3"));
+    }
+
+    private Path writeRules(String rules, long modifiedSeconds) throws IOException {
+        var file = Files.writeString(directory.resolve("blocklist.txt"), rules);
+        // Set explicitly, as two writes in a row can share a modified time
+        Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(modifiedSeconds)));
+        return file;
+    }
+
+    private static BlockedProperties properties(Path file) {
+        return new BlockedProperties(Set.of("China"), Set.of("AWS"), Set.of(), Set.of(), file, Duration.ofSeconds(10));
+    }
+}
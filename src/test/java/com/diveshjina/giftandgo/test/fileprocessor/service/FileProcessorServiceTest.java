@@ -1,20 +1,38 @@
 package com.diveshjina.giftandgo.test.fileprocessor.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -23,20 +41,30 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 
 import com.diveshjina.giftandgo.test.fileprocessor.client.IPAPIClient;
-import com.diveshjina.giftandgo.test.fileprocessor.configuration.BlockedProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.RejectReportProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ResultCacheProperties;
 import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
 import com.diveshjina.giftandgo.test.fileprocessor.exceptions.IpBlockedException;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.Compression;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.LineReader;
 import com.diveshjina.giftandgo.test.fileprocessor.repository.Request;
-import com.diveshjina.giftandgo.test.fileprocessor.repository.RequestRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.github.luben.zstd.Zstd;
 
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
@@ -93,11 +121,13 @@ class FileProcessorServiceTest {
         totally invalid line 3""";
     private static final String NO_PERSONS_JSON = "[]";
     private static final String IP_ADDRESS = "127.0.0.1";
-    private static final IpDetailsDto VALID_IP_DETAILS = new IpDetailsDto("Italy", "Sky Italia", "IT");
-    private static final IpDetailsDto BLOCKED_COUNTRY_IP_DETAILS = new IpDetailsDto("China", "Alibaba", "CH");
+    private static final IpDetailsDto VALID_IP_DETAILS = new IpDetailsDto("Italy", "Sky Italia", "IT", "AS12874 Fastweb SpA");
+    private static final IpDetailsDto BLOCKED_COUNTRY_IP_DETAILS = new IpDetailsDto("China", "Alibaba", "CH", "AS37963 Hangzhou Alibaba Advertising Co.,Ltd.");
     private static final Set<String> BLOCKED_COUNTRIES = Set.of("China", "Spain", "USA");
-    private static final IpDetailsDto BLOCKED_ISP_IP_DETAILS = new IpDetailsDto("United Kingdom", "AWS", "GB");
+    private static final IpDetailsDto BLOCKED_ISP_IP_DETAILS = new IpDetailsDto("United Kingdom", "AWS", "GB", "AS16509 Amazon.com, Inc.");
     private static final Set<String> BLOCKED_ISPS = Set.of("AWS", "GCP", "Azure");
+    private static final IpDetailsDto BLOCKED_AS_IP_DETAILS = new IpDetailsDto("Ireland", "Hetzner", "IE", "AS24940 Hetzner Online GmbH");
+    private static final Blocklist BLOCKLIST = Blocklist.of(BLOCKED_COUNTRIES, BLOCKED_ISPS, Set.of("AS24940"), Set.of("203.0.113.0/24", "2001:db8::/32"));
 
     @Autowired
     FileProcessorService fileProcessorService;
@@ -106,23 +136,41 @@ class FileProcessorServiceTest {
     IPAPIClient ipApiClient;
 
     @MockBean
-    BlockedProperties blockedProperties;
+    BlocklistLoader blocklistLoader;
 
     @MockBean
-    RequestRepository requestRepository;
+    RequestAuditWriter requestAuditWriter;
 
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    List<IpDetailsProvider> ipDetailsProviders;
+
+    @Autowired
+    ParallelFileProcessor parallelFileProcessor;
+
+    @Autowired
+    ParsingProperties parsingProperties;
+
+    @Autowired
+    ProcessingMetrics processingMetrics;
+
+    @Autowired
+    RejectReportProperties rejectReportProperties;
+
     @Mock
     MultipartFile file;
 
     @Test
     void processFile_ValidFileAndValidate_PersonsReturned() throws InvalidFileException, IOException {
         var bytesInFile = VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8);
-        when(file.getBytes()).thenReturn(bytesInFile);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
 
-        var actualPersonsBytes = fileProcessorService.processFile(file, true);
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, OutputFormat.JSON));
 
         var expectedPersonsBytes = PERSONS_JSON.getBytes(StandardCharsets.UTF_8);
         assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
@@ -131,9 +179,9 @@ class FileProcessorServiceTest {
     @Test
     void processFile_ValidFileAndDoNotValidate_PersonsReturned() throws InvalidFileException, IOException {
         var bytesInFile = VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8);
-        when(file.getBytes()).thenReturn(bytesInFile);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
 
-        var actualPersonsBytes = fileProcessorService.processFile(file, false);
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, OutputFormat.JSON));
 
         var expectedPersonsBytes = PERSONS_JSON.getBytes(StandardCharsets.UTF_8);
         assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
@@ -146,9 +194,9 @@ class FileProcessorServiceTest {
     })
     void processFile_someInvalidLinesInFileAndValidate_InvalidFileExceptionThrown(String invalidFileString) throws IOException {
         var bytesInFile = invalidFileString.getBytes(StandardCharsets.UTF_8);
-        when(file.getBytes()).thenReturn(bytesInFile);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
 
-        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true));
+        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true, OutputFormat.JSON));
     }
 
     @ParameterizedTest
@@ -158,9 +206,9 @@ class FileProcessorServiceTest {
     })
     void processFile_someInvalidLinesInFileAndDoNotValidate_ValidPersonsReturned(String invalidFileString) throws InvalidFileException, IOException {
         var bytesInFile = invalidFileString.getBytes(StandardCharsets.UTF_8);
-        when(file.getBytes()).thenReturn(bytesInFile);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
 
-        var actualPersonsBytes = fileProcessorService.processFile(file, false);
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, OutputFormat.JSON));
 
         var expectedPersonsBytes = SOME_PERSONS_JSON.getBytes(StandardCharsets.UTF_8);
         assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
@@ -169,22 +217,387 @@ class FileProcessorServiceTest {
     @Test
     void processFile_allLinesInFileInvalidAndValidate_InvalidFileExceptionThrown() throws IOException {
         var bytesInFile = INVALID_FILE_STRING_ALL_LINES_INVALID.getBytes(StandardCharsets.UTF_8);
-        when(file.getBytes()).thenReturn(bytesInFile);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
 
-        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true));
+        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true, OutputFormat.JSON));
     }
 
     @Test
     void processFile_someInvalidLinesInFileAndDoNotValidate_NoPersonsReturned() throws InvalidFileException, IOException {
         var bytesInFile = INVALID_FILE_STRING_ALL_LINES_INVALID.getBytes(StandardCharsets.UTF_8);
-        when(file.getBytes()).thenReturn(bytesInFile);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
 
-        var actualPersonsBytes = fileProcessorService.processFile(file, false);
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, OutputFormat.JSON));
 
         var expectedPersonsBytes = NO_PERSONS_JSON.getBytes(StandardCharsets.UTF_8);
         assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
     }
 
+    @Test
+    void processFile_EmptyFileAndValidate_InvalidFileExceptionThrown() throws IOException {
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(new byte[0]));
+
+        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true, OutputFormat.JSON));
+    }
+
+    @Test
+    void processFile_TrailingNewLinesAndValidate_PersonsReturned() throws InvalidFileException, IOException {
+        var bytesInFile = (VALID_FILE_STRING + "\n\n").getBytes(StandardCharsets.UTF_8);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, OutputFormat.JSON));
+
+        var expectedPersonsBytes = PERSONS_JSON.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void processFile_LargeFile_PersonsReturnedFromSpooledFile(boolean validate) throws InvalidFileException, IOException {
+        var bytesInFile = VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8);
+        when(file.getSize()).thenReturn(Long.MAX_VALUE);
+        doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+            .when(file).transferTo(any(File.class));
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, validate, OutputFormat.JSON));
+
+        var expectedPersonsBytes = PERSONS_JSON.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
+    }
+
+    @Test
+    void processFile_LargeInvalidFileAndValidate_InvalidFileExceptionThrown() throws IOException {
+        var bytesInFile = INVALID_FILE_STRING_1.getBytes(StandardCharsets.UTF_8);
+        when(file.getSize()).thenReturn(Long.MAX_VALUE);
+        doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+            .when(file).transferTo(any(File.class));
+
+        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true, OutputFormat.JSON));
+    }
+
+    @Test
+    void processFile_ValidFileAsNdjson_OnePersonPerLine() throws InvalidFileException, IOException {
+        var bytesInFile = VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, OutputFormat.NDJSON));
+
+        var expectedPersons = objectMapper.readValue(PERSONS_JSON, new TypeReference<List<PersonDto>>() {});
+        var expectedPersonsBytes = new StringBuilder();
+        for (var person : expectedPersons) {
+            expectedPersonsBytes.append(objectMapper.writeValueAsString(person)).append('\n');
+        }
+        assertEquals(expectedPersonsBytes.toString(), new String(actualPersonsBytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void processFile_ValidFileAsCbor_PersonsReturned() throws InvalidFileException, IOException {
+        var bytesInFile = VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, OutputFormat.CBOR));
+
+        var expectedPersons = objectMapper.readValue(PERSONS_JSON, new TypeReference<List<PersonDto>>() {});
+        assertEquals(expectedPersons, new CBORMapper().readValue(actualPersonsBytes, new TypeReference<List<PersonDto>>() {}));
+    }
+
+    @ParameterizedTest
+    @EnumSource(OutputFormat.class)
+    void processFile_LargeFile_SameOutputAsSmallFile(OutputFormat format) throws InvalidFileException, IOException {
+        var bytesInFile = (VALID_FILE_STRING + "\n" + INVALID_FILE_STRING_ALL_LINES_INVALID + "\n" + VALID_FILE_STRING).getBytes(StandardCharsets.UTF_8);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        var expectedPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, format));
+        when(file.getSize()).thenReturn(Long.MAX_VALUE);
+        doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+            .when(file).transferTo(any(File.class));
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, format));
+
+        assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"GZIP, false", "GZIP, true", "ZSTD, false", "ZSTD, true"})
+    void processFile_CompressedFile_SameOutputAsPlainFile(Compression compression, boolean largeFile) throws InvalidFileException, IOException {
+        var bytesInFile = compress(VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8), compression);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, OutputFormat.JSON));
+
+        var expectedPersonsBytes = PERSONS_JSON.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expectedPersonsBytes, actualPersonsBytes);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"GZIP, false", "GZIP, true", "ZSTD, false", "ZSTD, true"})
+    void processFile_TruncatedCompressedFileAndValidate_InvalidFileExceptionThrown(Compression compression, boolean largeFile) throws IOException {
+        var compressedFile = compress(VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8), compression);
+        var bytesInFile = Arrays.copyOf(compressedFile, compressedFile.length / 2);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+
+        var exception = assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true, OutputFormat.JSON));
+        assertTrue(exception.getMessage().startsWith("File could not be decompressed"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void processFile_InvalidFileAsNdjsonAndValidate_PersonsUpToInvalidLineThenErrorRecord(boolean largeFile) throws InvalidFileException, IOException {
+        var bytesInFile = INVALID_FILE_STRING_1.getBytes(StandardCharsets.UTF_8);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, OutputFormat.NDJSON));
+
+        var expectedPersons = "{\"name\":\"John Smith\",\"transport\":\"Rides A Bike\",\"topSpeed\":\"12.1\"}\n"
+            + "{\"error\":\"Line invalid: 3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5something on the end\",\"line\":2}\n";
+        assertEquals(expectedPersons, new String(actualPersonsBytes, StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void processFile_InvalidFileInReportModeAndValidate_ValidPersonsThenReport(boolean largeFile) throws InvalidFileException, IOException {
+        var bytesInFile = INVALID_FILE_STRING_1.getBytes(StandardCharsets.UTF_8);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+
+        var actualBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, true, OutputFormat.JSON));
+
+        var expectedReport = "{\"rejectedLineCount\":1,\"rejectedLines\":[{\"line\":2,\"reason\":\"TRAILING_CHARACTERS\",\"content\":\""
+            + INVALID_FILE_STRING_1.split("\n")[1] + "\"}]}";
+        assertEquals("{\"persons\":" + SOME_PERSONS_JSON + ",\"report\":" + expectedReport + "}", new String(actualBytes, StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void processFile_LineLongerThanMaxInReportMode_LineRejectedAsTooLong(boolean largeFile) throws InvalidFileException, IOException {
+        var longName = "A".repeat(LineReader.DEFAULT_MAX_LINE_LENGTH);
+        var bytesInFile = VALID_FILE_STRING.replace("Mike Smith", longName).getBytes(StandardCharsets.UTF_8);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+
+        var actualOutcome = objectMapper.readTree(writeOutcomeFile(fileProcessorService.processFile(file, false, true, OutputFormat.JSON)));
+
+        assertEquals(objectMapper.readTree(SOME_PERSONS_JSON), actualOutcome.get("persons"));
+        assertEquals(2, actualOutcome.get("report").get("rejectedLines").get(0).get("line").asInt());
+        assertEquals("LINE_TOO_LONG", actualOutcome.get("report").get("rejectedLines").get(0).get("reason").asText());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void processFile_LineLongerThanMaxAndValidate_InvalidFileExceptionThrown(boolean largeFile) throws IOException {
+        var bytesInFile = VALID_FILE_STRING.replace("Mike Smith", "A".repeat(LineReader.DEFAULT_MAX_LINE_LENGTH)).getBytes(StandardCharsets.UTF_8);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+
+        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true, OutputFormat.JSON));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = OutputFormat.class, names = {"NDJSON", "CBOR"})
+    void processFile_InvalidFileInReportMode_SamePersonsAndReportAsJson(OutputFormat format) throws InvalidFileException, IOException {
+        var bytesInFile = INVALID_FILE_STRING_1.getBytes(StandardCharsets.UTF_8);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        var expectedOutcome = objectMapper.readTree(writeOutcomeFile(fileProcessorService.processFile(file, false, true, OutputFormat.JSON)));
+
+        var actualBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, true, format));
+
+        if (format == OutputFormat.CBOR) {
+            assertEquals(expectedOutcome, new CBORMapper().readTree(actualBytes));
+        } else {
+            var records = new String(actualBytes, StandardCharsets.UTF_8).split("\n");
+            assertEquals(3, records.length);
+            assertEquals(expectedOutcome.get("persons").get(0), objectMapper.readTree(records[0]));
+            assertEquals(expectedOutcome.get("persons").get(1), objectMapper.readTree(records[1]));
+            assertEquals(expectedOutcome.get("report"), objectMapper.readTree(records[2]).get("report"));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void processFile_StatsAndReport_PersonsThenReportThenStats(boolean largeFile) throws InvalidFileException, IOException {
+        var bytesInFile = INVALID_FILE_STRING_1.getBytes(StandardCharsets.UTF_8);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+
+        var actualBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, true, true, OutputFormat.JSON));
+
+        var expectedReport = "{\"rejectedLineCount\":1,\"rejectedLines\":[{\"line\":2,\"reason\":\"TRAILING_CHARACTERS\",\"content\":\""
+            + INVALID_FILE_STRING_1.split("\n")[1] + "\"}]}";
+        var expectedStats = "{\"Rides A Bike\":{\"count\":1,\"minTopSpeed\":12.1,\"maxTopSpeed\":12.1,\"meanTopSpeed\":12.10},"
+            + "\"Rides A Scooter\":{\"count\":1,\"minTopSpeed\":15.3,\"maxTopSpeed\":15.3,\"meanTopSpeed\":15.30}}";
+        assertEquals("{\"persons\":" + SOME_PERSONS_JSON + ",\"report\":" + expectedReport + ",\"stats\":" + expectedStats + "}",
+            new String(actualBytes, StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = OutputFormat.class, names = {"NDJSON", "CBOR"})
+    void processFile_Stats_SamePersonsAndStatsAsJson(OutputFormat format) throws InvalidFileException, IOException {
+        var bytesInFile = VALID_FILE_STRING.getBytes(StandardCharsets.UTF_8);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        var expectedOutcome = objectMapper.readTree(writeOutcomeFile(fileProcessorService.processFile(file, true, false, true, OutputFormat.JSON)));
+
+        var actualBytes = writeOutcomeFile(fileProcessorService.processFile(file, true, false, true, format));
+
+        assertEquals(3, expectedOutcome.get("stats").size());
+        if (format == OutputFormat.CBOR) {
+            // CBOR carries the speeds as decimal fractions, which read back as decimal rather than double nodes
+            assertEquals(expectedOutcome.toString(), new CBORMapper().readTree(actualBytes).toString());
+        } else {
+            var records = new String(actualBytes, StandardCharsets.UTF_8).split("\n");
+            assertEquals(4, records.length);
+            assertEquals(expectedOutcome.get("persons").get(2), objectMapper.readTree(records[2]));
+            assertEquals(expectedOutcome.get("stats"), objectMapper.readTree(records[3]).get("stats"));
+        }
+    }
+
+    @Test
+    void processFile_SomeInvalidLinesAndDoNotValidate_LinesBytesAndPhasesRecorded() throws InvalidFileException, IOException {
+        var bytesInFile = INVALID_FILE_STRING_1.getBytes(StandardCharsets.UTF_8);
+        when(file.getSize()).thenReturn((long) bytesInFile.length);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        var linesParsed = counter("processing.lines.parsed");
+        var linesRejected = counter("processing.lines.rejected");
+        var bytesIn = counter("processing.bytes.in");
+        var bytesOut = counter("processing.bytes.out");
+        var parses = phaseCount("parse");
+        var serializations = phaseCount("serialize");
+
+        var actualPersonsBytes = writeOutcomeFile(fileProcessorService.processFile(file, false, OutputFormat.JSON));
+
+        assertEquals(linesParsed + 2, counter("processing.lines.parsed"));
+        assertEquals(linesRejected + 1, counter("processing.lines.rejected"));
+        assertEquals(bytesIn + bytesInFile.length, counter("processing.bytes.in"));
+        assertEquals(bytesOut + actualPersonsBytes.length, counter("processing.bytes.out"));
+        assertEquals(parses + 1, phaseCount("parse"));
+        assertEquals(serializations + 1, phaseCount("serialize"));
+    }
+
+    @Test
+    void processFile_SameUploadTwiceWithResultCache_SecondServedWithoutParsing() throws Exception {
+        var resultCacheProperties = new ResultCacheProperties(true, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), null, DataSize.ofMegabytes(1));
+        var cachingFileProcessorService = new FileProcessorService(ipDetailsProviders, blocklistLoader, requestAuditWriter, objectMapper,
+            parallelFileProcessor, parsingProperties, processingMetrics, rejectReportProperties, new ResultCache(resultCacheProperties, meterRegistry));
+        var bytesInFile = INVALID_FILE_STRING_8.getBytes(StandardCharsets.UTF_8);
+        when(file.getSize()).thenReturn((long) bytesInFile.length);
+        when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        var firstPersonsBytes = writeOutcomeFile(cachingFileProcessorService.processFile(file, false, OutputFormat.JSON));
+        var parses = phaseCount("parse");
+        var linesRejected = counter("processing.lines.rejected");
+
+        var progress = new ProcessingProgress();
+        var actualPersonsBytes = writeOutcomeFile(cachingFileProcessorService.processFile(file, false, false, OutputFormat.JSON, progress));
+
+        assertArrayEquals(firstPersonsBytes, actualPersonsBytes);
+        assertEquals(SOME_PERSONS_JSON, new String(actualPersonsBytes, StandardCharsets.UTF_8));
+        assertEquals(parses, phaseCount("parse"));
+        assertEquals(linesRejected, counter("processing.lines.rejected"));
+        assertEquals(3, progress.linesProcessed());
+        assertEquals(1, progress.invalidLines());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void processFile_InvalidFileAndValidate_InvalidLineCountedAsRejected(boolean largeFile) throws IOException {
+        var bytesInFile = INVALID_FILE_STRING_1.getBytes(StandardCharsets.UTF_8);
+        if (largeFile) {
+            when(file.getSize()).thenReturn(Long.MAX_VALUE);
+            doAnswer(invocation -> Files.write(invocation.getArgument(0, File.class).toPath(), bytesInFile))
+                .when(file).transferTo(any(File.class));
+        } else {
+            when(file.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(bytesInFile));
+        }
+        var linesParsed = counter("processing.lines.parsed");
+        var linesRejected = counter("processing.lines.rejected");
+        var parses = phaseCount("parse");
+
+        assertThrows(InvalidFileException.class, () -> fileProcessorService.processFile(file, true, OutputFormat.JSON));
+
+        assertEquals(linesParsed, counter("processing.lines.parsed"));
+        assertEquals(linesRejected + 1, counter("processing.lines.rejected"));
+        assertEquals(parses + 1, phaseCount("parse"));
+    }
+
+    @Test
+    void processFile_NdjsonWhileFileStillUploading_FirstPersonFlushedStraightAway() throws Exception {
+        var firstLine = VALID_FILE_STRING.lines().findFirst().orElseThrow() + "\n";
+        var release = new CountDownLatch(1);
+        when(file.getInputStream()).thenReturn(new SequenceInputStream(
+            new ByteArrayInputStream(firstLine.getBytes(StandardCharsets.UTF_8)),
+            new InputStream() {
+
+                @Override
+                public int read() throws IOException {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        throw new InterruptedIOException();
+                    }
+                    return -1;
+                }
+            }));
+        var flushed = new LinkedBlockingQueue<String>();
+        var outputStream = new ByteArrayOutputStream() {
+
+            @Override
+            public void flush() {
+                flushed.add(toString(StandardCharsets.UTF_8));
+            }
+        };
+        var outcomeFile = fileProcessorService.processFile(file, true, OutputFormat.NDJSON);
+
+        var writing = Executors.newSingleThreadExecutor();
+        try {
+            var written = writing.submit(() -> {
+                outcomeFile.writeTo(outputStream);
+                return null;
+            });
+
+            assertEquals("{\"name\":\"John Smith\",\"transport\":\"Rides A Bike\",\"topSpeed\":\"12.1\"}\n", flushed.poll(5, TimeUnit.SECONDS));
+            release.countDown();
+            written.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            writing.shutdownNow();
+        }
+    }
+
     @Test
     void getIpDetails_IpAddressGiven_IpDetailsReturned() {
         when(ipApiClient.getIpDetails(IP_ADDRESS)).thenReturn(VALID_IP_DETAILS);
@@ -194,59 +607,94 @@ class FileProcessorServiceTest {
         assertEquals(VALID_IP_DETAILS, actualIpDetails);
     }
 
+    @Test
+    void getIpDetails_IpInLocalDatabase_IpApiNotCalled() {
+        var actualIpDetails = fileProcessorService.getIpDetails("192.0.2.10");
+
+        assertEquals(new IpDetailsDto("United Kingdom", "Example Telecom", "GB", "AS64500 Example Telecom Ltd"), actualIpDetails);
+        verifyNoInteractions(ipApiClient);
+    }
+
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
     void validateIp_ValidIpAddress_NoExceptionThrown(boolean validate) {
-         assertDoesNotThrow(() -> fileProcessorService.validateIp(VALID_IP_DETAILS, validate));
+        when(blocklistLoader.current()).thenReturn(BLOCKLIST);
+
+        assertDoesNotThrow(() -> fileProcessorService.validateIp(VALID_IP_DETAILS, validate));
     }
 
     @Test
     void validateIp_CountryBlockedAndValidate_IpBlockedExceptionThrown() {
-        when(blockedProperties.countries()).thenReturn(BLOCKED_COUNTRIES);
+        when(blocklistLoader.current()).thenReturn(BLOCKLIST);
 
         assertThrows(IpBlockedException.class, () -> fileProcessorService.validateIp(BLOCKED_COUNTRY_IP_DETAILS, true));
     }
 
     @Test
     void validateIp_CountryBlockedAndDoNotValidate_NoExceptionThrown() {
-        when(blockedProperties.countries()).thenReturn(BLOCKED_COUNTRIES);
-
         assertDoesNotThrow(() -> fileProcessorService.validateIp(BLOCKED_COUNTRY_IP_DETAILS, false));
-        verify(blockedProperties, times(0)).countries();
-        verify(blockedProperties, times(0)).isps();
+        verifyNoInteractions(blocklistLoader);
     }
 
     @Test
     void validateIp_IspBlockedAndValidate_IpBlockedExceptionThrown() {
-        when(blockedProperties.isps()).thenReturn(BLOCKED_ISPS);
+        when(blocklistLoader.current()).thenReturn(BLOCKLIST);
 
         assertThrows(IpBlockedException.class, () -> fileProcessorService.validateIp(BLOCKED_ISP_IP_DETAILS, true));
     }
 
     @Test
     void validateIp_IspBlockedAndDoNotValidate_NoExceptionThrown() {
-        when(blockedProperties.isps()).thenReturn(BLOCKED_ISPS);
-
         assertDoesNotThrow(() -> fileProcessorService.validateIp(BLOCKED_ISP_IP_DETAILS, false));
-        verify(blockedProperties, times(0)).countries();
-        verify(blockedProperties, times(0)).isps();
+        verifyNoInteractions(blocklistLoader);
+    }
+
+    @Test
+    void validateIp_AsBlockedAndValidate_IpBlockedExceptionThrown() {
+        when(blocklistLoader.current()).thenReturn(BLOCKLIST);
+
+        var exception = assertThrows(IpBlockedException.class, () -> fileProcessorService.validateIp(BLOCKED_AS_IP_DETAILS, true));
+
+        assertEquals("Request from AS24940 not allowed", exception.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"203.0.113.0", "203.0.113.77", "203.0.113.255", "2001:db8::1", "::ffff:203.0.113.9"})
+    void validateAddress_AddressInBlockedRangeAndValidate_IpBlockedExceptionThrown(String ip) {
+        when(blocklistLoader.current()).thenReturn(BLOCKLIST);
+
+        assertThrows(IpBlockedException.class, () -> fileProcessorService.validateAddress(ip, true));
+        verifyNoInteractions(ipApiClient);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"203.0.112.255", "203.0.114.0", "127.0.0.1", "2001:db9::1", "not an ip"})
+    void validateAddress_AddressOutsideBlockedRanges_NoExceptionThrown(String ip) {
+        when(blocklistLoader.current()).thenReturn(BLOCKLIST);
+
+        assertDoesNotThrow(() -> fileProcessorService.validateAddress(ip, true));
+    }
+
+    @Test
+    void validateAddress_AddressInBlockedRangeAndDoNotValidate_NoExceptionThrown() {
+        assertDoesNotThrow(() -> fileProcessorService.validateAddress("203.0.113.77", false));
+        verifyNoInteractions(blocklistLoader);
     }
 
     @Captor
     ArgumentCaptor<Request> requestCaptor;
 
     @Test
-    void saveRequestDetails_DetailsToSave_DetailsSavedToRepository() {
+    void saveRequestDetails_DetailsToSave_DetailsWrittenToAudit() {
         var request = mock(HttpServletRequest.class);
-        var responseEntity = ResponseEntity.status(200).body("returned".getBytes(StandardCharsets.UTF_8));
         when(request.getRequestURI()).thenReturn("uri");
         when(request.getRemoteAddr()).thenReturn(IP_ADDRESS);
         var startTime = LocalDateTime.of(2024, 1, 21, 21, 30, 0, 0);
         var endTime = LocalDateTime.of(2024, 1, 21, 21, 30, 0, 567000000);
 
-        fileProcessorService.saveRequestDetails(request, startTime, VALID_IP_DETAILS, endTime, responseEntity);
+        fileProcessorService.saveRequestDetails(request, startTime, VALID_IP_DETAILS, endTime, HttpStatus.OK);
 
-        verify(requestRepository).save(requestCaptor.capture());
+        verify(requestAuditWriter).write(requestCaptor.capture());
         var actualRequest = requestCaptor.getValue();
         assertEquals("uri", actualRequest.getRequestUri());
         assertEquals(Timestamp.valueOf( "2024-01-21 21:30:00.000000000"), actualRequest.getRequestTimestamp());
@@ -256,4 +704,29 @@ class FileProcessorServiceTest {
         assertEquals(VALID_IP_DETAILS.isp(), actualRequest.getRequestIpProvider());
         assertEquals(567, actualRequest.getTimeLapsedInMillis());
     }
-}
\ No newline at end of file
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private long phaseCount(String phase) {
+        return meterRegistry.get("processing.phase").tag("phase", phase).timer().count();
+    }
+
+    private static byte[] writeOutcomeFile(StreamingResponseBody outcomeFile) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        outcomeFile.writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] compress(byte[] file, Compression compression) throws IOException {
+        if (compression == Compression.ZSTD) {
+            return Zstd.compress(file);
+        }
+        var outputStream = new ByteArrayOutputStream();
+        try (var gzipStream = new GZIPOutputStream(outputStream)) {
+            gzipStream.write(file);
+        }
+        return outputStream.toByteArray();
+    }
+}
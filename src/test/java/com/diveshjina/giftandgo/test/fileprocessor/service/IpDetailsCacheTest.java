@@ -0,0 +1,104 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.diveshjina.giftandgo.test.fileprocessor.client.IPAPIClient;
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.IpDetailsCacheProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+
+@ExtendWith(MockitoExtension.class)
+class IpDetailsCacheTest {
+    private static final String IP_ADDRESS = "127.0.0.1";
+    private static final IpDetailsDto IP_DETAILS = new IpDetailsDto("Italy", "Sky Italia", "IT", "AS12874 Fastweb SpA");
+
+    @Mock
+    IPAPIClient ipApiClient;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void getIpDetails_SameIpTwice_IpApiCalledOnceAndHitRecorded() {
+        when(ipApiClient.getIpDetails(IP_ADDRESS)).thenReturn(IP_DETAILS);
+        var ipDetailsCache = ipDetailsCache(Duration.ofHours(1), Duration.ofHours(1));
+
+        assertEquals(IP_DETAILS, ipDetailsCache.getIpDetails(IP_ADDRESS));
+        assertEquals(IP_DETAILS, ipDetailsCache.getIpDetails(IP_ADDRESS));
+
+        verify(ipApiClient, times(1)).getIpDetails(IP_ADDRESS);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "ipDetails").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "ipDetails").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void getIpDetails_LookupFailedWithinNegativeTtl_FailureRethrownWithoutCallingIpApi() {
+        var failure = new IllegalStateException("rate limited");
+        when(ipApiClient.getIpDetails(IP_ADDRESS)).thenThrow(failure);
+        var ipDetailsCache = ipDetailsCache(Duration.ofHours(1), Duration.ofHours(1));
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> ipDetailsCache.getIpDetails(IP_ADDRESS)));
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> ipDetailsCache.getIpDetails(IP_ADDRESS)));
+
+        verify(ipApiClient, times(1)).getIpDetails(IP_ADDRESS);
+    }
+
+    @Test
+    void getIpDetails_LookupFailedAfterNegativeTtl_IpApiCalledAgain() throws InterruptedException {
+        when(ipApiClient.getIpDetails(IP_ADDRESS)).thenThrow(new IllegalStateException("rate limited")).thenReturn(IP_DETAILS);
+        var ipDetailsCache = ipDetailsCache(Duration.ofHours(1), Duration.ofMillis(50));
+
+        assertThrows(IllegalStateException.class, () -> ipDetailsCache.getIpDetails(IP_ADDRESS));
+        Thread.sleep(200);
+
+        assertEquals(IP_DETAILS, ipDetailsCache.getIpDetails(IP_ADDRESS));
+        verify(ipApiClient, times(2)).getIpDetails(IP_ADDRESS);
+    }
+
+    @Test
+    void getIpDetails_ConcurrentLookupsOfSameIp_IpApiCalledOnce() throws Exception {
+        var release = new CountDownLatch(1);
+        when(ipApiClient.getIpDetails(IP_ADDRESS)).thenAnswer(invocation -> {
+            release.await();
+            return IP_DETAILS;
+        });
+        var ipDetailsCache = ipDetailsCache(Duration.ofHours(1), Duration.ofHours(1));
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var lookups = new ArrayList<Future<IpDetailsDto>>();
+            for (var i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> ipDetailsCache.getIpDetails(IP_ADDRESS)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (var lookup : lookups) {
+                assertEquals(IP_DETAILS, lookup.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(ipApiClient, times(1)).getIpDetails(IP_ADDRESS);
+    }
+
+    private IpDetailsCache ipDetailsCache(Duration ttl, Duration negativeTtl) {
+        return new IpDetailsCache(ipApiClient, new IpDetailsCacheProperties(ttl, negativeTtl, 100), meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IpRangesTest {
+    private static final IpRanges RANGES = IpRanges.of(List.of(
+        "10.0.0.0/8", "10.20.0.0/16", "172.16.0.0/12", "172.20.0.0/14", "172.32.0.0/16", "192.0.2.7", "2001:db8::/48", "0.0.0.0/32"));
+
+    @ParameterizedTest
+    @CsvSource({
+        "10.0.0.0, true", "10.255.255.255, true", "11.0.0.0, false", "9.255.255.255, false",
+        "172.15.255.255, false", "172.16.0.0, true", "172.31.255.255, true", "172.32.0.1, true", "172.33.0.0, false",
+        "192.0.2.7, true", "192.0.2.8, false", "0.0.0.0, true", "0.0.0.1, false",
+        "2001:db8::, true", "2001:db8:0:ffff:ffff:ffff:ffff:ffff, true", "2001:db8:1::, false", "::ffff:10.1.1.1, true",
+        "999.1.1.1, false", "localhost, false", "zz:1, false"})
+    void contains_Address_WhetherInAnyRange(String ip, boolean contained) {
+        assertEquals(contained, RANGES.contains(ip));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"10.0.0.0/33", "10.0.0.0/-1", "10.0.0.0/x", "10.0.0/8", "example.com", "2001:db8::/129", "256.0.0.0/8", "zz:1/64", "2001:db8::g/48"})
+    void of_NotAnAddressOrCidrBlock_IllegalArgumentExceptionThrown(String cidr) {
+        assertThrows(IllegalArgumentException.class, () -> IpRanges.of(List.of(cidr)));
+    }
+}
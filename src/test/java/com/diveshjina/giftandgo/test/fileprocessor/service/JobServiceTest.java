@@ -0,0 +1,199 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.JobProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.TooManyJobsException;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.Job;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.JobRepository;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.JobStatus;
+
+@ExtendWith(MockitoExtension.class)
+class JobServiceTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-21T21:30:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    FileProcessorService fileProcessorService;
+
+    @Mock
+    JobRepository jobRepository;
+
+    @Mock
+    MultipartFile file;
+
+    @TempDir
+    Path directory;
+
+    private JobService jobService;
+
+    @AfterEach
+    void afterEach() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void submit_ValidFile_JobSucceedsAndResultWritten() throws Exception {
+        jobService = jobService(1, 1);
+        uploadFile("entry file");
+        when(fileProcessorService.processFile(any(MultipartFile.class), eq(true), eq(false), eq(false), eq(OutputFormat.NDJSON), any(ProcessingProgress.class)))
+            .thenAnswer(invocation -> {
+                var jobFile = invocation.getArgument(0, MultipartFile.class);
+                var progress = invocation.getArgument(5, ProcessingProgress.class);
+                return (OutcomeFile) outputStream -> {
+                    outputStream.write(jobFile.getBytes());
+                    progress.report(3, 1);
+                };
+            });
+
+        var job = jobService.submit(file, true, false, false, OutputFormat.NDJSON);
+
+        assertEquals(JobStatus.QUEUED.name(), job.status());
+        verify(jobRepository, timeout(5000)).finish(eq(job.id()), eq(JobStatus.SUCCEEDED), eq(3L), eq(1L), isNull(), any(Timestamp.class));
+        verify(jobRepository).markRunning(job.id());
+        assertEquals("entry file", Files.readString(directory.resolve(job.id() + ".result")));
+        assertFalse(Files.exists(directory.resolve(job.id() + ".upload")));
+    }
+
+    @Test
+    void submit_InvalidFile_JobFailedWithReasonAndNoResult() throws Exception {
+        jobService = jobService(1, 1);
+        uploadFile("entry file");
+        when(fileProcessorService.processFile(any(MultipartFile.class), eq(true), eq(false), eq(false), eq(OutputFormat.JSON), any(ProcessingProgress.class)))
+            .thenThrow(new InvalidFileException("Line invalid: entry file"));
+
+        var job = jobService.submit(file, true, false, false, OutputFormat.JSON);
+
+        verify(jobRepository, timeout(5000)).finish(eq(job.id()), eq(JobStatus.FAILED), anyLong(), anyLong(), eq("Line invalid: entry file"), any(Timestamp.class));
+        assertFalse(Files.exists(directory.resolve(job.id() + ".result")));
+        assertFalse(Files.exists(directory.resolve(job.id() + ".upload")));
+    }
+
+    @Test
+    void submit_WorkersBusyAndQueueFull_TooManyJobsExceptionThrownAndUploadRemoved() throws Exception {
+        jobService = jobService(1, 1);
+        uploadFile("entry file");
+        var running = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(fileProcessorService.processFile(any(MultipartFile.class), eq(false), eq(false), eq(false), eq(OutputFormat.JSON), any(ProcessingProgress.class)))
+            .thenAnswer(invocation -> {
+                running.countDown();
+                release.await();
+                return (OutcomeFile) outputStream -> {};
+            });
+        try {
+            jobService.submit(file, false, false, false, OutputFormat.JSON);
+            running.await();
+            jobService.submit(file, false, false, false, OutputFormat.JSON);
+
+            assertThrows(TooManyJobsException.class, () -> jobService.submit(file, false, false, false, OutputFormat.JSON));
+            verify(jobRepository).deleteById(any(UUID.class));
+            try (var files = Files.list(directory)) {
+                // Only the uploads of the running and the queued job
+                assertEquals(2, files.count());
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void failUnfinishedJobs_JobsLeftByRestart_MarkedFailed() throws IOException {
+        jobService = jobService(1, 1);
+        var job = job(JobStatus.RUNNING, null);
+        Files.writeString(directory.resolve(job.getJobId() + ".upload"), "entry file");
+        when(jobRepository.findByStatusIn(List.of(JobStatus.QUEUED, JobStatus.RUNNING))).thenReturn(List.of(job));
+
+        jobService.failUnfinishedJobs();
+
+        verify(jobRepository).finish(eq(job.getJobId()), eq(JobStatus.FAILED), eq(0L), eq(0L), eq("Interrupted by a restart"), any(Timestamp.class));
+        assertFalse(Files.exists(directory.resolve(job.getJobId() + ".upload")));
+    }
+
+    @Test
+    void removeExpiredJobs_JobFinishedBeforeRetention_ResultAndJobDeleted() throws IOException {
+        jobService = jobService(1, 1);
+        var job = job(JobStatus.SUCCEEDED, Timestamp.valueOf("2024-01-20 20:00:00"));
+        Files.writeString(directory.resolve(job.getJobId() + ".result"), "[]");
+        when(jobRepository.findByFinishedTimestampBefore(Timestamp.valueOf("2024-01-20 21:30:00"))).thenReturn(List.of(job));
+
+        jobService.removeExpiredJobs();
+
+        verify(jobRepository).deleteById(job.getJobId());
+        assertFalse(Files.exists(directory.resolve(job.getJobId() + ".result")));
+    }
+
+    @Test
+    void findResult_JobSucceeded_ResultReturned() throws IOException {
+        jobService = jobService(1, 1);
+        var job = job(JobStatus.SUCCEEDED, Timestamp.valueOf("2024-01-21 21:00:00"));
+        var result = Files.writeString(directory.resolve(job.getJobId() + ".result"), "[]");
+        when(jobRepository.findById(job.getJobId())).thenReturn(Optional.of(job));
+
+        assertEquals(Optional.of(result), jobService.findResult(job.getJobId()));
+    }
+
+    @Test
+    void findResult_JobStillRunning_NothingReturned() {
+        jobService = jobService(1, 1);
+        var job = job(JobStatus.RUNNING, null);
+        when(jobRepository.findById(job.getJobId())).thenReturn(Optional.of(job));
+
+        assertTrue(jobService.findResult(job.getJobId()).isEmpty());
+    }
+
+    private JobService jobService(int workers, int queueCapacity) {
+        try {
+            return new JobService(fileProcessorService, jobRepository,
+                new JobProperties(directory, workers, queueCapacity, Duration.ofSeconds(1), Duration.ofDays(1)), CLOCK, Thread::new);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void uploadFile(String content) throws IOException {
+        when(file.getOriginalFilename()).thenReturn("EntryFile.txt");
+        doAnswer(invocation -> Files.writeString(invocation.getArgument(0, File.class).toPath(), content, StandardCharsets.UTF_8))
+            .when(file).transferTo(any(File.class));
+    }
+
+    private static Job job(JobStatus status, Timestamp finishedTimestamp) {
+        return new Job(UUID.randomUUID(), status, "EntryFile.txt", OutputFormat.JSON.name(), true, 0, 0, null,
+            Timestamp.valueOf(LocalDateTime.of(2024, 1, 20, 19, 0)), finishedTimestamp);
+    }
+}
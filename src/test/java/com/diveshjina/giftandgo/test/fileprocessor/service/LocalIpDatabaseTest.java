@@ -0,0 +1,93 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.FileSystemResource;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.IpDatabaseProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.IpDetailsDto;
+
+class LocalIpDatabaseTest {
+    private static final String DATABASE = """
+        # first,last,countryCode,country,isp,as
+        81.2.69.0,81.2.69.255,GB,United Kingdom,Andrews & Arnold Ltd,AS20712 Andrews & Arnold Ltd
+        1.0.0.0,1.0.0.255,AU,Australia,"Cloudflare, Inc.",AS13335
+        2001:db8::,2001:db8::ffff,GB,United Kingdom,Andrews & Arnold Ltd
+        "3758096384","4294967295",ZZ,Reserved,"The ""Reserved"" Range"
+        81.2.70.0,81.2.70.127,GB,United Kingdom,Andrews & Arnold Ltd,AS20712 Andrews & Arnold Ltd
+        """;
+    private static final IpDetailsDto ANDREWS_AND_ARNOLD = new IpDetailsDto("United Kingdom", "Andrews & Arnold Ltd", "GB",
+        "AS20712 Andrews & Arnold Ltd");
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @CsvSource({
+        "81.2.69.0, United Kingdom",
+        "81.2.69.142, United Kingdom",
+        "81.2.70.127, United Kingdom",
+        "1.0.0.1, Australia",
+        "224.0.0.1, Reserved",
+        "255.255.255.255, Reserved"
+    })
+    void getIpDetails_IpInRange_RangeDetailsReturned(String ip, String country) throws IOException {
+        assertEquals(country, database(DATABASE).getIpDetails(ip).country());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0.0.0.0", "1.0.1.0", "81.2.68.255", "81.2.70.128", "223.255.255.255", "2001:db8::1", "localhost", "1.0.0", "1.0.0.256",
+        "1.0.0.1.1", "1..0.1", ""})
+    void getIpDetails_IpNotInAnyRange_NullReturned(String ip) throws IOException {
+        assertNull(database(DATABASE).getIpDetails(ip));
+    }
+
+    @Test
+    void getIpDetails_QuotedFields_QuotesRemoved() throws IOException {
+        var database = database(DATABASE);
+
+        assertEquals(new IpDetailsDto("Australia", "Cloudflare, Inc.", "AU", "AS13335"), database.getIpDetails("1.0.0.1"));
+        assertEquals("The \"Reserved\" Range", database.getIpDetails("240.0.0.1").isp());
+        assertEquals("", database.getIpDetails("240.0.0.1").as());
+    }
+
+    @Test
+    void getIpDetails_RangesWithSameDetails_DetailsShared() throws IOException {
+        var database = database(DATABASE);
+
+        assertEquals(ANDREWS_AND_ARNOLD, database.getIpDetails("81.2.69.1"));
+        assertSame(database.getIpDetails("81.2.69.1"), database.getIpDetails("81.2.70.1"));
+    }
+
+    @Test
+    void constructor_OverlappingRanges_ExceptionThrown() {
+        var exception = assertThrows(IllegalArgumentException.class,
+            () -> database("10.0.0.0,10.0.0.255,GB,United Kingdom,BT\n10.0.0.128,10.0.1.0,GB,United Kingdom,BT\n"));
+
+        assertEquals("Range starting at 10.0.0.128 overlaps the one before it", exception.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"10.0.0.0,10.0.0.255,GB,United Kingdom", "10.0.0.0,10.0.0,GB,United Kingdom,BT", "10.0.0.255,10.0.0.0,GB,United Kingdom,BT",
+        "4294967296,4294967296,ZZ,Nowhere,None"})
+    void constructor_InvalidLine_ExceptionThrown(String line) {
+        assertThrows(IllegalArgumentException.class, () -> database(line + "\n"));
+    }
+
+    private LocalIpDatabase database(String csv) throws IOException {
+        var file = Files.writeString(directory.resolve("ip-database.csv"), csv);
+        return new LocalIpDatabase(new IpDatabaseProperties(new FileSystemResource(file)));
+    }
+}
@@ -0,0 +1,207 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ParsingProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.PersonDto;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.LineReader;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.PersonLineParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ParallelFileProcessorTest {
+    private static final String[] LINES = {
+        "18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5",
+        "1afb6f5d-a7c2-4311-a92d-974f3180ff5e|3X3D35|Jenny Walters|Likes Avocados|Rides A Scooter|8.5|15.3",
+        "3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|05.5",
+        "totally invalid line",
+        "",
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ParallelFileProcessor parallelFileProcessor;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void afterEach() {
+        parallelFileProcessor.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 100, 4096})
+    void writePersons_RandomFiles_SamePersonsAsSequentialParse(int chunkSize) throws IOException {
+        parallelFileProcessor = new ParallelFileProcessor(objectMapper, new ParsingProperties(DataSize.ofBytes(0), DataSize.ofBytes(chunkSize), 4, Duration.ZERO));
+        var random = new Random(chunkSize);
+        for (var i = 0; i < 200; i++) {
+            var file = randomFile(random);
+            var outputStream = new ByteArrayOutputStream();
+
+            try (var channel = openFile(file)) {
+                parallelFileProcessor.writePersons(channel, outputStream, OutputFormat.JSON, false, null, null, new ProcessingProgress(), new PhaseTimes());
+            }
+
+            assertArrayEquals(sequentialPersons(file), outputStream.toByteArray());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 100, 4096})
+    void writePersons_RandomFilesReportingInvalidLines_SameNdjsonAsSequentialParse(int chunkSize) throws IOException {
+        parallelFileProcessor = new ParallelFileProcessor(objectMapper, new ParsingProperties(DataSize.ofBytes(0), DataSize.ofBytes(chunkSize), 4, Duration.ZERO));
+        var random = new Random(chunkSize);
+        for (var i = 0; i < 200; i++) {
+            var file = randomFile(random);
+            var outputStream = new ByteArrayOutputStream();
+
+            try (var channel = openFile(file)) {
+                parallelFileProcessor.writePersons(channel, outputStream, OutputFormat.NDJSON, true, null, null, new ProcessingProgress(), new PhaseTimes());
+            }
+
+            assertEquals(sequentialNdjsonUpToInvalidLine(file), outputStream.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 100, 4096})
+    void writePersons_RandomFilesWithRejectReport_SamePersonsAndReportAsSequentialParse(int chunkSize) throws IOException {
+        parallelFileProcessor = new ParallelFileProcessor(objectMapper, new ParsingProperties(DataSize.ofBytes(0), DataSize.ofBytes(chunkSize), 4, Duration.ZERO));
+        var random = new Random(chunkSize);
+        for (var i = 0; i < 200; i++) {
+            var file = randomFile(random);
+            var outputStream = new ByteArrayOutputStream();
+
+            try (var channel = openFile(file)) {
+                parallelFileProcessor.writePersons(channel, outputStream, OutputFormat.JSON, false, new RejectReport(5, 10), null,
+                    new ProcessingProgress(), new PhaseTimes());
+            }
+
+            assertEquals(sequentialPersonsWithReport(file, new RejectReport(5, 10)), outputStream.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 100, 4096})
+    void validateFile_RandomFiles_SameFirstInvalidLineAsSequentialParse(int chunkSize) throws IOException {
+        parallelFileProcessor = new ParallelFileProcessor(objectMapper, new ParsingProperties(DataSize.ofBytes(0), DataSize.ofBytes(chunkSize), 4, Duration.ZERO));
+        var random = new Random(chunkSize);
+        for (var i = 0; i < 200; i++) {
+            var file = randomFile(random);
+            var expectedInvalidLine = sequentialFirstInvalidLine(file);
+
+            try (var channel = openFile(file)) {
+                if (expectedInvalidLine == null) {
+                    assertDoesNotThrow(() -> parallelFileProcessor.validateFile(channel, new PhaseTimes()));
+                } else {
+                    var exception = assertThrows(InvalidFileException.class, () -> parallelFileProcessor.validateFile(channel, new PhaseTimes()));
+                    assertEquals(String.format("Line invalid: %s", expectedInvalidLine), exception.getMessage());
+                }
+            }
+        }
+    }
+
+    private FileChannel openFile(byte[] file) throws IOException {
+        var path = Files.write(Files.createTempFile(tempDir, "entry-file", ".txt"), file);
+        return FileChannel.open(path);
+    }
+
+    private static byte[] randomFile(Random random) {
+        var file = new StringBuilder();
+        var lineCount = random.nextInt(40) + 1;
+        for (var i = 0; i < lineCount; i++) {
+            // Mostly valid lines so the first invalid line can sit anywhere in the file
+            file.append(LINES[random.nextInt(10) < 8 ? random.nextInt(3) : random.nextInt(LINES.length)]);
+            if (i < lineCount - 1 || random.nextBoolean()) {
+                file.append('\n');
+            }
+        }
+        file.append("\n".repeat(random.nextInt(3)));
+        return file.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] sequentialPersons(byte[] file) throws IOException {
+        var persons = new ArrayList<PersonDto>();
+        var lineParser = new PersonLineParser();
+        try (var lineReader = new LineReader(new ByteArrayInputStream(file))) {
+            while (lineReader.nextLine()) {
+                if (lineParser.parse(lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd())) {
+                    persons.add(lineParser.toPerson());
+                }
+            }
+        }
+        return objectMapper.writeValueAsBytes(persons);
+    }
+
+    private String sequentialPersonsWithReport(byte[] file, RejectReport rejectReport) throws IOException {
+        var persons = new ArrayList<PersonDto>();
+        var lineParser = new PersonLineParser();
+        var lineNumber = 0;
+        try (var lineReader = new LineReader(new ByteArrayInputStream(file))) {
+            while (lineReader.nextLine()) {
+                lineNumber++;
+                if (lineParser.parse(lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd())) {
+                    persons.add(lineParser.toPerson());
+                } else {
+                    rejectReport.reject(lineNumber, lineParser.rejectReason(), lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd());
+                }
+            }
+        }
+        var outcome = objectMapper.createObjectNode();
+        outcome.set("persons", objectMapper.valueToTree(persons));
+        outcome.set("report", objectMapper.valueToTree(rejectReport.toDto()));
+        return objectMapper.writeValueAsString(outcome);
+    }
+
+    private String sequentialNdjsonUpToInvalidLine(byte[] file) throws IOException {
+        var ndjson = new StringBuilder();
+        var lineParser = new PersonLineParser();
+        var lineNumber = 0;
+        try (var lineReader = new LineReader(new ByteArrayInputStream(file))) {
+            while (lineReader.nextLine()) {
+                lineNumber++;
+                if (!lineParser.parse(lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd())) {
+                    var error = objectMapper.createObjectNode()
+                        .put("error", String.format("Line invalid: %s", lineReader.line()))
+                        .put("line", lineNumber);
+                    return ndjson.append(objectMapper.writeValueAsString(error)).append('\n').toString();
+                }
+                ndjson.append(objectMapper.writeValueAsString(lineParser.toPerson())).append('\n');
+            }
+        }
+        return ndjson.toString();
+    }
+
+    private static String sequentialFirstInvalidLine(byte[] file) throws IOException {
+        var lineParser = new PersonLineParser();
+        try (var lineReader = new LineReader(new ByteArrayInputStream(file))) {
+            while (lineReader.nextLine()) {
+                if (!lineParser.parse(lineReader.buffer(), lineReader.lineStart(), lineReader.lineEnd())) {
+                    return lineReader.line();
+                }
+            }
+        }
+        return null;
+    }
+}
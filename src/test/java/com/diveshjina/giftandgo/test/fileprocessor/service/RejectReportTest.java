@@ -0,0 +1,64 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.RejectReportDto;
+import com.diveshjina.giftandgo.test.fileprocessor.dto.RejectedLineDto;
+import com.diveshjina.giftandgo.test.fileprocessor.parser.RejectReason;
+
+class RejectReportTest {
+    private static final byte[] LINE = "totally invalid line".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void reject_MoreLinesThanMaxLines_AllCountedButOnlyFirstListed() {
+        var rejectReport = new RejectReport(2, 100);
+
+        for (var lineNumber = 1; lineNumber <= 5; lineNumber++) {
+            rejectReport.reject(lineNumber, RejectReason.UUID, LINE, 0, LINE.length);
+        }
+
+        var expectedReport = new RejectReportDto(5, List.of(
+            new RejectedLineDto(1, "UUID", "totally invalid line"),
+            new RejectedLineDto(2, "UUID", "totally invalid line")));
+        assertEquals(expectedReport, rejectReport.toDto());
+    }
+
+    @Test
+    void reject_LineLongerThanMaxLineLength_ContentTruncated() {
+        var rejectReport = new RejectReport(10, 7);
+
+        rejectReport.reject(1, RejectReason.UUID, LINE, 0, LINE.length);
+        rejectReport.reject(2, RejectReason.UUID, ByteBuffer.wrap(LINE), 8, LINE.length);
+
+        var expectedReport = new RejectReportDto(2, List.of(
+            new RejectedLineDto(1, "UUID", "totally"),
+            new RejectedLineDto(2, "UUID", "invalid")));
+        assertEquals(expectedReport, rejectReport.toDto());
+    }
+
+    @Test
+    void add_ChunkReports_LineNumbersOffsetAndMaxLinesKept() {
+        var rejectReport = new RejectReport(3, 100);
+        var firstChunk = rejectReport.forChunk();
+        firstChunk.reject(2, RejectReason.NAME, LINE, 0, LINE.length);
+        var secondChunk = rejectReport.forChunk();
+        secondChunk.reject(1, RejectReason.ID, LINE, 0, LINE.length);
+        secondChunk.reject(3, RejectReason.TOP_SPEED, LINE, 0, LINE.length);
+        secondChunk.reject(4, RejectReason.TOP_SPEED, LINE, 0, LINE.length);
+
+        rejectReport.add(firstChunk, 0);
+        rejectReport.add(secondChunk, 10);
+
+        var expectedReport = new RejectReportDto(4, List.of(
+            new RejectedLineDto(2, "NAME", "totally invalid line"),
+            new RejectedLineDto(11, "ID", "totally invalid line"),
+            new RejectedLineDto(13, "TOP_SPEED", "totally invalid line")));
+        assertEquals(expectedReport, rejectReport.toDto());
+    }
+}
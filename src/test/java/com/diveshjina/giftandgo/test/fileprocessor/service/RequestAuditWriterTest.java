@@ -0,0 +1,168 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.AuditProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.Request;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.RequestSink;
+
+@ExtendWith(MockitoExtension.class)
+class RequestAuditWriterTest {
+
+    @Mock
+    RequestSink requestSink;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RequestAuditWriter requestAuditWriter;
+
+    @AfterEach
+    void afterEach() {
+        requestAuditWriter.stop();
+    }
+
+    @Test
+    void write_MoreRequestsThanBatchSize_SavedInFullBatches() {
+        var batches = recordBatches();
+        requestAuditWriter = requestAuditWriter(100, 10, Duration.ofHours(1));
+        requestAuditWriter.start();
+
+        for (var i = 0; i < 25; i++) {
+            requestAuditWriter.write(request());
+        }
+
+        verify(requestSink, timeout(5000).times(2)).saveAll(anyList());
+        synchronized (batches) {
+            assertEquals(List.of(10, 10), batches);
+        }
+        assertEquals(20, meterRegistry.counter("audit.requests.written").count());
+    }
+
+    @Test
+    void write_BatchNotFilledWithinMaxLinger_PartialBatchSaved() {
+        var batches = recordBatches();
+        requestAuditWriter = requestAuditWriter(100, 10, Duration.ofMillis(50));
+        requestAuditWriter.start();
+
+        requestAuditWriter.write(request());
+        requestAuditWriter.write(request());
+
+        verify(requestSink, timeout(5000)).saveAll(anyList());
+        assertEquals(List.of(2), batches);
+    }
+
+    @Test
+    void write_QueueFull_RequestDroppedAndCounted() throws InterruptedException {
+        var saving = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            saving.countDown();
+            release.await();
+            return null;
+        }).when(requestSink).saveAll(anyList());
+        requestAuditWriter = requestAuditWriter(2, 1, Duration.ofMillis(10));
+        requestAuditWriter.start();
+        requestAuditWriter.write(request());
+        saving.await();
+
+        requestAuditWriter.write(request());
+        requestAuditWriter.write(request());
+        requestAuditWriter.write(request());
+
+        assertEquals(1, meterRegistry.counter("audit.requests.backpressure").count());
+        assertEquals(1, meterRegistry.counter("audit.requests.dropped").count());
+        assertEquals(3, meterRegistry.counter("audit.requests.queued").count());
+        release.countDown();
+    }
+
+    @Test
+    void stop_RequestsQueued_AllRequestsSaved() {
+        var batches = recordBatches();
+        requestAuditWriter = requestAuditWriter(100, 10, Duration.ofHours(1));
+        requestAuditWriter.start();
+        for (var i = 0; i < 25; i++) {
+            requestAuditWriter.write(request());
+        }
+
+        requestAuditWriter.stop();
+
+        assertEquals(25, batches.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(25, meterRegistry.counter("audit.requests.written").count());
+    }
+
+    @Test
+    void stop_WhileRequestsBeingWritten_NoRequestLost() throws InterruptedException {
+        requestAuditWriter = requestAuditWriter(100_000, 10, Duration.ofMillis(1));
+        requestAuditWriter.start();
+        var writers = new ArrayList<Thread>();
+        var stopping = new CountDownLatch(1);
+        for (var i = 0; i < 4; i++) {
+            var writer = new Thread(() -> {
+                for (var j = 0; j < 2000; j++) {
+                    requestAuditWriter.write(request());
+                    if (j == 1000) {
+                        stopping.countDown();
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+
+        stopping.await();
+        requestAuditWriter.stop();
+        for (var writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(8000, meterRegistry.counter("audit.requests.written").count());
+    }
+
+    @Test
+    void write_WriterStopped_RequestSavedImmediately() {
+        requestAuditWriter = requestAuditWriter(100, 10, Duration.ofHours(1));
+
+        requestAuditWriter.write(request());
+
+        verify(requestSink, times(1)).saveAll(anyList());
+        assertEquals(0, meterRegistry.counter("audit.requests.queued").count());
+    }
+
+    private List<Integer> recordBatches() {
+        var batches = new ArrayList<Integer>();
+        doAnswer(invocation -> {
+            synchronized (batches) {
+                batches.add(invocation.<List<?>>getArgument(0).size());
+            }
+            return null;
+        }).when(requestSink).saveAll(anyList());
+        return batches;
+    }
+
+    private RequestAuditWriter requestAuditWriter(int queueCapacity, int batchSize, Duration maxLinger) {
+        return new RequestAuditWriter(requestSink, new AuditProperties(queueCapacity, batchSize, maxLinger, Duration.ofMillis(10)), meterRegistry);
+    }
+
+    private static Request request() {
+        return new Request(UUID.randomUUID(), "uri", new Timestamp(0), 200, "127.0.0.1", "IT", "Sky Italia", 1);
+    }
+}
@@ -0,0 +1,188 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.ResultCacheProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.service.ResultCache.ResultKey;
+
+class ResultCacheTest {
+    private static final String RESULT = "[{\"name\":\"John Smith\",\"transport\":\"Rides A Bike\",\"topSpeed\":\"12.1\"}]";
+    private static final ResultKey KEY = new ResultKey("5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8", 92, true, false, false,
+        OutputFormat.JSON);
+    private static final OutcomeFile RESULT_FILE = outputStream -> outputStream.write(RESULT.getBytes(StandardCharsets.UTF_8));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void lookUp_ResultStored_MemoryHitStreamsResultAndReportsLines() throws IOException {
+        var resultCache = resultCache(DataSize.ofMegabytes(1), null);
+        write(resultCache.storing(KEY, RESULT_FILE, progress(3, 1)));
+
+        var progress = new ProcessingProgress();
+        var actualResult = resultCache.lookUp(KEY, 92, progress);
+
+        assertEquals(RESULT, write(actualResult));
+        assertEquals(3, progress.linesProcessed());
+        assertEquals(1, progress.invalidLines());
+        assertEquals(1, lookups("memory-hit"));
+        assertEquals(92, meterRegistry.get("result.cache.bytes.saved").counter().count());
+    }
+
+    @Test
+    void lookUp_NothingStored_MissReturnedNull() throws IOException {
+        var resultCache = resultCache(DataSize.ofMegabytes(1), null);
+
+        assertNull(resultCache.lookUp(KEY, 92, new ProcessingProgress()));
+        assertEquals(1, lookups("miss"));
+    }
+
+    @Test
+    void lookUp_ProcessedDifferently_Miss() throws IOException {
+        var resultCache = resultCache(DataSize.ofMegabytes(1), null);
+        write(resultCache.storing(KEY, RESULT_FILE, progress(1, 0)));
+
+        var reportKey = new ResultKey(KEY.sha256(), KEY.size(), KEY.validate(), true, KEY.stats(), KEY.format());
+
+        assertNull(resultCache.lookUp(reportKey, 92, new ProcessingProgress()));
+    }
+
+    @Test
+    void lookUp_WriteFailedPartWay_NothingStored() throws IOException {
+        var resultCache = resultCache(DataSize.ofMegabytes(1), null);
+        OutcomeFile failing = outputStream -> {
+            outputStream.write('[');
+            throw new IOException("Client went away");
+        };
+
+        assertThrows(IOException.class, () -> write(resultCache.storing(KEY, failing, new ProcessingProgress())));
+        assertNull(resultCache.lookUp(KEY, 92, new ProcessingProgress()));
+    }
+
+    @Test
+    void lookUp_EvictedFromMemory_DiskHitStreamsSpilledResult() throws IOException {
+        var resultCache = resultCache(DataSize.ofBytes(16), directory);
+        write(resultCache.storing(KEY, RESULT_FILE, progress(2, 0)));
+
+        var progress = new ProcessingProgress();
+        var actualResult = resultCache.lookUp(KEY, 92, progress);
+
+        assertNotNull(actualResult);
+        assertEquals(RESULT, write(actualResult));
+        assertEquals(2, progress.linesProcessed());
+        assertEquals(1, lookups("disk-hit"));
+    }
+
+    @Test
+    void storing_ResultLargerThanMemory_StreamedToSpillFileWhileWritten() throws IOException {
+        var resultCache = resultCache(DataSize.ofBytes(16), directory);
+        OutcomeFile largeResult = outputStream -> {
+            RESULT_FILE.writeTo(outputStream);
+            assertEquals(1, spilledResults());
+        };
+
+        write(resultCache.storing(KEY, largeResult, progress(2, 0)));
+
+        assertEquals(RESULT, write(resultCache.lookUp(KEY, 92, new ProcessingProgress())));
+        assertEquals(1, lookups("disk-hit"));
+    }
+
+    @Test
+    void storing_ResultLargerThanMemoryFailedPartWay_SpillFileDeleted() throws IOException {
+        var resultCache = resultCache(DataSize.ofBytes(16), directory);
+        OutcomeFile failing = outputStream -> {
+            RESULT_FILE.writeTo(outputStream);
+            throw new IOException("Client went away");
+        };
+
+        assertThrows(IOException.class, () -> write(resultCache.storing(KEY, failing, new ProcessingProgress())));
+        assertEquals(0, spilledResults());
+        assertNull(resultCache.lookUp(KEY, 92, new ProcessingProgress()));
+    }
+
+    @Test
+    void lookUp_EvictedFromMemoryWithoutDirectory_Miss() throws IOException {
+        var resultCache = resultCache(DataSize.ofBytes(16), null);
+        write(resultCache.storing(KEY, RESULT_FILE, progress(2, 0)));
+
+        assertNull(resultCache.lookUp(KEY, 92, new ProcessingProgress()));
+    }
+
+    @Test
+    void constructor_ResultsSpilledBeforeRestart_Deleted() throws IOException {
+        var spilledResult = Files.writeString(directory.resolve("1234.result"), RESULT);
+        var otherFile = Files.writeString(directory.resolve("notes.txt"), "kept");
+
+        resultCache(DataSize.ofMegabytes(1), directory);
+
+        assertFalse(Files.exists(spilledResult));
+        assertTrue(Files.exists(otherFile));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "0, false",
+        "1, true",
+        "1024, true",
+        "1025, false"
+    })
+    void caches_UploadSize_OnlyNonEmptyUploadsUpToMaxFileSize(long uploadSize, boolean expectedCached) throws IOException {
+        assertEquals(expectedCached, resultCache(DataSize.ofMegabytes(1), null).caches(uploadSize));
+    }
+
+    @Test
+    void caches_Disabled_Never() throws IOException {
+        var resultCache = new ResultCache(new ResultCacheProperties(false, null, null, null, null), meterRegistry, Runnable::run);
+
+        assertFalse(resultCache.caches(1));
+    }
+
+    private ResultCache resultCache(DataSize memorySize, Path directory) throws IOException {
+        var resultCacheProperties = new ResultCacheProperties(true, DataSize.ofKilobytes(1), memorySize, directory, DataSize.ofMegabytes(1));
+        return new ResultCache(resultCacheProperties, meterRegistry, Runnable::run);
+    }
+
+    // As processing leaves it once the result has been written
+    private static ProcessingProgress progress(long lines, long invalidLines) {
+        var progress = new ProcessingProgress();
+        progress.report(lines, invalidLines);
+        return progress;
+    }
+
+    private long spilledResults() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("result.cache.lookups").tag("result", result).counter().count();
+    }
+
+    private static String write(OutcomeFile outcomeFile) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        outcomeFile.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
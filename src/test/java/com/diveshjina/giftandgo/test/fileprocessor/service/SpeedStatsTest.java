@@ -0,0 +1,80 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.diveshjina.giftandgo.test.fileprocessor.dto.TransportStatsDto;
+
+class SpeedStatsTest {
+
+    @Test
+    void toDto_SpeedsAdded_CountMinMaxAndMeanPerTransport() {
+        var speedStats = new SpeedStats();
+        speedStats.add("Rides A Bike", 121);
+        speedStats.add("Drives an SUV", 955);
+        speedStats.add("Rides A Bike", 153);
+        speedStats.add("Rides A Bike", 100);
+
+        var stats = speedStats.toDto();
+
+        assertEquals(List.of("Drives an SUV", "Rides A Bike"), List.copyOf(stats.keySet()));
+        assertEquals(new TransportStatsDto(1, new BigDecimal("95.5"), new BigDecimal("95.5"), new BigDecimal("95.50")),
+            stats.get("Drives an SUV"));
+        assertEquals(new TransportStatsDto(3, new BigDecimal("10.0"), new BigDecimal("15.3"), new BigDecimal("12.47")),
+            stats.get("Rides A Bike"));
+    }
+
+    @Test
+    void add_ChunkStats_SameAsSpeedsAddedDirectly() {
+        var expected = new SpeedStats();
+        var speedStats = new SpeedStats();
+        var chunkStats = List.of(new SpeedStats(), new SpeedStats(), new SpeedStats());
+        for (var i = 0; i < 300; i++) {
+            var transport = i % 7 == 0 ? "Drives an SUV" : "Rides A Bike";
+            expected.add(transport, i * 3L);
+            chunkStats.get(i % chunkStats.size()).add(transport, i * 3L);
+        }
+
+        chunkStats.forEach(speedStats::add);
+
+        assertEquals(expected.toDto(), speedStats.toDto());
+    }
+
+    @Test
+    void toDto_SumPastLongMaxValue_MeanExact() {
+        var speedStats = new SpeedStats();
+        speedStats.add("Rides A Bike", Long.MAX_VALUE);
+        speedStats.add("Rides A Bike", Long.MAX_VALUE - 2);
+
+        var stats = speedStats.toDto().get("Rides A Bike");
+
+        assertEquals(2, stats.count());
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, 1), stats.maxTopSpeed());
+        assertEquals(new BigDecimal("922337203685477580.60"), stats.meanTopSpeed());
+    }
+
+    @Test
+    void add_ChunkStatsPastLongMaxValue_SameAsSpeedsAddedDirectly() {
+        var expected = new SpeedStats();
+        var speedStats = new SpeedStats();
+        var chunkStats = List.of(new SpeedStats(), new SpeedStats());
+        for (var i = 0; i < 4; i++) {
+            expected.add("Rides A Bike", Long.MAX_VALUE - i);
+            chunkStats.get(i % chunkStats.size()).add("Rides A Bike", Long.MAX_VALUE - i);
+        }
+
+        chunkStats.forEach(speedStats::add);
+
+        assertEquals(expected.toDto(), speedStats.toDto());
+    }
+
+    @Test
+    void toDto_NothingAdded_Empty() {
+        assertEquals(Map.of(), new SpeedStats().toDto());
+    }
+}
@@ -0,0 +1,186 @@
+package com.diveshjina.giftandgo.test.fileprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.diveshjina.giftandgo.test.fileprocessor.configuration.UploadProperties;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.InvalidFileException;
+import com.diveshjina.giftandgo.test.fileprocessor.exceptions.UploadConflictException;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.UploadRepository;
+import com.diveshjina.giftandgo.test.fileprocessor.repository.UploadStatus;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UploadServiceTest {
+    // Empty and invalid lines in the middle and trailing newlines, which only count as lines when a line follows them
+    private static final byte[] FILE = """
+        18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1
+
+
+        3ce2d17b-e66a-4c1e-bca3-40eb1c9222c7|2X2D24|Mike Smith|Likes Grape|Drives an SUV|35.0|95.5something on the end
+        1afb6f5d-a7c2-4311-a92d-974f3180ff5e|3X3D35|Jenny Walters|Likes Avocados|Rides A Scooter|8.5|15.3
+
+
+        """.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INVALID_FILE = """
+        18148426-89e1-11ee-b9d1-0242ac120002|1X1D14|John Smith|Likes Apricots|Rides A Bike|6.2|12.1
+        totally invalid line
+        1afb6f5d-a7c2-4311-a92d-974f3180ff5e|3X3D35|Jenny Walters|Likes Avocados|Rides A Scooter|8.5|15.3""".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private UploadService uploadService;
+
+    @Autowired
+    private FileProcessorService fileProcessorService;
+
+    @Autowired
+    private UploadRepository uploadRepository;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @ParameterizedTest
+    @CsvSource({"JSON, 1", "JSON, 7", "JSON, 100", "JSON, 100000", "NDJSON, 7", "NDJSON, 100", "CBOR, 7", "CBOR, 100"})
+    void append_FileInChunksSplittingLines_SameResultAsWholeFile(OutputFormat format, int chunkSize) throws Exception {
+        var upload = uploadService.create("EntryFile.txt", false, format);
+
+        for (var offset = 0; offset < FILE.length; offset += chunkSize) {
+            var chunk = Arrays.copyOfRange(FILE, offset, Math.min(offset + chunkSize, FILE.length));
+            uploadService.append(upload.id(), offset, new ByteArrayInputStream(chunk), false);
+        }
+        var finished = uploadService.append(upload.id(), FILE.length, InputStream.nullInputStream(), true).orElseThrow();
+
+        assertEquals(UploadStatus.SUCCEEDED.name(), finished.status());
+        assertEquals(FILE.length, finished.bytesReceived());
+        assertEquals(5, finished.linesProcessed());
+        assertEquals(3, finished.invalidLines());
+        assertArrayEquals(wholeFileResult(FILE, format), Files.readAllBytes(uploadService.findResult(upload.id()).orElseThrow()));
+    }
+
+    @Test
+    void append_LineSentOverManyChunks_ScanCheckpointFollowsBytesReceived() throws Exception {
+        var line = new String(FILE, StandardCharsets.UTF_8).lines().findFirst().orElseThrow().getBytes(StandardCharsets.UTF_8);
+        var upload = uploadService.create("EntryFile.txt", false, OutputFormat.JSON);
+
+        for (var offset = 0; offset < line.length; offset += 10) {
+            uploadService.append(upload.id(), offset, new ByteArrayInputStream(line, offset, Math.min(10, line.length - offset)), false);
+            var received = uploadRepository.findById(upload.id()).orElseThrow();
+            assertEquals(received.getBytesReceived(), received.getBytesScanned());
+            assertEquals(0, received.getBytesParsed());
+        }
+        uploadService.append(upload.id(), line.length, new ByteArrayInputStream("\n".getBytes(StandardCharsets.UTF_8)), false);
+
+        var parsed = uploadRepository.findById(upload.id()).orElseThrow();
+        assertEquals(line.length + 1, parsed.getBytesParsed());
+        assertEquals(line.length + 1, parsed.getBytesScanned());
+        assertEquals(1, parsed.getLinesProcessed());
+    }
+
+    @Test
+    void append_EmptyFile_SameResultAsWholeFile() throws Exception {
+        var upload = uploadService.create("EntryFile.txt", false, OutputFormat.JSON);
+
+        var finished = uploadService.append(upload.id(), 0, InputStream.nullInputStream(), true).orElseThrow();
+
+        assertEquals(1, finished.invalidLines());
+        assertEquals("[]", Files.readString(uploadService.findResult(upload.id()).orElseThrow()));
+    }
+
+    @Test
+    void append_ChunkAtWrongOffset_UploadConflictExceptionThrown() throws Exception {
+        var upload = uploadService.create("EntryFile.txt", false, OutputFormat.JSON);
+        uploadService.append(upload.id(), 0, new ByteArrayInputStream(FILE, 0, 100), false);
+
+        var exception = assertThrows(UploadConflictException.class,
+            () -> uploadService.append(upload.id(), 50, new ByteArrayInputStream(FILE, 50, 100), false));
+
+        assertEquals("Expected chunk at offset 100", exception.getMessage());
+        assertEquals(100, uploadService.findUpload(upload.id()).orElseThrow().bytesReceived());
+    }
+
+    @Test
+    void append_UnknownUpload_NothingReturned() throws Exception {
+        assertTrue(uploadService.append(UUID.randomUUID(), 0, InputStream.nullInputStream(), true).isEmpty());
+    }
+
+    @Test
+    void append_ChunkDropsPartWay_BytesThatArrivedKeptAndUploadResumed() throws Exception {
+        var upload = uploadService.create("EntryFile.txt", false, OutputFormat.JSON);
+        var dropping = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == 150) {
+                    throw new IOException("Connection reset");
+                }
+                return FILE[position++];
+            }
+        };
+
+        assertThrows(IOException.class, () -> uploadService.append(upload.id(), 0, dropping, false));
+        var resumeAt = (int) uploadService.findUpload(upload.id()).orElseThrow().bytesReceived();
+        uploadService.append(upload.id(), resumeAt, new ByteArrayInputStream(FILE, resumeAt, FILE.length - resumeAt), true);
+
+        assertEquals(150, resumeAt);
+        assertArrayEquals(wholeFileResult(FILE, OutputFormat.JSON), Files.readAllBytes(uploadService.findResult(upload.id()).orElseThrow()));
+    }
+
+    @Test
+    void append_FilesWrittenPastCheckpoint_DroppedAndResultSameAsWholeFile() throws Exception {
+        var upload = uploadService.create("EntryFile.txt", false, OutputFormat.JSON);
+        uploadService.append(upload.id(), 0, new ByteArrayInputStream(FILE, 0, 150), false);
+        // As left by a chunk the service went down in the middle of
+        var directory = uploadProperties.directory();
+        Files.writeString(directory.resolve(upload.id() + ".upload"), "half a chunk", StandardOpenOption.APPEND);
+        Files.writeString(directory.resolve(upload.id() + ".result"), "{\"name\":\"half a per", StandardOpenOption.APPEND);
+
+        uploadService.append(upload.id(), 150, new ByteArrayInputStream(FILE, 150, FILE.length - 150), true);
+
+        assertArrayEquals(wholeFileResult(FILE, OutputFormat.JSON), Files.readAllBytes(uploadService.findResult(upload.id()).orElseThrow()));
+    }
+
+    @Test
+    void append_InvalidLineAndValidate_UploadFailedAndFilesRemoved() throws Exception {
+        var upload = uploadService.create("EntryFile.txt", true, OutputFormat.JSON);
+
+        var exception = assertThrows(InvalidFileException.class,
+            () -> uploadService.append(upload.id(), 0, new ByteArrayInputStream(INVALID_FILE), false));
+
+        assertEquals("Line invalid: totally invalid line", exception.getMessage());
+        var failed = uploadService.findUpload(upload.id()).orElseThrow();
+        assertEquals(UploadStatus.FAILED.name(), failed.status());
+        assertEquals("Line invalid: totally invalid line", failed.error());
+        assertFalse(Files.exists(uploadProperties.directory().resolve(upload.id() + ".upload")));
+        assertFalse(Files.exists(uploadProperties.directory().resolve(upload.id() + ".result")));
+        assertThrows(UploadConflictException.class,
+            () -> uploadService.append(upload.id(), INVALID_FILE.length, InputStream.nullInputStream(), true));
+    }
+
+    private byte[] wholeFileResult(byte[] file, OutputFormat format) throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        fileProcessorService.processFile(new MockMultipartFile("file", file), false, format).writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+}